@@ -0,0 +1,160 @@
+package com.example.loggingwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Decouples callers of {@link LogService} from the log transport.
+ * <p>
+ * Request threads copy events into a {@link LogRingBuffer}; a single daemon drain thread takes them
+ * off in batches and hands them to the sink, which encodes and sends them. When the ring is full
+ * the configured {@link LogOverflowPolicy} decides whether the caller waits or an event is dropped.
+ * A caller waiting under {@link LogOverflowPolicy#BLOCK} gives up and drops its event when the pipeline
+ * is stopped or the drain thread is gone.
+ */
+public class AsyncLogPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLogPipeline.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LogRingBuffer ring;
+    private final int batchSize;
+    private final LogOverflowPolicy overflowPolicy;
+    private final Consumer<LogEvent> sink;
+    private final Thread drainThread;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean drainIdle;
+
+    public AsyncLogPipeline(int capacity, int batchSize, LogOverflowPolicy overflowPolicy, Consumer<LogEvent> sink) {
+        this(capacity, batchSize, overflowPolicy, sink, Thread.ofPlatform().name("log-pipeline-drain").daemon().factory());
+    }
+
+    /**
+     * @param threadFactory creates the drain thread, e.g. a virtual-thread factory
+     */
+    public AsyncLogPipeline(int capacity, int batchSize, LogOverflowPolicy overflowPolicy, Consumer<LogEvent> sink,
+                            ThreadFactory threadFactory) {
+        this.ring = new LogRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sink = guarded(sink);
+        this.drainThread = threadFactory.newThread(this::drainLoop);
+    }
+
+    public void start() {
+        running = true;
+        drainThread.start();
+    }
+
+    /**
+     * Stops the drain thread after it has flushed whatever is still queued, waiting at most {@code timeoutMillis}.
+     */
+    public void stop(long timeoutMillis) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainThread);
+        drainThread.join(timeoutMillis);
+        if (ring.size() > 0) {
+            logger.warn("Log pipeline stopped with {} undelivered events", ring.size());
+        }
+    }
+
+    /**
+     * Queues a copy of {@code event}; {@code event} may be reused as soon as this returns.
+     *
+     * @return {@code false} if the event was dropped
+     */
+    public boolean publish(LogEvent event) {
+        boolean accepted = ring.offer(event);
+        if (!accepted) {
+            accepted = handleOverflow(event);
+        }
+        if (accepted && drainIdle) {
+            LockSupport.unpark(drainThread);
+        }
+        return accepted;
+    }
+
+    /**
+     * Events discarded by the overflow policy since start-up, including those {@link LogOverflowPolicy#BLOCK}
+     * gave up on because the pipeline was not running.
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /** Times a publisher had to wait for a free slot under {@link LogOverflowPolicy#BLOCK}. */
+    public long blockedCount() {
+        return blocked.get();
+    }
+
+    /** Events currently waiting for the drain thread. */
+    public int backlog() {
+        return ring.size();
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    private boolean handleOverflow(LogEvent event) {
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> {
+                dropped.incrementAndGet();
+                return false;
+            }
+            case DROP_OLDEST -> {
+                do {
+                    if (ring.poll(null)) {
+                        dropped.incrementAndGet();
+                    }
+                } while (!ring.offer(event));
+                return true;
+            }
+            default -> {
+                blocked.incrementAndGet();
+                do {
+                    // Nothing will free a slot once the pipeline is stopped or its drain thread has died
+                    if (!running || !drainThread.isAlive()) {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    LockSupport.unpark(drainThread);
+                    LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+                } while (!ring.offer(event));
+                return true;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (running || ring.size() > 0) {
+            if (ring.drain(sink, batchSize) > 0) {
+                continue;
+            }
+            drainIdle = true;
+            if (ring.size() == 0 && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            drainIdle = false;
+        }
+    }
+
+    private Consumer<LogEvent> guarded(Consumer<LogEvent> delegate) {
+        return event -> {
+            try {
+                delegate.accept(event);
+            } catch (RuntimeException e) {
+                logger.error("Failed to hand log event to transport", e);
+            }
+        };
+    }
+}
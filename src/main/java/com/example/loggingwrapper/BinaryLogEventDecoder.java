@@ -0,0 +1,160 @@
+package com.example.loggingwrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Decodes records written by {@link BinaryLogEventEncoder}, of the current and the previous schema version.
+ * Dictionary references are resolved against the {@link NameDictionary} of the record's epoch; version 1
+ * records have epoch 0.
+ */
+public final class BinaryLogEventDecoder implements LogEventDecoder {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final IntFunction<NameDictionary> dictionaries;
+
+    /**
+     * Decoder resolving every record's names against {@code dictionary}, whatever its epoch.
+     */
+    public BinaryLogEventDecoder(NameDictionary dictionary) {
+        this(epoch -> dictionary);
+    }
+
+    /**
+     * Decoder resolving names against the dictionary {@code dictionaries} returns for the record's epoch, which
+     * may be {@code null} if none is known yet.
+     */
+    public BinaryLogEventDecoder(IntFunction<NameDictionary> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    public LogEvent decode(byte[] data, int offset, int length, LogEvent event) {
+        Reader reader = new Reader(data, offset, offset + length);
+        if (reader.readByte() != BinaryLogEventEncoder.MAGIC) {
+            throw new IllegalArgumentException("Not a binary log record");
+        }
+        int version = reader.readByte();
+        if (version != 1 && version != BinaryLogEventEncoder.SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported log record schema version " + version);
+        }
+        NameDictionary dictionary = dictionaries.apply(version == 1 ? 0 : (int) reader.readVarLong());
+        if (dictionary == null) {
+            dictionary = NameDictionary.EMPTY;
+        }
+        event.clear()
+                .timestamp(reader.readVarLong())
+                .traceId(readId(reader))
+                .spanId(readId(reader))
+                .parentSpanId(readId(reader))
+                .source(readName(reader, dictionary))
+                .destination(readName(reader, dictionary))
+                .method(readName(reader, dictionary))
+                .type(readString(reader))
+                .request(readString(reader));
+        long status = reader.readVarLong();
+        return event.httpStatus(status == 0 ? LogEvent.NO_STATUS : (int) (status - 1))
+                .response(readString(reader));
+    }
+
+    private static String readName(Reader reader, NameDictionary dictionary) {
+        long header = reader.readVarLong();
+        if (header == 0) {
+            return null;
+        }
+        if ((header & 1) == 1) {
+            int id = (int) (header >>> 1);
+            String name = dictionary.nameOf(id);
+            if (name == null) {
+                throw new IllegalArgumentException("Unknown dictionary id " + id);
+            }
+            return name;
+        }
+        return reader.readUtf8((int) (header >>> 1) - 1);
+    }
+
+    private static String readString(Reader reader) {
+        long header = reader.readVarLong();
+        return header == 0 ? null : reader.readUtf8((int) header - 1);
+    }
+
+    private static String readId(Reader reader) {
+        int tag = reader.readByte();
+        return switch (tag) {
+            case BinaryLogEventEncoder.ID_NULL -> null;
+            case BinaryLogEventEncoder.ID_UUID -> new UUID(reader.readLong(), reader.readLong()).toString();
+            case BinaryLogEventEncoder.ID_HEX128 -> {
+                char[] chars = new char[32];
+                hex(reader.readLong(), chars, 0);
+                hex(reader.readLong(), chars, 16);
+                yield new String(chars);
+            }
+            case BinaryLogEventEncoder.ID_HEX64 -> {
+                char[] chars = new char[16];
+                hex(reader.readLong(), chars, 0);
+                yield new String(chars);
+            }
+            case BinaryLogEventEncoder.ID_STRING -> readString(reader);
+            default -> throw new IllegalArgumentException("Unknown id tag " + tag);
+        };
+    }
+
+    private static void hex(long value, char[] chars, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        int readByte() {
+            require(1);
+            return data[position++] & 0xFF;
+        }
+
+        long readLong() {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readUtf8(int length) {
+            require(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void require(int count) {
+            if (count < 0 || position + count > limit) {
+                throw new IllegalArgumentException("Truncated binary log record");
+            }
+        }
+    }
+}
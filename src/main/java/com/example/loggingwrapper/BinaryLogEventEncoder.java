@@ -0,0 +1,122 @@
+package com.example.loggingwrapper;
+
+/**
+ * Encodes events in the compact binary log format.
+ * <p>
+ * Layout of schema version {@value #SCHEMA_VERSION} (varints are unsigned LEB128):
+ * <pre>
+ * byte     MAGIC (0xB1)          never a valid first byte of the text format
+ * byte     schema version
+ * varint   dictionary epoch      0 without a dictionary; not present in version 1
+ * varint   timestamp (epoch millis)
+ * id       trace_id, span_id, parent_span_id
+ * name     source, destination, method
+ * string   type, request
+ * varint   http_status + 1 (0 = no status)
+ * string   response
+ *
+ * id:     byte tag, then  NULL: -  | UUID: 2 longs | HEX128: 2 longs | HEX64: 1 long | STRING: string
+ * name:   varint 0 = null | (dictionary id &lt;&lt; 1) | 1 | string length + 1 &lt;&lt; 1, then UTF-8
+ * string: varint 0 = null | length + 1, then UTF-8
+ * </pre>
+ * Canonical lower-case UUIDs and W3C style hex ids are stored as raw longs and restored exactly;
+ * any other id is kept as a string. Dictionary ids are resolved in the dictionary of the record's
+ * epoch, since every producer numbers its names from 0.
+ */
+public final class BinaryLogEventEncoder implements LogEventEncoder {
+    public static final int MAGIC = 0xB1;
+    public static final int SCHEMA_VERSION = 2;
+
+    static final int ID_NULL = 0;
+    static final int ID_UUID = 1;
+    static final int ID_HEX128 = 2;
+    static final int ID_HEX64 = 3;
+    static final int ID_STRING = 4;
+
+    private final NameDictionary dictionary;
+
+    public BinaryLogEventEncoder(NameDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void encode(LogEvent event, LogBuffer buffer) {
+        buffer.putByte(MAGIC).putByte(SCHEMA_VERSION).putVarLong(Integer.toUnsignedLong(dictionary.epoch()));
+        buffer.putVarLong(event.getTimestamp());
+        putId(buffer, event.getTraceId());
+        putId(buffer, event.getSpanId());
+        putId(buffer, event.getParentSpanId());
+        putName(buffer, event.getSourceService());
+        putName(buffer, event.getDestinationService());
+        putName(buffer, event.getMethod());
+        putString(buffer, event.getType());
+        putString(buffer, event.getRequest());
+        buffer.putVarLong(event.hasHttpStatus() ? event.getHttpStatus() + 1L : 0L);
+        putString(buffer, event.getResponse());
+    }
+
+    private void putName(LogBuffer buffer, String name) {
+        if (name == null) {
+            buffer.putByte(0);
+            return;
+        }
+        int id = dictionary.idOf(name);
+        if (id != NameDictionary.NO_ID) {
+            buffer.putVarLong(((long) id << 1) | 1);
+        } else {
+            buffer.putVarLong((LogBuffer.utf8Length(name) + 1L) << 1);
+            buffer.putUtf8(name);
+        }
+    }
+
+    private static void putString(LogBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putByte(0);
+        } else {
+            buffer.putVarLong(LogBuffer.utf8Length(value) + 1L);
+            buffer.putUtf8(value);
+        }
+    }
+
+    private static void putId(LogBuffer buffer, String id) {
+        if (id == null) {
+            buffer.putByte(ID_NULL);
+        } else if (isCanonicalUuid(id)) {
+            buffer.putByte(ID_UUID)
+                    .putLong(hex(id, 0, 8) << 32 | hex(id, 9, 13) << 16 | hex(id, 14, 18))
+                    .putLong(hex(id, 19, 23) << 48 | hex(id, 24, 36));
+        } else if (id.length() == 32 && isLowerHex(id, 0, 32)) {
+            buffer.putByte(ID_HEX128).putLong(hex(id, 0, 16)).putLong(hex(id, 16, 32));
+        } else if (id.length() == 16 && isLowerHex(id, 0, 16)) {
+            buffer.putByte(ID_HEX64).putLong(hex(id, 0, 16));
+        } else {
+            buffer.putByte(ID_STRING);
+            putString(buffer, id);
+        }
+    }
+
+    private static boolean isCanonicalUuid(String id) {
+        return id.length() == 36
+                && id.charAt(8) == '-' && id.charAt(13) == '-' && id.charAt(18) == '-' && id.charAt(23) == '-'
+                && isLowerHex(id, 0, 8) && isLowerHex(id, 9, 13) && isLowerHex(id, 14, 18)
+                && isLowerHex(id, 19, 23) && isLowerHex(id, 24, 36);
+    }
+
+    private static boolean isLowerHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hex(String value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = (result << 4) | Character.digit(value.charAt(i), 16);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.loggingwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Concurrent {@link NameDictionary} that hands out small, dense ids on first use.
+ * <p>
+ * On the producing side every new name is announced through an {@link UpdateListener} before its id
+ * can be returned to any encoder, so a dictionary-update record always precedes the first event
+ * that references it. The announcement runs outside the dictionary lock: other threads keep encoding,
+ * writing the name inline until it is announced. If the announcement throws, the id is given back and the
+ * name is written inline this time; if it fails later, the id is {@link #retire retired} and the name is
+ * announced again under a new id on its next use.
+ * Ids are only unique within one dictionary, so each has an {@link #epoch()}, random unless given,
+ * that update records and binary events carry; consumers keep one dictionary per epoch, fed by
+ * {@link #parseUpdate}. The dictionary stops growing at {@code maxSize}; names beyond that are simply
+ * written inline.
+ */
+public class InterningNameDictionary implements NameDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(InterningNameDictionary.class);
+    /** First byte of a dictionary-update record on the log topic. */
+    public static final int UPDATE_MAGIC = 0xB2;
+
+    private final int epoch;
+    private final int maxSize;
+    private final UpdateListener listener;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Set<String> announcing = new HashSet<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private volatile String[] names = new String[64];
+    private int nextId;
+
+    public InterningNameDictionary(int maxSize, UpdateListener listener) {
+        this(ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE), maxSize, listener);
+    }
+
+    public InterningNameDictionary(int epoch, int maxSize, UpdateListener listener) {
+        this.epoch = epoch;
+        this.maxSize = maxSize;
+        this.listener = listener;
+    }
+
+    @Override
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        return ids.size() >= maxSize ? NO_ID : register(name);
+    }
+
+    @Override
+    public String nameOf(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    @Override
+    public int epoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Encodes the dictionary-update record announcing {@code name} under {@code id} in this dictionary's epoch.
+     */
+    public byte[] updateRecord(int id, String name) {
+        LogBuffer buffer = new LogBuffer(name.length() + 16);
+        buffer.putByte(UPDATE_MAGIC).putByte(BinaryLogEventEncoder.SCHEMA_VERSION)
+                .putVarLong(Integer.toUnsignedLong(epoch)).putVarLong(id).putUtf8(name);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decodes a dictionary-update record received from the log topic. Records of schema version 1 carry no
+     * epoch and come back with epoch 0, as do binary events of that version.
+     *
+     * @return {@code null} if {@code data} is not a dictionary-update record
+     */
+    public static Update parseUpdate(byte[] data) {
+        if (data.length < 3 || (data[0] & 0xFF) != UPDATE_MAGIC) {
+            return null;
+        }
+        int version = data[1];
+        if (version != 1 && version != BinaryLogEventEncoder.SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported dictionary record schema version " + version);
+        }
+        int[] position = {2};
+        long epoch = version == 1 ? 0 : readVarInt(data, position);
+        long id = readVarInt(data, position);
+        return new Update((int) epoch, (int) id,
+                new String(data, position[0], data.length - position[0], StandardCharsets.UTF_8));
+    }
+
+    private static long readVarInt(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (position[0] >= data.length || shift > 28) {
+                throw new IllegalArgumentException("Malformed dictionary record");
+            }
+            int b = data[position[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Registers a mapping learned from elsewhere (e.g. a dictionary-update record) without announcing it.
+     */
+    public synchronized void define(int id, String name) {
+        store(id, name);
+        ids.put(name, id);
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    /**
+     * Forgets {@code name} after its announcement under {@code id} failed to reach the log topic, so its next use
+     * announces it again. The id is not handed out again: events already encoded with it may still be in flight.
+     * May be called while the announcement is still in progress, in which case the id is never handed out.
+     */
+    public synchronized void retire(int id, String name) {
+        if (announcing.remove(name)) {
+            return;
+        }
+        if (ids.remove(name, id)) {
+            store(id, null);
+        }
+    }
+
+    private int register(String name) {
+        int id;
+        synchronized (this) {
+            Integer known = ids.get(name);
+            if (known != null) {
+                return known;
+            }
+            // Another thread is announcing this name; write it inline until that is done
+            if (announcing.contains(name)) {
+                return NO_ID;
+            }
+            if (!freeIds.isEmpty()) {
+                id = freeIds.pop();
+            } else if (nextId < maxSize) {
+                id = nextId++;
+            } else {
+                return NO_ID;
+            }
+            announcing.add(name);
+        }
+        try {
+            listener.onNewName(id, name);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                announcing.remove(name);
+                freeIds.push(id);
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            logger.debug("Could not announce name {}; writing it inline", name, e);
+            return NO_ID;
+        }
+        synchronized (this) {
+            if (!announcing.remove(name)) {
+                // Retired while being announced
+                return NO_ID;
+            }
+            store(id, name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    private void store(int id, String name) {
+        String[] current = names;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length << 1));
+        }
+        current[id] = name;
+        names = current;
+    }
+
+    /**
+     * Notified, before the id is handed out, whenever a name is assigned an id. Should not block; the dictionary
+     * is not locked meanwhile. If it throws, the id is not handed out and the name is written inline.
+     */
+    @FunctionalInterface
+    public interface UpdateListener {
+        void onNewName(int id, String name);
+    }
+
+    /**
+     * One dictionary-update record: {@code name} has {@code id} in the dictionary of {@code epoch}.
+     */
+    public record Update(int epoch, int id, String name) {
+    }
+}
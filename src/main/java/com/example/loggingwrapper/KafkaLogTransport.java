@@ -0,0 +1,106 @@
+package com.example.loggingwrapper;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes encoded log records to {@code logs-topic}.
+ * <p>
+ * Uses its own producer with a {@link ByteArraySerializer} so records go out exactly as encoded,
+ * while sharing the {@code spring.kafka.producer.*} settings of the application. The producer
+ * factory is deliberately not exposed as a bean so the auto-configured {@code KafkaTemplate}
+ * used elsewhere in the application is left untouched. Records are sent with the producer's
+ * native callback rather than through a {@code KafkaTemplate}, which saves a future and a
+ * completion stage per record.
+ * <p>
+ * Broadcasts go to the partitions of {@code logs-topic} last looked up. The lookup blocks while
+ * the brokers are unreachable, so it runs on a background thread: at start-up, about once a
+ * minute after that, and on every broadcast until it first succeeds. Until then broadcasts fail
+ * straight away instead of holding up the caller.
+ */
+@Component
+public class KafkaLogTransport implements LogTransport, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaLogTransport.class);
+    private static final String KAFKA_TOPIC = "logs-topic";
+    private static final long PARTITION_REFRESH_MILLIS = 60_000;
+
+    private final DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+    private final Producer<String, byte[]> producer;
+    private final AtomicBoolean lookingUp = new AtomicBoolean();
+    private volatile List<PartitionInfo> partitions;
+    private volatile long partitionsLookedUpAt;
+
+    public KafkaLogTransport(KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        this.producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(), new ByteArraySerializer());
+        // Don't hold up shutdown for the default 30 s when the brokers are unreachable
+        this.producerFactory.setPhysicalCloseTimeout(5);
+        this.producer = producerFactory.createProducer();
+        refreshPartitions();
+    }
+
+    @Override
+    public void send(String key, byte[] payload, SendListener listener) {
+        producer.send(new ProducerRecord<>(KAFKA_TOPIC, key, payload),
+                (metadata, ex) -> listener.onCompletion(payload, ex));
+    }
+
+    @Override
+    public void broadcast(String key, byte[] payload, SendListener listener) {
+        List<PartitionInfo> partitions = this.partitions;
+        if (partitions == null || System.currentTimeMillis() - partitionsLookedUpAt >= PARTITION_REFRESH_MILLIS) {
+            refreshPartitions();
+        }
+        if (partitions == null) {
+            throw new IllegalStateException("Partitions of " + KAFKA_TOPIC + " are not known yet");
+        }
+        AtomicInteger outstanding = new AtomicInteger(partitions.size());
+        for (PartitionInfo partition : partitions) {
+            producer.send(new ProducerRecord<>(KAFKA_TOPIC, partition.partition(), key, payload), (metadata, ex) -> {
+                // Report the first failure, or success once the last copy is acknowledged
+                int remaining = ex == null ? outstanding.decrementAndGet() : outstanding.getAndSet(-1);
+                if (ex != null ? remaining > 0 : remaining == 0) {
+                    listener.onCompletion(payload, ex);
+                }
+            });
+        }
+    }
+
+    private void refreshPartitions() {
+        if (!lookingUp.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofPlatform().daemon().name("log-partition-lookup").start(() -> {
+            try {
+                partitions = List.copyOf(producer.partitionsFor(KAFKA_TOPIC));
+            } catch (RuntimeException e) {
+                logger.debug("Could not look up the partitions of {}", KAFKA_TOPIC, e);
+            } finally {
+                partitionsLookedUpAt = System.currentTimeMillis();
+                lookingUp.set(false);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        producer.close();
+        producerFactory.destroy();
+    }
+}
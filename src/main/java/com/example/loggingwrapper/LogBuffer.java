@@ -0,0 +1,175 @@
+package com.example.loggingwrapper;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that log records are encoded into.
+ * <p>
+ * A buffer is reused across records ({@link #clear()} only resets the write position), so once it
+ * has grown to the size of the largest record, encoding no longer allocates.
+ */
+public final class LogBuffer {
+    private static final byte[] DIGIT_ONES = "0123456789".getBytes();
+
+    private byte[] bytes;
+    private int length;
+
+    public LogBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public LogBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Backing array; only the first {@link #length()} bytes are meaningful.
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * Copies the written bytes into a new, exactly sized array.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public LogBuffer putByte(int value) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+
+    public LogBuffer putBytes(byte[] source) {
+        return putBytes(source, 0, source.length);
+    }
+
+    public LogBuffer putBytes(byte[] source, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Writes {@code value} as 8 big-endian bytes.
+     */
+    public LogBuffer putLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Writes {@code value} as an unsigned LEB128 varint (1 byte for values below 128).
+     */
+    public LogBuffer putVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes the decimal representation of {@code value}, as {@link Long#toString(long)} would.
+     */
+    public LogBuffer putDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            return putUtf8(Long.toString(value));
+        }
+        if (value < 0) {
+            putByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        int position = length + digits;
+        do {
+            bytes[--position] = DIGIT_ONES[(int) (value % 10)];
+            value /= 10;
+        } while (value != 0);
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Writes {@code value} as UTF-8. Unpaired surrogates are replaced with {@code '?'}, matching
+     * {@code String.getBytes(StandardCharsets.UTF_8)}.
+     */
+    public LogBuffer putUtf8(CharSequence value) {
+        int count = value.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (length == bytes.length) {
+                    ensureCapacity(count - i);
+                }
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                putByte('?');
+            } else {
+                ensureCapacity(3);
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Number of bytes {@link #putUtf8} will write for {@code value}.
+     */
+    public static int utf8Length(CharSequence value) {
+        int count = value.length();
+        int bytes = count;
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            } else if (c >= 0x80) {
+                bytes += 1;
+            }
+        }
+        return bytes;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = length + extra;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.loggingwrapper;
+
+/**
+ * Structured, mutable log record emitted by {@link LogService}.
+ * <p>
+ * Instances are meant to be reused: {@link LogService#event()} hands out a per-thread instance
+ * that is cleared before each use, so filling and logging an event does not allocate.
+ * An event must not be retained after it has been passed to {@link LogService#log(LogEvent)}.
+ */
+public final class LogEvent {
+    /** Marker for events that carry no HTTP status (rendered as {@code null} in the text format). */
+    public static final int NO_STATUS = -1;
+
+    private long timestamp;
+    private String sourceService;
+    private String destinationService;
+    private String method;
+    private String type;
+    private String request;
+    private int httpStatus = NO_STATUS;
+    private String response;
+    private String traceId;
+    private String spanId;
+    private String parentSpanId;
+
+    public LogEvent timestamp(long timestamp) {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    public LogEvent source(String sourceService) {
+        this.sourceService = sourceService;
+        return this;
+    }
+
+    public LogEvent destination(String destinationService) {
+        this.destinationService = destinationService;
+        return this;
+    }
+
+    public LogEvent method(String method) {
+        this.method = method;
+        return this;
+    }
+
+    public LogEvent type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public LogEvent request(String request) {
+        this.request = request;
+        return this;
+    }
+
+    public LogEvent httpStatus(int httpStatus) {
+        this.httpStatus = httpStatus;
+        return this;
+    }
+
+    public LogEvent response(String response) {
+        this.response = response;
+        return this;
+    }
+
+    public LogEvent traceId(String traceId) {
+        this.traceId = traceId;
+        return this;
+    }
+
+    public LogEvent spanId(String spanId) {
+        this.spanId = spanId;
+        return this;
+    }
+
+    public LogEvent parentSpanId(String parentSpanId) {
+        this.parentSpanId = parentSpanId;
+        return this;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSourceService() {
+        return sourceService;
+    }
+
+    public String getDestinationService() {
+        return destinationService;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public boolean hasHttpStatus() {
+        return httpStatus != NO_STATUS;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Copies every field of {@code other} into this event.
+     */
+    public LogEvent copyFrom(LogEvent other) {
+        this.timestamp = other.timestamp;
+        this.sourceService = other.sourceService;
+        this.destinationService = other.destinationService;
+        this.method = other.method;
+        this.type = other.type;
+        this.request = other.request;
+        this.httpStatus = other.httpStatus;
+        this.response = other.response;
+        this.traceId = other.traceId;
+        this.spanId = other.spanId;
+        this.parentSpanId = other.parentSpanId;
+        return this;
+    }
+
+    /**
+     * Resets all fields so the instance can be reused for the next record.
+     */
+    public LogEvent clear() {
+        this.timestamp = 0L;
+        this.sourceService = null;
+        this.destinationService = null;
+        this.method = null;
+        this.type = null;
+        this.request = null;
+        this.httpStatus = NO_STATUS;
+        this.response = null;
+        this.traceId = null;
+        this.spanId = null;
+        this.parentSpanId = null;
+        return this;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.loggingwrapper;
+
+/**
+ * Parses a record published on the log topic back into a {@link LogEvent}.
+ */
+public interface LogEventDecoder {
+
+    /**
+     * Decodes {@code length} bytes of {@code data} starting at {@code offset} into {@code event}.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid record in this format
+     */
+    LogEvent decode(byte[] data, int offset, int length, LogEvent event);
+
+    default LogEvent decode(byte[] data) {
+        return decode(data, 0, data.length, new LogEvent());
+    }
+}
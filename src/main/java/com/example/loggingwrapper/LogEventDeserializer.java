@@ -0,0 +1,40 @@
+package com.example.loggingwrapper;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kafka {@link Deserializer} for {@code logs-topic} that accepts both wire formats.
+ * <p>
+ * Binary records are recognised by their leading {@link BinaryLogEventEncoder#MAGIC} byte; anything
+ * else is parsed as a text line, so consumers keep working while producers switch formats.
+ * Dictionary-update records are applied to the dictionary of their producer's epoch and yield {@code null}.
+ */
+public class LogEventDeserializer implements Deserializer<LogEvent> {
+    private final Map<Integer, InterningNameDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final BinaryLogEventDecoder binaryDecoder = new BinaryLogEventDecoder(dictionaries::get);
+    private final TextLogEventDecoder textDecoder = new TextLogEventDecoder();
+
+    @Override
+    public LogEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        LogEventDecoder decoder = (data[0] & 0xFF) == BinaryLogEventEncoder.MAGIC ? binaryDecoder : textDecoder;
+        try {
+            InterningNameDictionary.Update update = InterningNameDictionary.parseUpdate(data);
+            if (update != null) {
+                dictionaries.computeIfAbsent(update.epoch(),
+                                epoch -> new InterningNameDictionary(epoch, Integer.MAX_VALUE, (id, name) -> { }))
+                        .define(update.id(), update.name());
+                return null;
+            }
+            return decoder.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Unreadable log record on " + topic, e);
+        }
+    }
+}
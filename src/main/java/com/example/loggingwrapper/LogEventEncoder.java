@@ -0,0 +1,12 @@
+package com.example.loggingwrapper;
+
+/**
+ * Encodes a {@link LogEvent} into the wire representation published on the log topic.
+ */
+public interface LogEventEncoder {
+
+    /**
+     * Appends the encoded form of {@code event} to {@code buffer}.
+     */
+    void encode(LogEvent event, LogBuffer buffer);
+}
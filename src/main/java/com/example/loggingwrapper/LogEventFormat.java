@@ -0,0 +1,12 @@
+package com.example.loggingwrapper;
+
+/**
+ * Wire formats {@link LogService} can publish on the log topic.
+ * Consumers tell them apart by the first byte (see {@link LogEventDeserializer}).
+ */
+public enum LogEventFormat {
+    /** Pipe/key=value text line; the default, readable by every existing consumer. */
+    TEXT,
+    /** Compact versioned binary record, see {@link BinaryLogEventEncoder}. */
+    BINARY
+}
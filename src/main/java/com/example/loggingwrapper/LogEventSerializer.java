@@ -0,0 +1,28 @@
+package com.example.loggingwrapper;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka {@link Serializer} for producers that send {@link LogEvent} values directly.
+ */
+public class LogEventSerializer implements Serializer<LogEvent> {
+    private final LogEventEncoder encoder;
+    private final LogBuffer buffer = new LogBuffer(512);
+
+    public LogEventSerializer() {
+        this(new TextLogEventEncoder());
+    }
+
+    public LogEventSerializer(LogEventEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public synchronized byte[] serialize(String topic, LogEvent event) {
+        if (event == null) {
+            return null;
+        }
+        encoder.encode(event, buffer.clear());
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.loggingwrapper;
+
+/**
+ * What {@link AsyncLogPipeline} does with a new event when its ring buffer is full.
+ */
+public enum LogOverflowPolicy {
+    /** Wait for the drain thread to free a slot; the calling thread is held up. */
+    BLOCK,
+    /** Discard the oldest queued event to make room for the new one. */
+    DROP_OLDEST,
+    /** Discard the new event and count it. */
+    DROP_NEWEST
+}
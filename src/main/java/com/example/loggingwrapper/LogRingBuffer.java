@@ -0,0 +1,118 @@
+package com.example.loggingwrapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free ring buffer of pre-allocated {@link LogEvent} slots.
+ * <p>
+ * Follows Dmitry Vyukov's bounded MPMC queue: every slot carries a sequence number that tells
+ * producers and consumers whether it is free, published or being consumed, so neither side takes
+ * a lock. Events are copied into the slots on {@link #offer} and handed to the consumer in place,
+ * which means the steady state allocates nothing. Any thread may consume, which is what lets a
+ * producer discard the oldest entry when the ring is full.
+ */
+public final class LogRingBuffer {
+    private final int mask;
+    private final LogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerPosition = new AtomicLong();
+    private final AtomicLong consumerPosition = new AtomicLong();
+
+    public LogRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two >= 2: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.events = new LogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Copies {@code event} into the next free slot.
+     *
+     * @return {@code false} if the ring is full
+     */
+    public boolean offer(LogEvent event) {
+        long position = producerPosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    events[index].copyFrom(event);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = producerPosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest published event. {@code handler} (if not {@code null}) sees the event
+     * before its slot is released; it must not keep a reference to it.
+     *
+     * @return {@code false} if the ring is empty
+     */
+    public boolean poll(Consumer<LogEvent> handler) {
+        long position = consumerPosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (consumerPosition.compareAndSet(position, position + 1)) {
+                    LogEvent event = events[index];
+                    try {
+                        if (handler != null) {
+                            handler.accept(event);
+                        }
+                    } finally {
+                        event.clear();
+                        sequences.lazySet(index, position + mask + 1);
+                    }
+                    return true;
+                }
+                position = consumerPosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = consumerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Polls up to {@code limit} events into {@code handler}.
+     *
+     * @return the number of events consumed
+     */
+    public int drain(Consumer<LogEvent> handler, int limit) {
+        int drained = 0;
+        while (drained < limit && poll(handler)) {
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of events waiting to be consumed.
+     */
+    public int size() {
+        long size = producerPosition.get() - consumerPosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
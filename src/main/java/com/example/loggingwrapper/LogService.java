@@ -0,0 +1,219 @@
+package com.example.loggingwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes structured service-interaction events to {@code logs-topic}.
+ * <p>
+ * By default events are handed to an {@link AsyncLogPipeline} so the calling request thread never
+ * waits on Kafka; set {@code loggingwrapper.async.enabled=false} to encode and send on the caller.
+ * The drain thread is a virtual thread when {@code spring.threads.virtual.enabled} is set.
+ * Records are written as text unless {@code loggingwrapper.format=BINARY} selects the compact
+ * binary format, in which service and method names are sent as ids from an
+ * {@link InterningNameDictionary}. With {@code loggingwrapper.spool.enabled} the transport is a
+ * {@link SpoolingLogTransport}, which keeps records in a local spool until the brokers take them.
+ * With {@code loggingwrapper.sampling.enabled} a {@link TraceSampler} picks the traces that are shipped
+ * at all, on the drain thread in asynchronous mode.
+ */
+@Service
+public class LogService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(LogService.class);
+    private static final String DICTIONARY_KEY = "__dictionary__";
+
+    private static final ThreadLocal<LogEvent> EVENTS = ThreadLocal.withInitial(LogEvent::new);
+    private static final ThreadLocal<LogBuffer> BUFFERS = ThreadLocal.withInitial(() -> new LogBuffer(512));
+
+    private final LogTransport transport;
+    private final LogEventEncoder encoder;
+    private final InterningNameDictionary dictionary;
+    private final LogTransport.SendListener sendListener = this::onSendComplete;
+    private final AsyncLogPipeline pipeline;
+    private final TraceSampler sampler;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public LogService(LogTransport transport,
+                      @Value("${loggingwrapper.async.enabled:true}") boolean asyncEnabled,
+                      @Value("${loggingwrapper.async.capacity:65536}") int capacity,
+                      @Value("${loggingwrapper.async.batch-size:512}") int batchSize,
+                      @Value("${loggingwrapper.async.overflow-policy:BLOCK}") LogOverflowPolicy overflowPolicy,
+                      @Value("${loggingwrapper.format:TEXT}") LogEventFormat format,
+                      @Value("${loggingwrapper.dictionary.max-size:4096}") int dictionaryMaxSize,
+                      @Value("${loggingwrapper.sampling.enabled:false}") boolean samplingEnabled,
+                      @Value("${loggingwrapper.sampling.events-per-second:10000}") double eventsPerSecond,
+                      @Value("${loggingwrapper.sampling.min-rate:0.01}") double minRate,
+                      @Value("${loggingwrapper.sampling.slow-span:1s}") Duration slowSpan,
+                      @Value("${loggingwrapper.sampling.trace-ttl:30s}") Duration traceTtl,
+                      @Value("${loggingwrapper.sampling.max-traces:100000}") int maxTraces,
+                      @Value("${loggingwrapper.sampling.max-buffered-events:100000}") int maxBufferedEvents,
+                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.transport = transport;
+        this.dictionary = new InterningNameDictionary(dictionaryMaxSize, this::announce);
+        this.encoder = switch (format) {
+            case TEXT -> new TextLogEventEncoder();
+            case BINARY -> new BinaryLogEventEncoder(dictionary);
+        };
+        this.sampler = samplingEnabled
+                ? new TraceSampler(eventsPerSecond, minRate, slowSpan.toMillis(), traceTtl.toMillis(), maxTraces,
+                        maxBufferedEvents, this::ship)
+                : null;
+        if (asyncEnabled) {
+            Thread.Builder drainThread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+            this.pipeline = new AsyncLogPipeline(capacity, batchSize, overflowPolicy, this::send,
+                    drainThread.name("log-pipeline-drain").factory());
+            this.pipeline.start();
+        } else {
+            this.pipeline = null;
+        }
+    }
+
+    /**
+     * The asynchronous pipeline in use, or {@code null} when events are sent on the calling thread.
+     */
+    public AsyncLogPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * The trace sampler deciding what is shipped, or {@code null} when every event is.
+     */
+    public TraceSampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * Records acknowledged by the log topic, including dictionary updates. With the spool, records shipped from it
+     * rather than records spooled.
+     */
+    public long sentCount() {
+        LogTransport.Counters counters = transport.counters();
+        return counters == null ? sent.get() : counters.sent();
+    }
+
+    /** Record sends that failed; with the spool, including ones it retries. */
+    public long failedCount() {
+        LogTransport.Counters counters = transport.counters();
+        return counters == null ? failed.get() : counters.failed();
+    }
+
+    /** Events the asynchronous pipeline dropped because it was full, and records the transport lost unshipped. */
+    public long droppedCount() {
+        LogTransport.Counters counters = transport.counters();
+        return (pipeline == null ? 0 : pipeline.droppedCount()) + (counters == null ? 0 : counters.dropped());
+    }
+
+    /**
+     * Service and method names interned for the binary format; empty while the text format is used.
+     */
+    public NameDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns this thread's pooled event, cleared and stamped with the current time.
+     * Fill it and hand it to {@link #log(LogEvent)}; the same instance is returned on the next call.
+     */
+    public LogEvent event() {
+        return EVENTS.get().clear().timestamp(System.currentTimeMillis());
+    }
+
+    /**
+     * Publishes {@code event}, either by queueing a copy on the pipeline or by encoding and sending
+     * it right away. The event may be reused as soon as this method returns.
+     */
+    public void log(LogEvent event) {
+        if (pipeline != null) {
+            pipeline.publish(event);
+        } else {
+            send(event);
+        }
+    }
+
+    public void log(String sourceService, String destinationService, String method, String type, String request,
+                    Integer httpStatus, String response, String traceId, String spanId, String parentSpanId) {
+        log(sourceService, destinationService, method, type, request,
+                httpStatus == null ? LogEvent.NO_STATUS : httpStatus.intValue(), response, traceId, spanId, parentSpanId);
+    }
+
+    /**
+     * Primitive-status variant, picked for literal status codes so they are never boxed.
+     */
+    public void log(String sourceService, String destinationService, String method, String type, String request,
+                    int httpStatus, String response, String traceId, String spanId, String parentSpanId) {
+        log(event()
+                .source(sourceService)
+                .destination(destinationService)
+                .method(method)
+                .type(type)
+                .request(request)
+                .httpStatus(httpStatus)
+                .response(response)
+                .traceId(traceId)
+                .spanId(spanId)
+                .parentSpanId(parentSpanId));
+    }
+
+    public void log(String sourceService, String destinationService, String method, String type, String request,
+                    String response, String traceId, String spanId, String parentSpanId) {
+        log(sourceService, destinationService, method, type, request, LogEvent.NO_STATUS, response, traceId, spanId, parentSpanId);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop(5000);
+        }
+    }
+
+    private void send(LogEvent event) {
+        if (sampler != null) {
+            sampler.offer(event);
+        } else {
+            ship(event);
+        }
+    }
+
+    private void ship(LogEvent event) {
+        LogBuffer buffer = BUFFERS.get().clear();
+        encoder.encode(event, buffer);
+        transport.send(event.getSpanId(), buffer.toByteArray(), sendListener);
+    }
+
+    private void announce(int id, String name) {
+        transport.broadcast(DICTIONARY_KEY, dictionary.updateRecord(id, name), (payload, ex) -> {
+            onSendComplete(payload, ex);
+            if (ex != null) {
+                // Consumers never learned the id; announce the name again on its next use
+                dictionary.retire(id, name);
+            }
+        });
+    }
+
+    private void onSendComplete(byte[] payload, Throwable ex) {
+        if (ex == null) {
+            sent.incrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Log sent to Kafka: {}", describe(payload));
+            }
+        } else {
+            failed.incrementAndGet();
+            logger.error("Failed to send log to Kafka: {}", describe(payload), ex);
+        }
+    }
+
+    private static String describe(byte[] payload) {
+        int magic = payload.length > 0 ? payload[0] & 0xFF : 0;
+        if (magic == BinaryLogEventEncoder.MAGIC || magic == InterningNameDictionary.UPDATE_MAGIC) {
+            return "binary record (" + payload.length + " bytes)";
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
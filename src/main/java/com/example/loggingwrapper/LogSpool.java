@@ -0,0 +1,415 @@
+package com.example.loggingwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable, append-only spool of encoded log records made of memory-mapped segment files.
+ * <p>
+ * Records are copied straight into the mapped segment, so appending costs a memory copy and no system call, and
+ * survives a crash of the process as soon as it returns (an OS crash loses whatever was not yet {@link #force()
+ * forced}). Each record is framed as
+ * <pre>
+ * int size | int crc32c | byte flags | short key length (-1 for null) | key (UTF-8) | payload
+ * </pre>
+ * with the CRC over everything after it, and the size written last. A segment is rolled when the next record does
+ * not fit; a size of zero marks the end of a segment's records.
+ * <p>
+ * Positions are logical offsets, {@code segment id * segment size + position}. The offset up to which records have
+ * been shipped is committed to a small mapped checkpoint file; segments wholly below it are deleted. When the
+ * segments on disk would exceed {@code maxBytes}, the oldest is deleted whether shipped or not, and the records
+ * lost with it are counted. Its unshipped broadcast records, the name dictionary's updates, are first copied to
+ * the start of the new segment, since later events may refer to the names they announce; only events spooled
+ * between the two can still miss a name. On start-up the newest segment is scanned and cut at the first
+ * record that is incomplete or fails its CRC; a bad record in an older segment skips the rest of that segment.
+ * <p>
+ * The directory is locked for the lifetime of the spool. Methods are synchronized; one thread appends and one reads.
+ */
+public class LogSpool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LogSpool.class);
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Byte.BYTES + Short.BYTES;
+    private static final int CRC_FROM = Integer.BYTES + Integer.BYTES;
+    private static final byte BROADCAST = 1;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final MappedByteBuffer checkpoint;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final CRC32C crc = new CRC32C();
+    private long writeOffset;
+    private long committedOffset;
+    private long appended;
+    private long dropped;
+    private long corrupt;
+    private boolean closed;
+
+    public LogSpool(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        if (segmentBytes < HEADER_BYTES + 1) {
+            throw new IllegalArgumentException("Spool segments must hold at least one record: " + segmentBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(maxBytes, 2L * segmentBytes);
+        this.lockChannel = FileChannel.open(directory.resolve("spool.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Another spool in this JVM, e.g. a second application context, holds the directory
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Log spool " + directory + " is in use by another spool");
+        }
+        this.lock = acquired;
+        this.checkpoint = map(directory.resolve("spool.checkpoint"), Long.BYTES + Integer.BYTES);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            if (Files.size(file) != segmentBytes) {
+                throw new IllegalStateException("Log spool segment " + file + " is not " + segmentBytes
+                        + " bytes; ship or remove the spool before changing the segment size");
+            }
+            String name = file.getFileName().toString();
+            segments.addLast(new Segment(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())),
+                    file, map(file, segmentBytes)));
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Segment tail = segments.getLast();
+        int position = 0;
+        while (valid(tail.buffer, position)) {
+            position += tail.buffer.getInt(position);
+        }
+        if (position + Integer.BYTES <= segmentBytes && tail.buffer.getInt(position) != 0) {
+            logger.warn("Log spool segment {} ends in a torn record at {}; discarding it", tail.file, position);
+        }
+        // Zero the tail so whatever a torn write left behind is never read as records
+        byte[] zeros = new byte[Math.min(segmentBytes - position, 64 * 1024)];
+        for (int i = position; i < segmentBytes; i += zeros.length) {
+            tail.buffer.put(i, zeros, 0, Math.min(zeros.length, segmentBytes - i));
+        }
+        writeOffset = tail.base() + position;
+
+        long checkpointed = checkpoint.getLong(0);
+        crc.reset();
+        crc.update(checkpoint.slice(0, Long.BYTES));
+        boolean checkpointValid = (int) crc.getValue() == checkpoint.getInt(Long.BYTES);
+        committedOffset = checkpointValid
+                ? Math.min(Math.max(checkpointed, segments.getFirst().base()), writeOffset)
+                : segments.getFirst().base();
+        logger.info("Recovered log spool {}: {} segments, {} bytes not yet shipped", directory, segments.size(),
+                backlogBytes());
+    }
+
+    /**
+     * Appends one record, rolling to a new segment when it does not fit into the current one.
+     *
+     * @return {@code false} if the record is larger than a segment and was not spooled
+     * @throws UncheckedIOException if a new segment could not be created
+     */
+    public synchronized boolean append(String key, byte[] payload, boolean broadcast) {
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        int keyLength = keyBytes == null ? 0 : keyBytes.length;
+        long size = size(keyBytes, payload);
+        if (size > segmentBytes || keyLength > Short.MAX_VALUE || closed) {
+            return false;
+        }
+        if (segments.isEmpty() || writeOffset - segments.getLast().base() + size > segmentBytes) {
+            roll(size);
+        }
+        write(keyBytes, payload, broadcast);
+        appended++;
+        notifyAll();
+        return true;
+    }
+
+    private static long size(byte[] keyBytes, byte[] payload) {
+        return (long) HEADER_BYTES + (keyBytes == null ? 0 : keyBytes.length) + payload.length;
+    }
+
+    /**
+     * Writes one record at the write offset, which the caller has made sure it fits behind.
+     */
+    private void write(byte[] keyBytes, byte[] payload, boolean broadcast) {
+        int keyLength = keyBytes == null ? 0 : keyBytes.length;
+        long size = size(keyBytes, payload);
+        Segment tail = segments.getLast();
+        MappedByteBuffer buffer = tail.buffer;
+        int position = (int) (writeOffset - tail.base());
+        buffer.put(position + CRC_FROM, broadcast ? BROADCAST : 0);
+        buffer.putShort(position + CRC_FROM + Byte.BYTES, keyBytes == null ? -1 : (short) keyLength);
+        if (keyBytes != null) {
+            buffer.put(position + HEADER_BYTES, keyBytes);
+        }
+        buffer.put(position + HEADER_BYTES + keyLength, payload);
+        crc.reset();
+        crc.update(buffer.slice(position + CRC_FROM, (int) size - CRC_FROM));
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, (int) size);
+        writeOffset += size;
+    }
+
+    /**
+     * Starts a new segment, deleting the oldest ones while over {@code maxBytes}, and leaves at least
+     * {@code reserve} bytes in it for the record being appended.
+     */
+    private void roll(long reserve) {
+        long id = segments.isEmpty() ? committedOffset / segmentBytes : segments.getLast().id + 1;
+        Path file = directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+        try {
+            if (!segments.isEmpty()) {
+                segments.getLast().buffer.force();
+            }
+            segments.addLast(new Segment(id, file, map(file, segmentBytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create log spool segment " + file, e);
+        }
+        writeOffset = id * segmentBytes;
+        List<SpooledRecord> carried = new ArrayList<>();
+        while ((long) segments.size() * segmentBytes > maxBytes) {
+            Segment oldest = segments.getFirst();
+            if (committedOffset < oldest.base() + segmentBytes) {
+                long lost = 0;
+                int kept = carried.size();
+                int position = position(Math.max(committedOffset, oldest.base()));
+                while (valid(oldest.buffer, position)) {
+                    if (oldest.buffer.get(position + CRC_FROM) == BROADCAST) {
+                        carried.add(record(oldest.buffer, oldest.base() + position, position));
+                    } else {
+                        lost++;
+                    }
+                    position += oldest.buffer.getInt(position);
+                }
+                dropped += lost;
+                logger.warn("Log spool over {} bytes; dropped {} records not yet shipped, kept {} broadcasts",
+                        maxBytes, lost, carried.size() - kept);
+                commit(oldest.base() + segmentBytes);
+            } else {
+                deleteOldest();
+            }
+        }
+        long room = segmentBytes - reserve;
+        for (SpooledRecord record : carried) {
+            byte[] keyBytes = record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8);
+            if (writeOffset - segments.getLast().base() + size(keyBytes, record.payload()) > room) {
+                dropped++;
+                continue;
+            }
+            write(keyBytes, record.payload(), true);
+        }
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records from the committed offset on, copying them off the mapped segments.
+     * The batch's {@code endOffset} is where reading stopped, past any corrupt region it skipped.
+     */
+    public synchronized Batch read(int maxRecords) {
+        List<SpooledRecord> records = new ArrayList<>(Math.min(maxRecords, 1024));
+        long offset = committedOffset;
+        for (Segment segment : segments) {
+            if (segment.base() + segmentBytes <= offset) {
+                continue;
+            }
+            offset = Math.max(offset, segment.base());
+            boolean tail = segment == segments.getLast();
+            int position = position(offset);
+            while (records.size() < maxRecords
+                    && (tail ? segment.base() + position < writeOffset : valid(segment.buffer, position))) {
+                records.add(record(segment.buffer, offset, position));
+                position += segment.buffer.getInt(position);
+                offset = segment.base() + position;
+            }
+            if (records.size() == maxRecords || tail) {
+                break;
+            }
+            if (position + Integer.BYTES <= segmentBytes && segment.buffer.getInt(position) != 0) {
+                corrupt++;
+                logger.warn("Skipping corrupt record at {} in log spool segment {}", position, segment.file);
+            }
+            offset = segment.base() + segmentBytes;
+        }
+        return new Batch(records, records.isEmpty() ? Math.min(offset, writeOffset) : offset);
+    }
+
+    private static SpooledRecord record(MappedByteBuffer buffer, long offset, int position) {
+        int size = buffer.getInt(position);
+        boolean broadcast = buffer.get(position + CRC_FROM) == BROADCAST;
+        short keyLength = buffer.getShort(position + CRC_FROM + Byte.BYTES);
+        String key = null;
+        int payloadFrom = position + HEADER_BYTES;
+        if (keyLength >= 0) {
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(payloadFrom, keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+            payloadFrom += keyLength;
+        }
+        byte[] payload = new byte[position + size - payloadFrom];
+        buffer.get(payloadFrom, payload);
+        return new SpooledRecord(offset, key, payload, broadcast);
+    }
+
+    private boolean valid(MappedByteBuffer buffer, int position) {
+        if (position + HEADER_BYTES > segmentBytes) {
+            return false;
+        }
+        int size = buffer.getInt(position);
+        if (size < HEADER_BYTES || size > segmentBytes - position) {
+            return false;
+        }
+        short keyLength = buffer.getShort(position + CRC_FROM + Byte.BYTES);
+        if (keyLength < -1 || HEADER_BYTES + Math.max(0, keyLength) > size) {
+            return false;
+        }
+        crc.reset();
+        crc.update(buffer.slice(position + CRC_FROM, size - CRC_FROM));
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES);
+    }
+
+    /**
+     * Marks everything before {@code offset} as shipped and deletes the segments that leaves empty.
+     */
+    public synchronized void commit(long offset) {
+        if (offset <= committedOffset) {
+            return;
+        }
+        committedOffset = offset;
+        checkpoint.putLong(0, offset);
+        crc.reset();
+        crc.update(checkpoint.slice(0, Long.BYTES));
+        checkpoint.putInt(Long.BYTES, (int) crc.getValue());
+        while (segments.size() > 1 && segments.getFirst().base() + segmentBytes <= committedOffset) {
+            deleteOldest();
+        }
+    }
+
+    private void deleteOldest() {
+        Segment oldest = segments.removeFirst();
+        try {
+            // The mapping itself is released once the buffer is collected
+            Files.deleteIfExists(oldest.file);
+        } catch (IOException e) {
+            logger.warn("Could not delete log spool segment {}", oldest.file, e);
+        }
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for a record to be appended past the committed offset.
+     */
+    public synchronized void awaitBacklog(long timeoutMillis) throws InterruptedException {
+        if (writeOffset <= committedOffset && !closed) {
+            wait(timeoutMillis);
+        }
+    }
+
+    /**
+     * Flushes the current segment and the checkpoint to disk.
+     */
+    public synchronized void force() {
+        if (!closed) {
+            if (!segments.isEmpty()) {
+                segments.getLast().buffer.force();
+            }
+            checkpoint.force();
+        }
+    }
+
+    public synchronized long backlogBytes() {
+        return writeOffset - committedOffset;
+    }
+
+    public synchronized long committedOffset() {
+        return committedOffset;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** Records appended since start-up. */
+    public synchronized long appendedCount() {
+        return appended;
+    }
+
+    /** Records deleted by the size limit before they were shipped. */
+    public synchronized long droppedCount() {
+        return dropped;
+    }
+
+    /** Corrupt records skipped while reading older segments. */
+    public synchronized long corruptCount() {
+        return corrupt;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        notifyAll();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private int position(long offset) {
+        return (int) (offset % segmentBytes);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * One spooled record; {@code offset} is where it starts.
+     */
+    public record SpooledRecord(long offset, String key, byte[] payload, boolean broadcast) {
+    }
+
+    /**
+     * Records read in order, and the offset to commit once all of them have been shipped.
+     */
+    public record Batch(List<SpooledRecord> records, long endOffset) {
+    }
+
+    private record Segment(long id, Path file, MappedByteBuffer buffer, long base) {
+        Segment(long id, Path file, MappedByteBuffer buffer) {
+            this(id, file, buffer, id * buffer.capacity());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.loggingwrapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * With {@code loggingwrapper.spool.enabled=true}, puts a {@link SpoolingLogTransport} in front of the
+ * {@link KafkaLogTransport}, so {@link LogService} writes to a local memory-mapped spool and a background thread
+ * ships to {@code logs-topic}. Spooled records left over from a previous run are shipped first.
+ * <p>
+ * Off by default. The spool directory is locked by one instance at a time, so it defaults to
+ * {@code log-spool/<server.port>} under the working directory rather than a location shared by every instance.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loggingwrapper.spool.enabled", havingValue = "true")
+public class LogSpoolConfiguration {
+
+    @Bean
+    @Primary
+    public SpoolingLogTransport spoolingLogTransport(
+            KafkaLogTransport kafkaLogTransport,
+            @Value("${loggingwrapper.spool.directory:log-spool/${server.port:8080}}") Path directory,
+            @Value("${loggingwrapper.spool.segment-size:64MB}") DataSize segmentSize,
+            @Value("${loggingwrapper.spool.max-size:1GB}") DataSize maxSize,
+            @Value("${loggingwrapper.spool.batch-size:1024}") int batchSize,
+            @Value("${loggingwrapper.spool.ack-timeout:30s}") Duration ackTimeout,
+            @Value("${loggingwrapper.spool.min-backoff:100ms}") Duration minBackoff,
+            @Value("${loggingwrapper.spool.max-backoff:30s}") Duration maxBackoff,
+            @Value("${loggingwrapper.spool.force-interval:1s}") Duration forceInterval,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws IOException {
+        LogSpool spool = new LogSpool(directory, Math.toIntExact(segmentSize.toBytes()), maxSize.toBytes());
+        Thread.Builder shipperThread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        SpoolingLogTransport transport = new SpoolingLogTransport(kafkaLogTransport, spool, batchSize,
+                ackTimeout.toMillis(), minBackoff.toMillis(), maxBackoff.toMillis(), forceInterval.toMillis(),
+                shipperThread.name("log-spool-shipper").factory());
+        transport.start();
+        return transport;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.loggingwrapper;
+
+/**
+ * Delivers encoded log records to the log topic.
+ */
+public interface LogTransport {
+
+    /**
+     * Sends one encoded record. {@code listener} is invoked once the record has been acknowledged
+     * or has definitively failed; implementations must not block the caller waiting for that.
+     */
+    void send(String key, byte[] payload, SendListener listener);
+
+    /**
+     * Sends a record that every consumer must see, such as a dictionary update. Implementations with
+     * partitioned topics deliver it to each partition, ahead of any record sent after this call, and
+     * invoke {@code listener} once: after every copy is acknowledged, or with the first failure.
+     */
+    default void broadcast(String key, byte[] payload, SendListener listener) {
+        send(key, payload, listener);
+    }
+
+    /**
+     * What has become of the records handed to this transport, for transports whose listener outcomes do not
+     * already say so, e.g. because a record counts as sent before it is shipped.
+     *
+     * @return {@code null} if the outcomes reported to the send listeners are the shipping outcomes
+     */
+    default Counters counters() {
+        return null;
+    }
+
+    /**
+     * Callback for the outcome of a single {@link #send}.
+     */
+    @FunctionalInterface
+    interface SendListener {
+        void onCompletion(byte[] payload, Throwable failure);
+    }
+
+    /**
+     * @param sent    records acknowledged by the log topic
+     * @param failed  record sends that failed or went unacknowledged, including ones that will be retried
+     * @param dropped records lost without being shipped
+     */
+    record Counters(long sent, long failed, long dropped) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.loggingwrapper;
+
+/**
+ * Maps frequently repeated names (services, methods) to small integer ids for the binary format.
+ */
+public interface NameDictionary {
+    /** Returned by {@link #idOf} for names without an id; such names are written inline. */
+    int NO_ID = -1;
+
+    /**
+     * Id of {@code name}, or {@link #NO_ID} if it has none.
+     */
+    int idOf(String name);
+
+    /**
+     * Name registered under {@code id}, or {@code null} if the id is unknown.
+     */
+    String nameOf(int id);
+
+    /**
+     * Tells dictionaries of different producers apart, since their ids overlap; 0 for none.
+     */
+    default int epoch() {
+        return 0;
+    }
+
+    /** Dictionary without entries: every name is written inline. */
+    NameDictionary EMPTY = new NameDictionary() {
+        @Override
+        public int idOf(String name) {
+            return NO_ID;
+        }
+
+        @Override
+        public String nameOf(int id) {
+            return null;
+        }
+    };
+}
@@ -0,0 +1,236 @@
+package com.example.loggingwrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes every record to a {@link LogSpool} first and ships it to the delegate transport from a background thread,
+ * so a slow or unavailable broker never holds up {@link LogService} and never costs a record while the spool has
+ * room.
+ * <p>
+ * A record counts as sent once it is spooled: the send listener is told right away, and {@link #counters()} reports
+ * what was actually shipped. The shipper reads batches from the spool in order, sends each through the delegate and
+ * waits for every acknowledgement before committing. When a send fails it commits the acknowledged prefix, backs off
+ * exponentially between {@code minBackoff} and {@code maxBackoff}, and resends from the first record that was not
+ * acknowledged, so delivery is at least once: records of the failed batch that were acknowledged after it are sent
+ * again, and their first copy precedes the failed record. The Kafka producer's own retries keep this to batches that
+ * time out. Records too large for a segment, or arriving once the spool cannot take more, go to the delegate directly.
+ */
+public class SpoolingLogTransport implements LogTransport, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(SpoolingLogTransport.class);
+    private static final long POLL_MILLIS = 100;
+    private static final int ACKNOWLEDGED = 1;
+    private static final int FAILED = 2;
+
+    private final LogTransport delegate;
+    private final LogSpool spool;
+    private final int batchSize;
+    private final long ackTimeoutMillis;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long forceIntervalMillis;
+    private final Thread shipper;
+    private final AtomicLong shipped = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong bypassedSent = new AtomicLong();
+    private final AtomicLong bypassedFailed = new AtomicLong();
+
+    private volatile boolean running;
+
+    public SpoolingLogTransport(LogTransport delegate, LogSpool spool, int batchSize, long ackTimeoutMillis,
+                                long minBackoffMillis, long maxBackoffMillis, long forceIntervalMillis,
+                                ThreadFactory threadFactory) {
+        this.delegate = delegate;
+        this.spool = spool;
+        this.batchSize = batchSize;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.minBackoffMillis = minBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.forceIntervalMillis = forceIntervalMillis;
+        this.shipper = threadFactory.newThread(this::shipLoop);
+    }
+
+    public void start() {
+        running = true;
+        shipper.start();
+    }
+
+    @Override
+    public void send(String key, byte[] payload, SendListener listener) {
+        if (spool(key, payload, false)) {
+            listener.onCompletion(payload, null);
+        } else {
+            delegate.send(key, payload, counting(listener));
+        }
+    }
+
+    @Override
+    public void broadcast(String key, byte[] payload, SendListener listener) {
+        if (spool(key, payload, true)) {
+            listener.onCompletion(payload, null);
+        } else {
+            delegate.broadcast(key, payload, counting(listener));
+        }
+    }
+
+    private boolean spool(String key, byte[] payload, boolean broadcast) {
+        try {
+            if (spool.append(key, payload, broadcast)) {
+                return true;
+            }
+        } catch (UncheckedIOException e) {
+            logger.error("Could not spool log record; sending it directly", e);
+        }
+        bypassed.incrementAndGet();
+        return false;
+    }
+
+    private SendListener counting(SendListener listener) {
+        return (payload, failure) -> {
+            (failure == null ? bypassedSent : bypassedFailed).incrementAndGet();
+            listener.onCompletion(payload, failure);
+        };
+    }
+
+    public LogSpool getSpool() {
+        return spool;
+    }
+
+    /** Records acknowledged by the delegate since start-up. */
+    public long shippedCount() {
+        return shipped.get();
+    }
+
+    /** Batches that had to be resent because a record in them failed or was not acknowledged in time. */
+    public long failedBatchCount() {
+        return failedBatches.get();
+    }
+
+    /** Records sent directly because the spool could not take them. */
+    public long bypassedCount() {
+        return bypassed.get();
+    }
+
+    /**
+     * Shipping outcomes rather than spooling ones: records shipped or sent directly and acknowledged, sends of
+     * either kind that failed (spooled records from the first unacknowledged one on are counted each time their
+     * batch fails, and resent), and records the spool lost to its size limit or to corruption.
+     */
+    @Override
+    public Counters counters() {
+        return new Counters(shipped.get() + bypassedSent.get(), failedSends.get() + bypassedFailed.get(),
+                spool.droppedCount() + spool.corruptCount());
+    }
+
+    private void shipLoop() {
+        long backoff = minBackoffMillis;
+        long lastForce = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - lastForce >= TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis)) {
+                    spool.force();
+                    lastForce = System.nanoTime();
+                }
+                LogSpool.Batch batch = spool.read(batchSize);
+                List<LogSpool.SpooledRecord> records = batch.records();
+                if (records.isEmpty()) {
+                    spool.commit(batch.endOffset());
+                    spool.awaitBacklog(Math.min(POLL_MILLIS, forceIntervalMillis));
+                    continue;
+                }
+                int acknowledged = ship(records);
+                if (acknowledged < 0) {
+                    // Stopped while waiting; the batch stays in the spool for the next start
+                    return;
+                }
+                shipped.addAndGet(acknowledged);
+                if (acknowledged == records.size()) {
+                    spool.commit(batch.endOffset());
+                    backoff = minBackoffMillis;
+                } else {
+                    spool.commit(records.get(acknowledged).offset());
+                    failedBatches.incrementAndGet();
+                    failedSends.addAndGet(records.size() - acknowledged);
+                    logger.warn("Shipping spooled logs failed with {} bytes spooled; retrying in {} ms",
+                            spool.backlogBytes(), backoff);
+                    Thread.sleep(backoff);
+                    backoff = Math.min(maxBackoffMillis, backoff * 2);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                if (running) {
+                    logger.error("Log spool shipper failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends {@code records} in order and waits for their outcomes.
+     *
+     * @return how many records from the start were acknowledged, or -1 if stopped while waiting
+     */
+    private int ship(List<LogSpool.SpooledRecord> records) throws InterruptedException {
+        AtomicIntegerArray outcomes = new AtomicIntegerArray(records.size());
+        CountDownLatch outstanding = new CountDownLatch(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            LogSpool.SpooledRecord record = records.get(i);
+            int index = i;
+            SendListener listener = (payload, failure) -> {
+                outcomes.set(index, failure == null ? ACKNOWLEDGED : FAILED);
+                outstanding.countDown();
+            };
+            try {
+                if (record.broadcast()) {
+                    delegate.broadcast(record.key(), record.payload(), listener);
+                } else {
+                    delegate.send(record.key(), record.payload(), listener);
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return -1;
+                }
+                logger.debug("Delegate rejected spooled log record", e);
+                // Nothing after a rejected record may overtake it
+                for (int unsent = i; unsent < records.size(); unsent++) {
+                    outstanding.countDown();
+                }
+                break;
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        while (outstanding.getCount() > 0 && System.nanoTime() < deadline) {
+            if (!running) {
+                return -1;
+            }
+            outstanding.await(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        int acknowledged = 0;
+        while (acknowledged < records.size() && outcomes.get(acknowledged) == ACKNOWLEDGED) {
+            acknowledged++;
+        }
+        return acknowledged;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        running = false;
+        shipper.interrupt();
+        shipper.join(5000);
+        spool.close();
+    }
+}
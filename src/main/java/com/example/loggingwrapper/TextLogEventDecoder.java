@@ -0,0 +1,60 @@
+package com.example.loggingwrapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the text line written by {@link TextLogEventEncoder}.
+ * <p>
+ * Fields are located by their fixed order rather than by splitting on commas, so request and
+ * response values may contain {@code ", "}. A literal {@code null} is read back as {@code null}.
+ */
+public final class TextLogEventDecoder implements LogEventDecoder {
+    private static final String[] KEYS = {
+            " | trace_id=", ", span_id=", ", parent_span_id=", ", source=", ", destination=",
+            ", method=", ", type=", ", request=", ", http_status=", " response="
+    };
+
+    @Override
+    public LogEvent decode(byte[] data, int offset, int length, LogEvent event) {
+        return parse(new String(data, offset, length, StandardCharsets.UTF_8), event);
+    }
+
+    /**
+     * Parses one text line into {@code event}.
+     */
+    public LogEvent parse(String line, LogEvent event) {
+        String[] values = new String[KEYS.length + 1];
+        int start = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            int keyAt = line.indexOf(KEYS[i], start);
+            if (keyAt < 0) {
+                throw new IllegalArgumentException("Missing '" + KEYS[i].trim() + "' in log line: " + line);
+            }
+            values[i] = line.substring(start, keyAt);
+            start = keyAt + KEYS[i].length();
+        }
+        values[KEYS.length] = line.substring(start);
+
+        try {
+            String status = nullable(values[9]);
+            return event.clear()
+                    .timestamp(Long.parseLong(values[0]))
+                    .traceId(nullable(values[1]))
+                    .spanId(nullable(values[2]))
+                    .parentSpanId(nullable(values[3]))
+                    .source(nullable(values[4]))
+                    .destination(nullable(values[5]))
+                    .method(nullable(values[6]))
+                    .type(nullable(values[7]))
+                    .request(nullable(values[8]))
+                    .httpStatus(status == null ? LogEvent.NO_STATUS : Integer.parseInt(status))
+                    .response(nullable(values[10]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed log line: " + line, e);
+        }
+    }
+
+    private static String nullable(String value) {
+        return "null".equals(value) ? null : value;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.loggingwrapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes events as the original pipe/key=value text line:
+ * <pre>
+ * ts | trace_id=.., span_id=.., parent_span_id=.., source=.., destination=.., method=.., type=.., request=.., http_status=.. response=..
+ * </pre>
+ * The output is byte-for-byte identical to the former {@code String.format} template, but is written
+ * straight into a {@link LogBuffer} without boxing or intermediate strings.
+ */
+public final class TextLogEventEncoder implements LogEventEncoder {
+    private static final byte[] TRACE_ID = ascii(" | trace_id=");
+    private static final byte[] SPAN_ID = ascii(", span_id=");
+    private static final byte[] PARENT_SPAN_ID = ascii(", parent_span_id=");
+    private static final byte[] SOURCE = ascii(", source=");
+    private static final byte[] DESTINATION = ascii(", destination=");
+    private static final byte[] METHOD = ascii(", method=");
+    private static final byte[] TYPE = ascii(", type=");
+    private static final byte[] REQUEST = ascii(", request=");
+    private static final byte[] HTTP_STATUS = ascii(", http_status=");
+    private static final byte[] RESPONSE = ascii(" response=");
+    private static final byte[] NULL = ascii("null");
+
+    @Override
+    public void encode(LogEvent event, LogBuffer buffer) {
+        buffer.putDecimal(event.getTimestamp());
+        field(buffer, TRACE_ID, event.getTraceId());
+        field(buffer, SPAN_ID, event.getSpanId());
+        field(buffer, PARENT_SPAN_ID, event.getParentSpanId());
+        field(buffer, SOURCE, event.getSourceService());
+        field(buffer, DESTINATION, event.getDestinationService());
+        field(buffer, METHOD, event.getMethod());
+        field(buffer, TYPE, event.getType());
+        field(buffer, REQUEST, event.getRequest());
+        buffer.putBytes(HTTP_STATUS);
+        if (event.hasHttpStatus()) {
+            buffer.putDecimal(event.getHttpStatus());
+        } else {
+            buffer.putBytes(NULL);
+        }
+        field(buffer, RESPONSE, event.getResponse());
+    }
+
+    private static void field(LogBuffer buffer, byte[] prefix, String value) {
+        buffer.putBytes(prefix);
+        if (value == null) {
+            buffer.putBytes(NULL);
+        } else {
+            buffer.putUtf8(value);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
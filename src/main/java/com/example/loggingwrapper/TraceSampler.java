@@ -0,0 +1,329 @@
+package com.example.loggingwrapper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Decides which traces {@link LogService} ships, keeping whole traces rather than single events.
+ * <p>
+ * <b>Head sampling.</b> The first time a trace id is seen, it is sampled with the current rate, using a hash of
+ * the id so every process at the same rate agrees. A decision received from upstream (see
+ * {@link #propagated(String, boolean)}) takes precedence, and {@link #isSampled(String)} gives the decision to
+ * pass downstream. Once made, a trace's decision does not change with the rate.
+ * <p>
+ * <b>Tail rules.</b> Events of a trace that was not sampled are buffered instead of dropped, until the root span
+ * of the trace in this process (the span of its first event) ends. If any event carried a 5xx status or any span
+ * took longer than {@code slowSpanMillis}, the buffered events are shipped and the trace is kept from then on;
+ * otherwise they are dropped. Traces idle for {@code traceTtlMillis}, or the oldest buffered trace once
+ * {@code maxBufferedEvents} is reached, are settled the same way.
+ * <p>
+ * <b>Rate.</b> Once per second of event time the rate is set so that head-sampled events plus tail-kept events
+ * approach {@code eventsPerSecond}, and never below {@code minRate}.
+ * <p>
+ * Events without a trace id always pass. Kept events go to the sink given at construction, possibly on the
+ * thread that settled their trace. {@link #offer} and the counters are synchronized; {@link #isSampled} and
+ * {@link #propagated}, which run on the request path, only use a concurrent map of decisions and never wait for
+ * {@code offer}. Decisions of traces that never offered an event are forgotten after {@code traceTtlMillis}.
+ */
+public class TraceSampler {
+    private static final int PROCESSING = 102;
+    private static final long RATE_WINDOW_MILLIS = 1000;
+    private static final double SMOOTHING = 0.5;
+    private static final int HASH_BITS = 24;
+
+    private final double eventsPerSecond;
+    private final double minRate;
+    private final long slowSpanMillis;
+    private final long traceTtlMillis;
+    private final int maxTraces;
+    private final int maxBufferedEvents;
+    private final Consumer<LogEvent> sink;
+    private final LinkedHashMap<String, TraceState> traces = new LinkedHashMap<>(1024, 0.75f, true);
+    private final LinkedHashMap<String, TraceState> buffering = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, Decided> decisions = new ConcurrentHashMap<>();
+    private volatile double rate = 1.0;
+    private double offeredPerSecond = -1;
+    private double tailKeptPerSecond;
+    private long windowStart = Long.MIN_VALUE;
+    private long windowOffered;
+    private long windowTailKept;
+    private long now = Long.MIN_VALUE;
+    private long lastSweep;
+    private int bufferedEvents;
+    private long offered;
+    private long keptHead;
+    private long keptTail;
+    private long dropped;
+
+    public TraceSampler(double eventsPerSecond, double minRate, long slowSpanMillis, long traceTtlMillis, int maxTraces,
+                        int maxBufferedEvents, Consumer<LogEvent> sink) {
+        this.eventsPerSecond = eventsPerSecond;
+        this.minRate = minRate;
+        this.slowSpanMillis = slowSpanMillis;
+        this.traceTtlMillis = traceTtlMillis;
+        this.maxTraces = maxTraces;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.sink = sink;
+    }
+
+    /**
+     * Ships, buffers or drops {@code event}. The event is copied if buffered, so it may be reused on return.
+     */
+    public synchronized void offer(LogEvent event) {
+        String traceId = event.getTraceId();
+        if (traceId == null) {
+            sink.accept(event);
+            return;
+        }
+        offered++;
+        windowOffered++;
+        now = Math.max(now, event.getTimestamp());
+        adaptRate();
+        if (now - lastSweep >= Math.max(1, traceTtlMillis / 10)) {
+            sweep();
+        }
+
+        TraceState trace = trace(traceId);
+        trace.lastSeen = now;
+        switch (trace.decision) {
+            case SAMPLED -> {
+                keptHead++;
+                sink.accept(event);
+            }
+            case KEPT -> keep(event);
+            case DROPPED -> {
+                // A trace already dropped can still surface a late failure
+                if (isServerError(event)) {
+                    keep(event);
+                } else {
+                    dropped++;
+                }
+            }
+            case UNSAMPLED -> buffer(traceId, trace, event);
+        }
+    }
+
+    private void buffer(String traceId, TraceState trace, LogEvent event) {
+        if (trace.events == null) {
+            trace.events = new ArrayList<>();
+            trace.spanStarts = new LinkedHashMap<>();
+            trace.rootSpanId = event.getSpanId();
+            buffering.put(traceId, trace);
+        }
+        trace.events.add(new LogEvent().copyFrom(event));
+        bufferedEvents++;
+
+        String spanId = event.getSpanId();
+        if (isServerError(event)) {
+            trace.keep = true;
+        }
+        if (spanId != null) {
+            if (event.getHttpStatus() == PROCESSING) {
+                trace.spanStarts.putIfAbsent(spanId, event.getTimestamp());
+            } else if (event.hasHttpStatus()) {
+                Long startedAt = trace.spanStarts.get(spanId);
+                if (startedAt != null && event.getTimestamp() - startedAt > slowSpanMillis) {
+                    trace.keep = true;
+                }
+                if (spanId.equals(trace.rootSpanId)) {
+                    settle(traceId, trace);
+                    return;
+                }
+            }
+        }
+        while (bufferedEvents > maxBufferedEvents && !buffering.isEmpty()) {
+            Map.Entry<String, TraceState> eldest = buffering.entrySet().iterator().next();
+            settle(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Ships a buffered trace if a tail rule matched, or drops it, and remembers the outcome for later events.
+     */
+    private void settle(String traceId, TraceState trace) {
+        buffering.remove(traceId);
+        List<LogEvent> events = trace.events;
+        trace.events = null;
+        trace.spanStarts = null;
+        bufferedEvents -= events.size();
+        if (trace.keep) {
+            trace.decision = Decision.KEPT;
+            decisions.put(traceId, new Decided(true, now));
+            for (LogEvent buffered : events) {
+                keep(buffered);
+            }
+        } else {
+            trace.decision = Decision.DROPPED;
+            dropped += events.size();
+        }
+    }
+
+    private void keep(LogEvent event) {
+        keptTail++;
+        windowTailKept++;
+        sink.accept(event);
+    }
+
+    private TraceState trace(String traceId) {
+        TraceState trace = traces.get(traceId);
+        if (trace != null) {
+            return trace;
+        }
+        Decided decided = decisions.computeIfAbsent(traceId, id -> new Decided(headSample(id), now));
+        return remember(traceId, decided.sampled() ? Decision.SAMPLED : Decision.UNSAMPLED);
+    }
+
+    private TraceState remember(String traceId, Decision decision) {
+        TraceState trace = new TraceState(decision);
+        // Before the first event there is no event time; such traces are the first to expire
+        trace.lastSeen = now == Long.MIN_VALUE ? 0 : now;
+        traces.put(traceId, trace);
+        if (traces.size() > maxTraces) {
+            Map.Entry<String, TraceState> eldest = traces.entrySet().iterator().next();
+            traces.remove(eldest.getKey());
+            decisions.remove(eldest.getKey());
+            if (eldest.getValue().events != null) {
+                settle(eldest.getKey(), eldest.getValue());
+            }
+        }
+        return trace;
+    }
+
+    private boolean headSample(String traceId) {
+        long hash = traceId.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (hash & ((1L << HASH_BITS) - 1)) < rate * (1L << HASH_BITS);
+    }
+
+    private void adaptRate() {
+        if (windowStart == Long.MIN_VALUE) {
+            windowStart = now;
+            return;
+        }
+        long elapsed = now - windowStart;
+        if (elapsed < RATE_WINDOW_MILLIS) {
+            return;
+        }
+        double offeredRate = windowOffered * 1000.0 / elapsed;
+        double tailKeptRate = windowTailKept * 1000.0 / elapsed;
+        offeredPerSecond = offeredPerSecond < 0
+                ? offeredRate : SMOOTHING * offeredRate + (1 - SMOOTHING) * offeredPerSecond;
+        tailKeptPerSecond = SMOOTHING * tailKeptRate + (1 - SMOOTHING) * tailKeptPerSecond;
+        double budget = Math.max(0, eventsPerSecond - tailKeptPerSecond);
+        rate = offeredPerSecond <= 0 ? 1.0 : Math.max(minRate, Math.min(1.0, budget / offeredPerSecond));
+        windowStart = now;
+        windowOffered = 0;
+        windowTailKept = 0;
+    }
+
+    /**
+     * Settles and forgets every trace idle for the TTL. Traces are kept in access order, so the idlest are first.
+     */
+    private void sweep() {
+        lastSweep = now;
+        Iterator<Map.Entry<String, TraceState>> eldest = traces.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<String, TraceState> entry = eldest.next();
+            if (now - entry.getValue().lastSeen < traceTtlMillis) {
+                break;
+            }
+            eldest.remove();
+            decisions.remove(entry.getKey());
+            if (entry.getValue().events != null) {
+                settle(entry.getKey(), entry.getValue());
+            }
+        }
+        // Decisions made for the request path of traces that never reached offer
+        decisions.entrySet().removeIf(entry ->
+                now - entry.getValue().at() >= traceTtlMillis && !traces.containsKey(entry.getKey()));
+    }
+
+    /**
+     * Records the decision made upstream for {@code traceId}, unless this process has already decided.
+     */
+    public void propagated(String traceId, boolean sampled) {
+        decisions.putIfAbsent(traceId, new Decided(sampled, System.currentTimeMillis()));
+    }
+
+    /**
+     * Whether {@code traceId} is being shipped, deciding now if it has not been seen. Downstream hops of a trace that
+     * is not sampled buffer it for the tail rules.
+     */
+    public boolean isSampled(String traceId) {
+        Decided decided = decisions.get(traceId);
+        if (decided == null) {
+            decided = decisions.computeIfAbsent(traceId,
+                    id -> new Decided(headSample(id), System.currentTimeMillis()));
+        }
+        return decided.sampled();
+    }
+
+    private static boolean isServerError(LogEvent event) {
+        return event.getHttpStatus() >= 500 && event.getHttpStatus() < 600;
+    }
+
+    /** Fraction of new traces currently head-sampled. */
+    public double rate() {
+        return rate;
+    }
+
+    /** Events with a trace id offered since start-up. */
+    public synchronized long offeredCount() {
+        return offered;
+    }
+
+    /** Events shipped because their trace was head-sampled. */
+    public synchronized long keptHeadCount() {
+        return keptHead;
+    }
+
+    /** Events shipped because a tail rule kept their trace. */
+    public synchronized long keptTailCount() {
+        return keptTail;
+    }
+
+    /** Events dropped with their trace. */
+    public synchronized long droppedCount() {
+        return dropped;
+    }
+
+    /** Events buffered while their trace waits for its root span to end. */
+    public synchronized int bufferedCount() {
+        return bufferedEvents;
+    }
+
+    private enum Decision {
+        /** Head-sampled: shipped as logged. */
+        SAMPLED,
+        /** Not head-sampled: buffered until a tail rule settles it. */
+        UNSAMPLED,
+        /** Kept by a tail rule: shipped from then on. */
+        KEPT,
+        /** Settled without matching a tail rule: dropped from then on. */
+        DROPPED
+    }
+
+    /**
+     * Whether a trace is shipped, as seen from the request path, and when that was decided.
+     */
+    private record Decided(boolean sampled, long at) {
+    }
+
+    private static final class TraceState {
+        Decision decision;
+        List<LogEvent> events;
+        Map<String, Long> spanStarts;
+        String rootSpanId;
+        boolean keep;
+        long lastSeen;
+
+        TraceState(Decision decision) {
+            this.decision = decision;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.serviceapp.client;
+
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Serves {@code WebClient} calls from the application's own Tomcat context without a socket.
+ * <p>
+ * Each call becomes an {@link InProcessExchange} that runs through the context's registered filters and the
+ * {@code DispatcherServlet} on a thread from {@code executor}, so filters, interceptors, async handling and
+ * error pages behave as they do for a request that came in over HTTP; only the connector and its request
+ * thread pool are skipped. The request body is collected before dispatching and the response body is handed
+ * back once the exchange completes, which is fine for the small JSON and text payloads the simulators send.
+ */
+public class InProcessClientHttpConnector implements ClientHttpConnector {
+    private static final Logger logger = LoggerFactory.getLogger(InProcessClientHttpConnector.class);
+
+    private final Context context;
+    private final Wrapper wrapper;
+    private final String errorPath;
+    private final long asyncTimeoutMillis;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param wrapper            the servlet to dispatch to, normally the {@code DispatcherServlet} mapped to {@code /}
+     * @param errorPath          path of the error page dispatched to after an exception or {@code sendError}
+     * @param asyncTimeoutMillis async timeout for handlers that do not set one, as the connector's {@code asyncTimeout}
+     * @param timer              enforces async timeouts; its tasks only hand work over to {@code executor}
+     */
+    public InProcessClientHttpConnector(Context context, Wrapper wrapper, String errorPath, long asyncTimeoutMillis,
+                                        Executor executor, ScheduledExecutorService timer) {
+        this.context = context;
+        this.wrapper = wrapper;
+        this.errorPath = errorPath;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+        this.executor = executor;
+        this.timer = timer;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return Mono.defer(() -> {
+            InProcessRequest request = new InProcessRequest(method, uri);
+            return requestCallback.apply(request)
+                    .then(Mono.defer(() -> Mono.fromFuture(dispatch(request))));
+        });
+    }
+
+    /**
+     * Holds an allocation of the servlet for the whole exchange, as Tomcat does per request, so a graceful
+     * shutdown waits for in-process calls too.
+     */
+    private CompletableFuture<ClientHttpResponse> dispatch(InProcessRequest request) {
+        Servlet servlet;
+        try {
+            servlet = wrapper.allocate();
+        } catch (ServletException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        InProcessExchange exchange = new InProcessExchange(wrapper, servlet, context.getServletContext(), errorPath,
+                asyncTimeoutMillis, executor, timer, request.getMethod().name(), request.getURI(),
+                request.getHeaders(), request.body);
+        return exchange.start()
+                .whenComplete((ignored, error) -> deallocate(servlet))
+                .thenApply(InProcessResponse::new);
+    }
+
+    private void deallocate(Servlet servlet) {
+        try {
+            wrapper.deallocate(servlet);
+        } catch (ServletException e) {
+            logger.warn("Cannot release the {} servlet after an in-process call", wrapper.getName(), e);
+        }
+    }
+
+    /**
+     * Client side of the call, collecting what {@code WebClient} writes.
+     */
+    private static final class InProcessRequest extends AbstractClientHttpRequest {
+        private final HttpMethod method;
+        private final URI uri;
+        private byte[] body = new byte[0];
+
+        private InProcessRequest(HttpMethod method, URI uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public DataBufferFactory bufferFactory() {
+            return DefaultDataBufferFactory.sharedInstance;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getNativeRequest() {
+            return (T) this;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return doCommit(() -> DataBufferUtils.join(body)
+                    .doOnNext(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        this.body = bytes;
+                    })
+                    .then());
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMap(Function.identity()));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return doCommit();
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+            getCookies().values().stream().flatMap(Collection::stream)
+                    .forEach(cookie -> getHeaders().add(HttpHeaders.COOKIE, cookie.toString()));
+        }
+    }
+
+    /**
+     * What the servlet side produced, read once the exchange has completed.
+     */
+    private static final class InProcessResponse implements ClientHttpResponse {
+        private final HttpStatusCode status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private InProcessResponse(InProcessExchange exchange) {
+            InProcessServletResponse response = exchange.response();
+            this.status = HttpStatusCode.valueOf(response.getStatus());
+            this.headers = HttpHeaders.readOnlyHttpHeaders(response.finish());
+            this.body = response.body();
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> getCookies() {
+            return new LinkedMultiValueMap<>();
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+}
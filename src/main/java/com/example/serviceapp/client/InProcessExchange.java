@@ -0,0 +1,345 @@
+package com.example.serviceapp.client;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Globals;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.core.ApplicationFilterFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One loopback call, run through the application's filter chain and {@code DispatcherServlet} the way Tomcat
+ * would run a request read off a socket.
+ * <p>
+ * Every pass goes through a filter chain built by Tomcat for the dispatcher type and path, so the registered
+ * filters apply exactly as they do over HTTP. A handler that starts async processing gets this exchange as its
+ * {@link AsyncContext}: {@link #dispatch()} runs the chain again as an {@code ASYNC} dispatch, the async
+ * timeout is enforced with the server's default, and listeners see the usual complete, timeout and error
+ * events. An exception or {@code sendError} ends in an {@code ERROR} dispatch to the error page. The call's
+ * response completes when the last dispatch returns without starting async processing.
+ */
+final class InProcessExchange implements AsyncContext {
+    static final String ASYNC_SUPPORTED_ATTR = Globals.ASYNC_SUPPORTED_ATTR;
+
+    private static final Logger logger = LoggerFactory.getLogger(InProcessExchange.class);
+    private static final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Where the exchange is between dispatches.
+     */
+    private enum State {
+        DISPATCHING, ASYNC_WAITING, DONE
+    }
+
+    private final Wrapper wrapper;
+    private final Servlet servlet;
+    private final String errorPath;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final String id = Long.toString(ids.incrementAndGet());
+    private final InProcessServletRequest request;
+    private final InProcessServletResponse response = new InProcessServletResponse();
+    private final CompletableFuture<InProcessExchange> completion = new CompletableFuture<>();
+    private final List<AsyncListener> listeners = new ArrayList<>();
+    private State state = State.DISPATCHING;
+    private boolean asyncCycle;
+    private boolean dispatchRequested;
+    private boolean completeRequested;
+    private boolean errorDispatched;
+    private long timeoutMillis;
+    private ScheduledFuture<?> timeout;
+
+    InProcessExchange(Wrapper wrapper, Servlet servlet, ServletContext servletContext, String errorPath,
+                      long timeoutMillis, Executor executor, ScheduledExecutorService timer,
+                      String method, URI uri, HttpHeaders headers, byte[] body) {
+        this.wrapper = wrapper;
+        this.servlet = servlet;
+        this.errorPath = errorPath;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+        this.timer = timer;
+        this.request = new InProcessServletRequest(this, method, uri, headers, body, servletContext);
+    }
+
+    /**
+     * Runs the request dispatch on the exchange's executor.
+     *
+     * @return completes once the response is final
+     */
+    CompletableFuture<InProcessExchange> start() {
+        executor.execute(() -> run(DispatcherType.REQUEST));
+        return completion;
+    }
+
+    InProcessServletResponse response() {
+        return response;
+    }
+
+    String id() {
+        return id;
+    }
+
+    private void run(DispatcherType type) {
+        DispatcherType next = type;
+        while (next != null) {
+            invoke(next);
+            next = afterDispatch();
+        }
+    }
+
+    private void invoke(DispatcherType type) {
+        request.beginDispatch(type);
+        request.removeAttribute(ASYNC_SUPPORTED_ATTR);
+        try {
+            chainFor(type).doFilter(request, response);
+        } catch (Throwable e) {
+            Throwable cause = e instanceof ServletException se && se.getRootCause() != null ? se.getRootCause() : e;
+            logger.error("In-process dispatch of {} {} failed", request.getMethod(), request.getRequestURI(), cause);
+            if (request.isAsyncStarted()) {
+                fire(listenersSnapshot(), AsyncListener::onError, cause);
+                request.asyncStarted(false);
+            }
+            if (!response.isCommitted() && !response.isError()) {
+                request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, cause);
+                request.setAttribute(RequestDispatcher.ERROR_EXCEPTION_TYPE, cause.getClass());
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, cause.getMessage());
+            }
+        }
+    }
+
+    private FilterChain chainFor(DispatcherType type) {
+        request.setAttribute(Globals.DISPATCHER_TYPE_ATTR, type);
+        request.setAttribute(Globals.DISPATCHER_REQUEST_PATH_ATTR, request.getServletPath());
+        return ApplicationFilterFactory.createFilterChain(request, wrapper, servlet);
+    }
+
+    /**
+     * Decides what follows a dispatch: another dispatch, waiting for the async work, or the end of the call.
+     */
+    private DispatcherType afterDispatch() {
+        List<AsyncListener> toComplete = null;
+        synchronized (this) {
+            if (request.isAsyncStarted() && !dispatchRequested && !completeRequested) {
+                state = State.ASYNC_WAITING;
+                if (timeoutMillis > 0) {
+                    timeout = timer.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }
+            if (dispatchRequested) {
+                dispatchRequested = false;
+                return DispatcherType.ASYNC;
+            }
+            if (response.isError() && !errorDispatched && !response.isCommitted()) {
+                errorDispatched = true;
+                completeRequested = false;
+                prepareErrorDispatch();
+                return DispatcherType.ERROR;
+            }
+            state = State.DONE;
+            if (asyncCycle) {
+                toComplete = List.copyOf(listeners);
+            }
+        }
+        if (toComplete != null) {
+            fire(toComplete, AsyncListener::onComplete, null);
+        }
+        completion.complete(this);
+        return null;
+    }
+
+    private void prepareErrorDispatch() {
+        request.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, response.getStatus());
+        request.setAttribute(RequestDispatcher.ERROR_MESSAGE,
+                response.errorMessage() == null ? "" : response.errorMessage());
+        request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, request.getRequestURI());
+        request.setAttribute(RequestDispatcher.ERROR_SERVLET_NAME, wrapper.getName());
+        request.forwardTo(errorPath);
+        response.resumeForErrorPage();
+    }
+
+    synchronized void startAsync() {
+        if (state == State.DONE || request.isAsyncStarted()) {
+            throw new IllegalStateException("Async processing cannot be started in the current state");
+        }
+        asyncCycle = true;
+        completeRequested = false;
+        request.asyncStarted(true);
+        List<AsyncListener> restarted = List.copyOf(listeners);
+        listeners.clear();
+        fire(restarted, AsyncListener::onStartAsync, null);
+    }
+
+    private void expire() {
+        List<AsyncListener> toNotify;
+        synchronized (this) {
+            if (state != State.ASYNC_WAITING) {
+                return;
+            }
+            toNotify = List.copyOf(listeners);
+        }
+        fire(toNotify, AsyncListener::onTimeout, null);
+        synchronized (this) {
+            if (state != State.ASYNC_WAITING) {
+                return;
+            }
+            // No listener dispatched or completed: the container answers with an error, as Tomcat does.
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+        complete();
+    }
+
+    // --- AsyncContext
+
+    @Override
+    public ServletRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+        return true;
+    }
+
+    @Override
+    public void dispatch() {
+        synchronized (this) {
+            if (!resume()) {
+                dispatchRequested = true;
+                return;
+            }
+        }
+        executor.execute(() -> run(DispatcherType.ASYNC));
+    }
+
+    @Override
+    public void dispatch(String path) {
+        throw new UnsupportedOperationException("Only dispatching back to the same path is supported in process");
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+        throw new UnsupportedOperationException("Only dispatching back to the same path is supported in process");
+    }
+
+    @Override
+    public void complete() {
+        synchronized (this) {
+            if (!resume()) {
+                completeRequested = true;
+                return;
+            }
+            request.asyncStarted(false);
+        }
+        executor.execute(this::afterAsyncComplete);
+    }
+
+    private void afterAsyncComplete() {
+        if (afterDispatch() != null) {
+            run(DispatcherType.ERROR);
+        }
+    }
+
+    /**
+     * Takes the exchange out of its async wait.
+     *
+     * @return false when a dispatch is still running, so the request is picked up when it returns
+     */
+    private boolean resume() {
+        if (state == State.DONE) {
+            throw new IllegalStateException("The in-process call has already completed");
+        }
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+        if (state == State.DISPATCHING) {
+            return false;
+        }
+        state = State.DISPATCHING;
+        return true;
+    }
+
+    @Override
+    public void start(Runnable run) {
+        executor.execute(run);
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+        addListener(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> type) throws ServletException {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ServletException("Cannot create listener " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized void setTimeout(long timeout) {
+        this.timeoutMillis = timeout;
+    }
+
+    @Override
+    public synchronized long getTimeout() {
+        return timeoutMillis;
+    }
+
+    private synchronized List<AsyncListener> listenersSnapshot() {
+        return List.copyOf(listeners);
+    }
+
+    private interface ListenerCall {
+        void accept(AsyncListener listener, AsyncEvent event) throws IOException;
+    }
+
+    private void fire(List<AsyncListener> targets, ListenerCall call, Throwable error) {
+        AsyncEvent event = new AsyncEvent(this, request, response, error);
+        for (AsyncListener listener : targets) {
+            try {
+                call.accept(listener, event);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Async listener {} failed", listener, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,593 @@
+package com.example.serviceapp.client;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.MappingMatch;
+import jakarta.servlet.http.Part;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servlet view of a loopback call, handed to Tomcat's filter chain in place of a request read off a socket.
+ * <p>
+ * It covers what filters and the {@code DispatcherServlet} use: path, query and form parameters, headers, body,
+ * attributes and async processing, which is delegated to the owning {@link InProcessExchange}. The servlet is
+ * mapped to {@code /}, so the servlet path is the whole path inside the context. Sessions, authentication,
+ * multipart and protocol upgrades are not supported.
+ */
+final class InProcessServletRequest implements HttpServletRequest {
+    private static final HttpServletMapping DEFAULT_MAPPING = new HttpServletMapping() {
+        @Override
+        public String getMatchValue() {
+            return "";
+        }
+
+        @Override
+        public String getPattern() {
+            return "/";
+        }
+
+        @Override
+        public String getServletName() {
+            return "dispatcherServlet";
+        }
+
+        @Override
+        public MappingMatch getMappingMatch() {
+            return MappingMatch.DEFAULT;
+        }
+    };
+
+    private final InProcessExchange exchange;
+    private final String method;
+    private final URI uri;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final ServletContext servletContext;
+    private final String contextPath;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile String servletPath;
+    private volatile String queryString;
+    private volatile DispatcherType dispatcherType = DispatcherType.REQUEST;
+    private volatile boolean asyncStarted;
+    private String characterEncoding;
+    private Map<String, String[]> parameters;
+    private boolean bodyRead;
+
+    InProcessServletRequest(InProcessExchange exchange, String method, URI uri, HttpHeaders headers, byte[] body,
+                            ServletContext servletContext) {
+        this.exchange = exchange;
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.servletContext = servletContext;
+        this.contextPath = servletContext.getContextPath();
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        this.servletPath = UriUtils.decode(path.substring(contextPath.length()), StandardCharsets.UTF_8);
+        this.queryString = uri.getRawQuery();
+        MediaType contentType = headers.getContentType();
+        this.characterEncoding = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset().name() : null;
+    }
+
+    /**
+     * Prepares the request for the next pass through the filter chain.
+     */
+    void beginDispatch(DispatcherType type) {
+        dispatcherType = type;
+        asyncStarted = false;
+    }
+
+    /**
+     * Points the request at an error page, the way a container forward does.
+     */
+    void forwardTo(String path) {
+        servletPath = path;
+        queryString = null;
+    }
+
+    void asyncStarted(boolean started) {
+        asyncStarted = started;
+    }
+
+    // --- request line and path
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return contextPath + UriUtils.encodePath(servletPath, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(getScheme()).append("://").append(getServerName()).append(':')
+                .append(getServerPort()).append(getRequestURI());
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public HttpServletMapping getHttpServletMapping() {
+        return DEFAULT_MAPPING;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public String getScheme() {
+        return uri.getScheme() == null ? "http" : uri.getScheme();
+    }
+
+    @Override
+    public String getServerName() {
+        return uri.getHost();
+    }
+
+    @Override
+    public int getServerPort() {
+        return uri.getPort();
+    }
+
+    @Override
+    public boolean isSecure() {
+        return "https".equalsIgnoreCase(getScheme());
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return "localhost";
+    }
+
+    @Override
+    public int getRemotePort() {
+        return 0;
+    }
+
+    @Override
+    public String getLocalName() {
+        return uri.getHost();
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public int getLocalPort() {
+        return uri.getPort();
+    }
+
+    // --- headers
+
+    @Override
+    public String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return Collections.enumeration(values == null ? List.of() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        return headers.getFirstDate(name);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = headers.getFirst(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return null;
+    }
+
+    @Override
+    public Locale getLocale() {
+        List<Locale> locales = headers.getAcceptLanguageAsLocales();
+        return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        List<Locale> locales = headers.getAcceptLanguageAsLocales();
+        return Collections.enumeration(locales.isEmpty() ? List.of(Locale.getDefault()) : locales);
+    }
+
+    // --- body and parameters
+
+    @Override
+    public synchronized String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public synchronized void setCharacterEncoding(String encoding) throws UnsupportedEncodingException {
+        if (!Charset.isSupported(encoding)) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+        if (!bodyRead) {
+            characterEncoding = encoding;
+        }
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    @Override
+    public String getContentType() {
+        return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+    }
+
+    @Override
+    public synchronized ServletInputStream getInputStream() {
+        bodyRead = true;
+        return new BodyInputStream(body);
+    }
+
+    @Override
+    public synchronized BufferedReader getReader() {
+        bodyRead = true;
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), charset()));
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters().get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters().get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters();
+    }
+
+    /**
+     * Query parameters, followed by the body's when it is an unread form post, parsed once on first use.
+     */
+    private synchronized Map<String, String[]> parameters() {
+        if (parameters == null) {
+            MultiValueMap<String, String> parsed = new LinkedMultiValueMap<>();
+            parse(uri.getRawQuery(), parsed);
+            MediaType contentType = headers.getContentType();
+            if (!bodyRead && "POST".equals(method) && contentType != null
+                    && MediaType.APPLICATION_FORM_URLENCODED.includes(contentType)) {
+                bodyRead = true;
+                parse(new String(body, StandardCharsets.ISO_8859_1), parsed);
+            }
+            Map<String, String[]> result = new LinkedHashMap<>();
+            parsed.forEach((name, values) -> result.put(name, values.toArray(String[]::new)));
+            parameters = Collections.unmodifiableMap(result);
+        }
+        return parameters;
+    }
+
+    private void parse(String encoded, MultiValueMap<String, String> into) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        Charset charset = charset();
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            into.add(UriUtils.decode(name.replace('+', ' '), charset), UriUtils.decode(value.replace('+', ' '), charset));
+        }
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    }
+
+    // --- attributes and dispatching
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return dispatcherType;
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, exchange.response());
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+        if (!isAsyncSupported()) {
+            throw new IllegalStateException("A filter or servlet in the chain does not support async processing");
+        }
+        exchange.startAsync();
+        return exchange;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return asyncStarted;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return !Boolean.FALSE.equals(attributes.get(InProcessExchange.ASYNC_SUPPORTED_ATTR));
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        if (!asyncStarted) {
+            throw new IllegalStateException("Async processing has not been started");
+        }
+        return exchange;
+    }
+
+    @Override
+    public String getRequestId() {
+        return exchange.id();
+    }
+
+    @Override
+    public String getProtocolRequestId() {
+        return "";
+    }
+
+    @Override
+    public ServletConnection getServletConnection() {
+        return null;
+    }
+
+    // --- not available in process
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create) {
+            throw new IllegalStateException("Sessions are not available to in-process calls");
+        }
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("Sessions are not available to in-process calls");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(HttpServletResponse response) {
+        throw new UnsupportedOperationException("Authentication is not available to in-process calls");
+    }
+
+    @Override
+    public void login(String username, String password) {
+        throw new UnsupportedOperationException("Authentication is not available to in-process calls");
+    }
+
+    @Override
+    public void logout() {
+        throw new UnsupportedOperationException("Authentication is not available to in-process calls");
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        throw new UnsupportedOperationException("Multipart requests are not available to in-process calls");
+    }
+
+    @Override
+    public Part getPart(String name) {
+        throw new UnsupportedOperationException("Multipart requests are not available to in-process calls");
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) {
+        throw new UnsupportedOperationException("Protocol upgrades are not available to in-process calls");
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+        private final ByteArrayInputStream in;
+
+        private BodyInputStream(byte[] body) {
+            this.in = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return in.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not available to in-process calls");
+        }
+    }
+}
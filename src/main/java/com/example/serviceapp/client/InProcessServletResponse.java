@@ -0,0 +1,375 @@
+package com.example.serviceapp.client;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Servlet response of a loopback call, buffered in memory until the exchange completes.
+ * <p>
+ * Like Tomcat, {@link #sendError} discards the body written so far and ignores further writes until the error
+ * page is dispatched. Redirects are recorded as a {@code 302} with a {@code Location} header.
+ */
+final class InProcessServletResponse implements HttpServletResponse {
+    private final HttpHeaders headers = new HttpHeaders();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final ServletOutputStream outputStream = new BodyOutputStream();
+    private int status = SC_OK;
+    private String errorMessage;
+    private boolean error;
+    private boolean suspended;
+    private boolean committed;
+    private String contentType;
+    private String characterEncoding;
+    private PrintWriter writer;
+    private Locale locale = Locale.getDefault();
+
+    synchronized boolean isError() {
+        return error;
+    }
+
+    synchronized String errorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Lets the error page write its own body.
+     */
+    synchronized void resumeForErrorPage() {
+        suspended = false;
+        body.reset();
+        writer = null;
+    }
+
+    /**
+     * Final headers, with the content type and length filled in from what was written.
+     */
+    synchronized HttpHeaders finish() {
+        if (writer != null) {
+            writer.flush();
+        }
+        committed = true;
+        HttpHeaders result = new HttpHeaders();
+        result.addAll(headers);
+        String type = getContentType();
+        if (type != null) {
+            result.set(HttpHeaders.CONTENT_TYPE, type);
+        }
+        if (!result.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            result.setContentLength(body.size());
+        }
+        return result;
+    }
+
+    synchronized byte[] body() {
+        return body.toByteArray();
+    }
+
+    // --- status
+
+    @Override
+    public synchronized void setStatus(int status) {
+        if (!committed) {
+            this.status = status;
+        }
+    }
+
+    @Override
+    public synchronized int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int status) {
+        sendError(status, null);
+    }
+
+    @Override
+    public synchronized void sendError(int status, String message) {
+        if (committed) {
+            throw new IllegalStateException("Cannot send an error after the response has been committed");
+        }
+        this.status = status;
+        this.errorMessage = message;
+        this.error = true;
+        this.suspended = true;
+        body.reset();
+    }
+
+    @Override
+    public synchronized void sendRedirect(String location) {
+        if (committed) {
+            throw new IllegalStateException("Cannot redirect after the response has been committed");
+        }
+        resetBuffer();
+        status = SC_FOUND;
+        headers.set(HttpHeaders.LOCATION, location);
+        suspended = true;
+    }
+
+    // --- headers
+
+    @Override
+    public synchronized boolean containsHeader(String name) {
+        return headers.containsKey(name) || (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) && contentType != null);
+    }
+
+    @Override
+    public synchronized String getHeader(String name) {
+        return HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) ? getContentType() : headers.getFirst(name);
+    }
+
+    @Override
+    public synchronized Collection<String> getHeaders(String name) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            return contentType == null ? List.of() : List.of(getContentType());
+        }
+        List<String> values = headers.get(name);
+        return values == null ? List.of() : new ArrayList<>(values);
+    }
+
+    @Override
+    public synchronized Collection<String> getHeaderNames() {
+        List<String> names = new ArrayList<>(headers.keySet());
+        if (contentType != null) {
+            names.add(HttpHeaders.CONTENT_TYPE);
+        }
+        return names;
+    }
+
+    @Override
+    public synchronized void setHeader(String name, String value) {
+        if (committed) {
+            return;
+        }
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else if (value == null) {
+            headers.remove(name);
+        } else {
+            headers.set(name, value);
+        }
+    }
+
+    @Override
+    public synchronized void addHeader(String name, String value) {
+        if (committed || value == null) {
+            return;
+        }
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else {
+            headers.add(name, value);
+        }
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    private static String formatDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        addHeader(HttpHeaders.SET_COOKIE, cookie.getName() + "=" + cookie.getValue());
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    // --- content
+
+    @Override
+    public synchronized String getContentType() {
+        if (contentType == null || characterEncoding == null) {
+            return contentType;
+        }
+        return contentType + ";charset=" + characterEncoding;
+    }
+
+    @Override
+    public synchronized void setContentType(String type) {
+        if (committed) {
+            return;
+        }
+        if (type == null) {
+            contentType = null;
+            return;
+        }
+        MediaType mediaType = MediaType.parseMediaType(type);
+        if (mediaType.getCharset() != null && writer == null) {
+            characterEncoding = mediaType.getCharset().name();
+        }
+        contentType = mediaType.getCharset() == null ? type : new MediaType(mediaType.getType(),
+                mediaType.getSubtype()).toString();
+    }
+
+    @Override
+    public synchronized String getCharacterEncoding() {
+        return characterEncoding == null ? StandardCharsets.ISO_8859_1.name() : characterEncoding;
+    }
+
+    @Override
+    public synchronized void setCharacterEncoding(String encoding) {
+        if (!committed && writer == null) {
+            characterEncoding = encoding;
+        }
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public synchronized void setContentLengthLong(long length) {
+        if (!committed) {
+            headers.setContentLength(length);
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public synchronized PrintWriter getWriter() throws UnsupportedEncodingException {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            if (!Charset.isSupported(encoding)) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(encoding)));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public synchronized void flushBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+        committed = true;
+    }
+
+    @Override
+    public synchronized void resetBuffer() {
+        if (committed) {
+            throw new IllegalStateException("Cannot reset the buffer after the response has been committed");
+        }
+        body.reset();
+    }
+
+    @Override
+    public synchronized boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public synchronized void reset() {
+        resetBuffer();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+        characterEncoding = null;
+        writer = null;
+    }
+
+    @Override
+    public synchronized void setLocale(Locale locale) {
+        this.locale = locale;
+    }
+
+    @Override
+    public synchronized Locale getLocale() {
+        return locale;
+    }
+
+    private synchronized void write(byte[] bytes, int offset, int length) {
+        if (!suspended) {
+            body.write(bytes, offset, length);
+        }
+    }
+
+    private final class BodyOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) {
+            InProcessServletResponse.this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            InProcessServletResponse.this.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            synchronized (InProcessServletResponse.this) {
+                committed = true;
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Non-blocking writes are not available to in-process calls");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.serviceapp.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests addressed to this application to an in-process connector and everything else over the network.
+ * <p>
+ * A request counts as loopback when it targets {@code localhost}, {@code 127.0.0.1} or {@code ::1} on the
+ * application's own port.
+ */
+public class LoopbackClientHttpConnector implements ClientHttpConnector {
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]", "::1");
+
+    private final ClientHttpConnector network;
+    private final Supplier<ClientHttpConnector> inProcess;
+    private final IntSupplier localPort;
+
+    /**
+     * @param inProcess looked up on the first loopback call, so it may depend on a fully started application
+     * @param localPort the port the server actually listens on, read per call so {@code server.port=0} works
+     */
+    public LoopbackClientHttpConnector(ClientHttpConnector network, Supplier<ClientHttpConnector> inProcess,
+                                       IntSupplier localPort) {
+        this.network = network;
+        this.inProcess = inProcess;
+        this.localPort = localPort;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return isLoopback(uri)
+                ? Mono.defer(() -> inProcess.get().connect(method, uri, requestCallback))
+                : network.connect(method, uri, requestCallback);
+    }
+
+    private boolean isLoopback(URI uri) {
+        return uri.getPort() == localPort.getAsInt() && uri.getHost() != null && LOOPBACK_HOSTS.contains(uri.getHost());
+    }
+}
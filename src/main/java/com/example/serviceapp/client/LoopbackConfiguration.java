@@ -0,0 +1,96 @@
+package com.example.serviceapp.client;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * In-process transport for the simulators' calls to themselves, enabled with {@code loopback.transport=in-process}.
+ * <p>
+ * Calls to {@code localhost} on the server's port are handed straight to the embedded Tomcat context instead of
+ * going out over TCP and back in through the connector, so a call costs no socket and no request thread from
+ * Tomcat's pool. They still run through the registered filters, the {@code DispatcherServlet}, async dispatch
+ * and the error page, so headers such as {@code trace_id} and {@code span_id} are handled and the log events are
+ * the same as over HTTP. Other hosts, and everything in the default {@code network} mode, use the regular
+ * connector.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loopback.transport", havingValue = "in-process")
+public class LoopbackConfiguration {
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public WebClientCustomizer loopbackWebClientCustomizer(ObjectProvider<ClientHttpConnector> networkConnector,
+                                                           ServletWebServerApplicationContext applicationContext,
+                                                           @Value("${server.error.path:/error}") String errorPath) {
+        ClientHttpConnector network = networkConnector.getIfAvailable(ReactorClientHttpConnector::new);
+        InProcessConnector inProcess = new InProcessConnector(applicationContext, errorPath);
+        return builder -> builder.clientConnector(new LoopbackClientHttpConnector(network, inProcess,
+                () -> applicationContext.getWebServer().getPort()));
+    }
+
+    /**
+     * Builds the in-process connector on first use, once Tomcat has started and the {@code DispatcherServlet}
+     * is registered.
+     */
+    private static final class InProcessConnector implements Supplier<ClientHttpConnector> {
+        private final ServletWebServerApplicationContext applicationContext;
+        private final String errorPath;
+        private volatile ClientHttpConnector connector;
+
+        private InProcessConnector(ServletWebServerApplicationContext applicationContext, String errorPath) {
+            this.applicationContext = applicationContext;
+            this.errorPath = errorPath;
+        }
+
+        @Override
+        public ClientHttpConnector get() {
+            ClientHttpConnector result = connector;
+            if (result == null) {
+                synchronized (this) {
+                    result = connector;
+                    if (result == null) {
+                        connector = result = create();
+                    }
+                }
+            }
+            return result;
+        }
+
+        private ClientHttpConnector create() {
+            if (!(applicationContext.getWebServer() instanceof TomcatWebServer webServer)) {
+                throw new IllegalStateException("loopback.transport=in-process needs the embedded Tomcat server");
+            }
+            Tomcat tomcat = webServer.getTomcat();
+            Context context = (Context) tomcat.getHost().findChildren()[0];
+            Wrapper dispatcher = (Wrapper) context.findChild(
+                    DispatcherServletAutoConfiguration.DEFAULT_DISPATCHER_SERVLET_BEAN_NAME);
+            if (dispatcher == null) {
+                throw new IllegalStateException("loopback.transport=in-process needs the DispatcherServlet");
+            }
+            Executor executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("loopback-", 0).factory());
+            ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("loopback-async-timeout").daemon().factory());
+            return new InProcessClientHttpConnector(context, dispatcher, errorPath,
+                    tomcat.getConnector().getAsyncTimeout(), executor, timer);
+        }
+    }
+}
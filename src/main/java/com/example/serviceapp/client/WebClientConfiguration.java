@@ -0,0 +1,72 @@
+package com.example.serviceapp.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * HTTP client shared by every simulator's {@code WebClient}.
+ * <p>
+ * All builders get the same base URL ({@code simulator.client.base-url}, this application by default) and one
+ * Reactor Netty connection pool sized by the {@code simulator.client.pool.*} properties. Callers that cannot get
+ * a connection wait in a bounded pending-acquire queue and fail once it is full or their wait times out, so pool
+ * contention shows up as errors rather than unbounded latency. The pool publishes its total, active, idle and
+ * pending-acquire counts as {@code reactor.netty.connection.provider.*} metrics tagged {@code name=simulators}.
+ * <p>
+ * {@code simulator.client.http2=true} negotiates HTTP/2 over cleartext (needs {@code server.http2.enabled=true}
+ * for loopback calls) and otherwise falls back to HTTP/1.1 with keep-alive.
+ */
+@Configuration
+public class WebClientConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider simulatorConnectionProvider(
+            @Value("${simulator.client.pool.max-connections:500}") int maxConnections,
+            @Value("${simulator.client.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${simulator.client.pool.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${simulator.client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${simulator.client.pool.max-life-time:5m}") Duration maxLifeTime) {
+        return ConnectionProvider.builder("simulators")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector simulatorClientHttpConnector(
+            ConnectionProvider simulatorConnectionProvider,
+            @Value("${simulator.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${simulator.client.response-timeout:30s}") Duration responseTimeout,
+            @Value("${simulator.client.keep-alive:true}") boolean keepAlive,
+            @Value("${simulator.client.http2:false}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(simulatorConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                .keepAlive(keepAlive)
+                .responseTimeout(responseTimeout);
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    @Bean
+    public WebClientCustomizer simulatorBaseUrlCustomizer(
+            @Value("${simulator.client.base-url:http://localhost:${server.port:8080}}") String baseUrl) {
+        return builder -> builder.baseUrl(baseUrl);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.serviceapp.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead with an AIMD limit on the number of in-flight calls to one endpoint.
+ * <p>
+ * Callers that find the endpoint at its limit are rejected immediately instead of queueing. The limit
+ * grows by roughly one per limit's worth of successful calls while latency stays within {@code tolerance}
+ * times the no-load baseline, and is cut by {@code backoffRatio} when a call is slower than that or fails.
+ * The baseline is the lowest latency seen, drifting slowly upwards so it can recover from a lucky outlier. Only
+ * calls that completed with less than half the limit in flight move it up, so under sustained congestion it does
+ * not follow the latency up and the limit still comes down.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+    private static final int BASELINE_DRIFT = 1000;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    // Guarded by this; only touched once per completed call
+    private double limit;
+    private long baselineNanos = Long.MAX_VALUE;
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1.0 || backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Require tolerance >= 1 and 0 < backoffRatio < 1");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    /**
+     * Reserves an in-flight slot. Every {@code true} must be followed by exactly one
+     * {@link #onSuccess(long)} or {@link #onFailure()}.
+     *
+     * @return {@code false} if the endpoint is at its limit and the call should be shed
+     */
+    public boolean tryAcquire() {
+        for (int current = inFlight.get(); ; current = inFlight.get()) {
+            if (current >= currentLimit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the slot of a call that completed after {@code latencyNanos}.
+     */
+    public void onSuccess(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latencyNanos < baselineNanos) {
+                baselineNanos = latencyNanos;
+            } else if (inFlightBefore * 2 < limit) {
+                baselineNanos += (latencyNanos - baselineNanos) / BASELINE_DRIFT;
+            }
+            if (latencyNanos > baselineNanos * tolerance) {
+                decrease();
+            } else if (inFlightBefore * 2 >= limit) {
+                // Only grow when the limit is actually being used, otherwise it drifts up unchecked
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                currentLimit = (int) limit;
+            }
+        }
+    }
+
+    /**
+     * Releases the slot of a call that failed; treated as a congestion signal.
+     */
+    public void onFailure() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            decrease();
+        }
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("endpoint", name)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("concurrency.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("endpoint", name)
+                .description("Calls currently admitted")
+                .register(registry);
+        FunctionCounter.builder("concurrency.rejected", this, AdaptiveConcurrencyLimiter::getRejectedCount)
+                .tag("endpoint", name)
+                .description("Calls shed because the endpoint was at its limit")
+                .register(registry);
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        currentLimit = (int) limit;
+    }
+}
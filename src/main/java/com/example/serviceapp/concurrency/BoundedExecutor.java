@@ -0,0 +1,117 @@
+package com.example.serviceapp.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size executor with a bounded queue that rejects work immediately once the queue is full.
+ * <p>
+ * Every task is timed in two parts: how long it waited in the queue and how long it then ran. Both are
+ * returned with the result and, once {@link #bindTo bound}, recorded as the {@code executor.queue.wait} and
+ * {@code executor.service.time} timers, next to the queue depth, active count and rejections.
+ */
+public class BoundedExecutor implements MeterBinder {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private volatile Timer queueWait;
+    private volatile Timer serviceTime;
+
+    public BoundedExecutor(String name, int threads, int queueCapacity, ThreadFactory threadFactory) {
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs {@code task} on the executor.
+     *
+     * @throws RejectedExecutionException if all threads are busy and the queue is full
+     */
+    public <T> CompletableFuture<Timed<T>> submit(Supplier<T> task) {
+        long submitted = System.nanoTime();
+        CompletableFuture<Timed<T>> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                try {
+                    T value = task.get();
+                    long finished = System.nanoTime();
+                    record(started - submitted, finished - started);
+                    result.complete(new Timed<>(value, started - submitted, finished - started));
+                } catch (Throwable e) {
+                    record(started - submitted, System.nanoTime() - started);
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        queueWait = Timer.builder("executor.queue.wait")
+                .tag("name", name)
+                .description("Time tasks spent queued before a thread picked them up")
+                .register(registry);
+        serviceTime = Timer.builder("executor.service.time")
+                .tag("name", name)
+                .description("Time tasks spent running")
+                .register(registry);
+        Gauge.builder("executor.queue.depth", this, BoundedExecutor::getQueueDepth)
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("executor.active", this, BoundedExecutor::getActiveCount)
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("executor.rejected", this, BoundedExecutor::getRejectedCount)
+                .tag("name", name)
+                .description("Tasks refused because the queue was full")
+                .register(registry);
+    }
+
+    private void record(long queueWaitNanos, long serviceNanos) {
+        Timer waitTimer = queueWait;
+        if (waitTimer != null) {
+            waitTimer.record(queueWaitNanos, TimeUnit.NANOSECONDS);
+            serviceTime.record(serviceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * A task's result with the time it spent queued and running.
+     */
+    public record Timed<T>(T value, long queueWaitNanos, long serviceNanos) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.serviceapp.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one.
+ * <p>
+ * The first caller for a key starts the call; callers arriving while it is in flight share its result
+ * instead of starting their own. Once the call completes the key is forgotten, so results are never
+ * cached beyond the lifetime of the call that produced them.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the in-flight result for {@code key}, starting {@code call} only if there is none.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<? extends CompletableFuture<V>> call) {
+        calls.increment();
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        // Forget the key before completing, so a caller woken by the result cannot join a finished call
+        try {
+            call.get().whenComplete((value, failure) -> {
+                inFlight.remove(key, promise);
+                if (failure != null) {
+                    promise.completeExceptionally(failure);
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+        }
+        return promise;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * Calls that were answered by another caller's in-flight call.
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("coalescing.calls", this, SingleFlight::getCallCount)
+                .tag("endpoint", name)
+                .description("Calls made through the coalescing layer")
+                .register(registry);
+        FunctionCounter.builder("coalescing.shared", this, SingleFlight::getSharedCount)
+                .tag("endpoint", name)
+                .description("Calls that shared another caller's in-flight call")
+                .register(registry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.serviceapp.concurrency;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactor delays backed by a Netty {@link HashedWheelTimer}.
+ * <p>
+ * A pending delay is one small entry in a wheel bucket rather than a task in a scheduler's priority queue, and
+ * cancelling it is O(1), so very large numbers of outstanding delays stay cheap. Delays fire with a precision
+ * of one {@code tick}. A single thread advances the wheel; callbacks run on it and must not block.
+ */
+public class WheelTimer {
+    private final HashedWheelTimer timer;
+
+    public WheelTimer(Duration tick, int ticksPerWheel, ThreadFactory threadFactory) {
+        this.timer = new HashedWheelTimer(threadFactory, tick.toNanos(), TimeUnit.NANOSECONDS, ticksPerWheel);
+    }
+
+    /**
+     * Emits {@code 0} after {@code delay}; cancelling the subscription removes the pending timeout.
+     */
+    public Mono<Long> delay(Duration delay) {
+        return Mono.create(sink -> {
+            Timeout timeout = timer.newTimeout(ignored -> sink.success(0L), delay.toNanos(), TimeUnit.NANOSECONDS);
+            sink.onCancel(timeout::cancel);
+        });
+    }
+
+    public long getPendingCount() {
+        return timer.pendingTimeouts();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+}
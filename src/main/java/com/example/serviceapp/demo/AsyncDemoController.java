@@ -1,6 +1,8 @@
 package com.example.serviceapp.demo;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.MethodName;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -10,31 +12,30 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.UUID;
-
 @RestController
 public class AsyncDemoController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final WebClient webClient;
     private static final String TRACE_TOPIC = "async-trace-logs";
 
-    public AsyncDemoController(LogService logService, KafkaTemplate<String, String> kafkaTemplate, WebClient.Builder webClientBuilder) {
+    public AsyncDemoController(LogService logService, TraceIdGenerator traceIdGenerator, KafkaTemplate<String, String> kafkaTemplate, WebClient.Builder webClientBuilder) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
         this.kafkaTemplate = kafkaTemplate;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8080").build();
+        this.webClient = webClientBuilder.build();
     }
 
     // 1. Async Call - Service A sends a Kafka event**
     @GetMapping("/async-service-a")
     public String asyncServiceA(@RequestParam String input,
                                 @RequestHeader(value = "trace_id", required = false) String traceId,
-                                @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+                                @RequestHeader(value = "span_id", required = false) String parentSpanId,
+                                @MethodName String methodName) {
 
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("async-service-a", "kafka-async-event", methodName, "EVENT", input, null, traceId, spanId, parentSpanId);
 
@@ -50,13 +51,11 @@ public class AsyncDemoController {
 
     // 2. Kafka Consumer - Listens for the event, then calls sync Service B**
     @KafkaListener(topics = "async-trace-logs", groupId = "service-b-group")
-    public void listenForAsyncEvent(ConsumerRecord<String, String> record) {
+    public void listenForAsyncEvent(ConsumerRecord<String, String> record, @MethodName String methodName) {
         String message = record.value();
         String traceId = record.key();
         String parentSpanId = extractSpanId(message);
-        String spanId = UUID.randomUUID().toString();
-
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("kafka-consumer", "sync-service-b", methodName, "EVENT", message, null, traceId, spanId, parentSpanId);
 
@@ -76,11 +75,10 @@ public class AsyncDemoController {
     @GetMapping("/sync-service-b")
     public String syncServiceB(@RequestParam String input,
                                @RequestHeader(value = "trace_id") String traceId,
-                               @RequestHeader(value = "span_id") String parentSpanId) {
-
-        String spanId = UUID.randomUUID().toString();
+                               @RequestHeader(value = "span_id") String parentSpanId,
+                               @MethodName String methodName) {
 
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("sync-service-b", "database", methodName,"HTTP", input, "Service B processed synchronously", traceId, spanId, parentSpanId);
 
@@ -1,33 +1,34 @@
 package com.example.serviceapp.demo;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.MethodName;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.UUID;
-
 @RestController
 public class SyncDemoController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
 
-    public SyncDemoController(LogService logService, WebClient.Builder webClientBuilder) {
+    public SyncDemoController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8080").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
     }
 
     @GetMapping("/service-a")
     public String serviceA(@RequestParam String input,
                            @RequestHeader(value = "trace_id", required = false) String traceId,
-                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+                           @RequestHeader(value = "span_id", required = false) String parentSpanId,
+                           @MethodName String methodName) {
 
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("service-a", "service-b", methodName, "GET", input, null, traceId, spanId, parentSpanId);
 
@@ -46,11 +47,10 @@ public class SyncDemoController {
     @GetMapping("/service-b")
     public String serviceB(@RequestParam String input,
                            @RequestHeader(value = "trace_id") String traceId,
-                           @RequestHeader(value = "span_id") String parentSpanId) {
+                           @RequestHeader(value = "span_id") String parentSpanId,
+                           @MethodName String methodName) {
 
-        String spanId = UUID.randomUUID().toString();
-
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("service-b", "service-c", methodName,"GET", input, null, traceId, spanId, parentSpanId);
 
@@ -70,11 +70,10 @@ public class SyncDemoController {
     @GetMapping("/service-c")
     public String serviceC(@RequestParam String input,
                            @RequestHeader(value = "trace_id") String traceId,
-                           @RequestHeader(value = "span_id") String parentSpanId) {
-
-        String spanId = UUID.randomUUID().toString();
+                           @RequestHeader(value = "span_id") String parentSpanId,
+                           @MethodName String methodName) {
 
-        String methodName = Thread.currentThread().getStackTrace()[1].getMethodName();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("service-c", null, methodName,"GET", input, null, traceId, spanId, parentSpanId);
 
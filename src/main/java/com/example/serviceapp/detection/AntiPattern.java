@@ -0,0 +1,21 @@
+package com.example.serviceapp.detection;
+
+/**
+ * Anti-patterns the simulators produce and the {@link AntiPatternDetector} recognises in {@code logs-topic}.
+ */
+public enum AntiPattern {
+    /** One trace makes more calls between services than {@code detector.chatty.max-calls}. */
+    CHATTY_SERVICES,
+    /** One service calls at least {@code detector.fan-out.min-destinations} distinct services within the window. */
+    SERVICE_FAN_OUT,
+    /** One service is called by at least {@code detector.fan-in.min-callers} distinct services within the window. */
+    SERVICE_FAN_IN,
+    /** One trace nests calls deeper than {@code detector.long-chain.max-depth}. */
+    LONG_SERVICE_CHAIN,
+    /** Services that call each other in a loop, directly or through others; the subject is the call that closed it. */
+    CYCLIC_DEPENDENCY,
+    /** A cycle, named after the service whose call completed it, of at least {@code detector.knot.min-size} services with edge density of {@code detector.knot.min-density} or more. */
+    KNOT,
+    /** A service that calls nobody and only ever does trivial work within the window. */
+    NANO_SERVICE
+}
@@ -0,0 +1,355 @@
+package com.example.serviceapp.detection;
+
+import com.example.loggingwrapper.LogEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Incremental detector for the anti-patterns the simulators write to {@code logs-topic}.
+ * <p>
+ * Events are fed one at a time, in roughly the order they were logged, and detections are raised as soon as a
+ * threshold is crossed. Patterns visible within a single trace (chatty services, long chains) are tracked per
+ * trace; patterns that only show across traces (fan-in, fan-out, nano services) are read off a
+ * {@link ServiceInteractionGraph} covering the last {@code window}. Cyclic dependencies and knots come from an
+ * {@link IncrementalSccIndex} that follows the graph's edges as they appear and expire. All windows run on event time.
+ * <p>
+ * Every piece of state is bounded: traces, pending spans and per-service statistics are capped and expire one
+ * window after they were last touched, and graph-wide patterns are raised at most once per window for each service.
+ * Methods are synchronized; feed it from one thread and read it from any.
+ */
+public class AntiPatternDetector implements MeterBinder {
+    private static final int PROCESSING = 102;
+    private static final int MAX_RECENT_DETECTIONS = 256;
+    private static final int MAX_SPANS_PER_TRACE = 1024;
+
+    private final Thresholds thresholds;
+    private final long windowMillis;
+    private final int buckets;
+    private final long bucketMillis;
+    private final Limits limits;
+    private final Consumer<Detection> listener;
+    private final ServiceInteractionGraph graph;
+    private final IncrementalSccIndex cycles;
+    private final LinkedHashMap<String, TraceState> traces = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, PendingSpan> pendingSpans = new LinkedHashMap<>();
+    private final LinkedHashMap<String, ServiceStats> services = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> lastRaised = new HashMap<>();
+    private final ArrayDeque<Detection> recent = new ArrayDeque<>();
+    private final EnumMap<AntiPattern, long[]> detectionCounts = new EnumMap<>(AntiPattern.class);
+    private long now = Long.MIN_VALUE;
+    private long lastSweep;
+    private long events;
+    private String currentTraceId;
+
+    public AntiPatternDetector(Thresholds thresholds, Duration window, int buckets, Limits limits,
+                               Consumer<Detection> listener) {
+        this.thresholds = thresholds;
+        this.windowMillis = window.toMillis();
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.limits = limits;
+        this.listener = listener;
+        this.cycles = new IncrementalSccIndex(thresholds.knotMinDensity(), thresholds.knotMinSize(),
+                new IncrementalSccIndex.Listener() {
+                    @Override
+                    public void onCycle(String source, String destination, int services) {
+                        raiseOncePerWindow(AntiPattern.CYCLIC_DEPENDENCY, source + " -> " + destination, currentTraceId,
+                                services, 2, now);
+                    }
+
+                    @Override
+                    public void onKnot(String service, int services, int edges, double density) {
+                        long possible = (long) services * (services - 1);
+                        raiseOncePerWindow(AntiPattern.KNOT, service, currentTraceId,
+                                edges, (long) Math.ceil(thresholds.knotMinDensity() * possible), now);
+                    }
+                });
+        this.graph = new ServiceInteractionGraph(windowMillis, buckets, limits.maxEdges(),
+                new ServiceInteractionGraph.EdgeListener() {
+                    @Override
+                    public void edgeAdded(String source, String destination) {
+                        cycles.addEdge(source, destination);
+                    }
+
+                    @Override
+                    public void edgeRemoved(String source, String destination) {
+                        cycles.removeEdge(source, destination);
+                    }
+                });
+        for (AntiPattern pattern : AntiPattern.values()) {
+            detectionCounts.put(pattern, new long[1]);
+        }
+    }
+
+    /**
+     * Folds one log event into the detector, raising any anti-pattern it completes.
+     */
+    public synchronized void accept(LogEvent event) {
+        String source = event.getSourceService();
+        if (source == null) {
+            return;
+        }
+        events++;
+        long timestamp = event.getTimestamp();
+        now = Math.max(now, timestamp);
+        if (now - lastSweep >= bucketMillis) {
+            sweep();
+        }
+
+        String traceId = event.getTraceId();
+        String spanId = event.getSpanId();
+        TraceState trace = traceId == null ? null : trace(traceId, source);
+        if (event.getHttpStatus() == PROCESSING) {
+            onStart(event, source, trace, traceId, spanId, timestamp);
+        } else if (event.hasHttpStatus() && spanId != null) {
+            onEnd(source, spanId, timestamp);
+        }
+    }
+
+    private void onStart(LogEvent event, String source, TraceState trace, String traceId, String spanId, long timestamp) {
+        String destination = event.getDestinationService();
+        if (destination != null) {
+            currentTraceId = traceId;
+            graph.addCall(source, destination, timestamp);
+            int destinations = graph.outDegree(source);
+            if (destinations >= thresholds.fanOutMinDestinations()) {
+                raiseOncePerWindow(AntiPattern.SERVICE_FAN_OUT, source, traceId, destinations,
+                        thresholds.fanOutMinDestinations(), timestamp);
+            }
+            int callers = graph.inDegree(destination);
+            if (callers >= thresholds.fanInMinCallers()) {
+                raiseOncePerWindow(AntiPattern.SERVICE_FAN_IN, destination, traceId, callers,
+                        thresholds.fanInMinCallers(), timestamp);
+            }
+            if (trace != null && ++trace.calls > thresholds.chattyMaxCalls() && !trace.chattyRaised) {
+                trace.chattyRaised = true;
+                raise(AntiPattern.CHATTY_SERVICES, trace.rootService, traceId, trace.calls, thresholds.chattyMaxCalls(), timestamp);
+            }
+        }
+        if (spanId == null) {
+            return;
+        }
+        if (trace != null && trace.spanDepths.size() < MAX_SPANS_PER_TRACE && !trace.spanDepths.containsKey(spanId)) {
+            // Spans whose parent this trace has not seen (or none) start a chain of their own
+            String parentSpanId = event.getParentSpanId();
+            int depth = parentSpanId == null ? 1 : trace.spanDepths.getOrDefault(parentSpanId, 0) + 1;
+            trace.spanDepths.put(spanId, depth);
+            if (depth > thresholds.longChainMaxDepth() && !trace.longChainRaised) {
+                trace.longChainRaised = true;
+                raise(AntiPattern.LONG_SERVICE_CHAIN, trace.rootService, traceId, depth, thresholds.longChainMaxDepth(), timestamp);
+            }
+        }
+        if (!pendingSpans.containsKey(spanId)) {
+            if (pendingSpans.size() >= limits.maxPendingSpans()) {
+                removeEldest(pendingSpans);
+            }
+            pendingSpans.put(spanId, new PendingSpan(source, timestamp));
+        }
+    }
+
+    private void onEnd(String source, String spanId, long timestamp) {
+        PendingSpan span = pendingSpans.get(spanId);
+        if (span == null || !span.service().equals(source)) {
+            return;
+        }
+        pendingSpans.remove(spanId);
+        ServiceStats stats = services.get(source);
+        if (stats == null) {
+            if (services.size() >= limits.maxServices()) {
+                removeEldest(services);
+            }
+            stats = new ServiceStats(new WindowedCounter(buckets, bucketMillis), new WindowedCounter(buckets, bucketMillis));
+            services.put(source, stats);
+        }
+        stats.lastSeen = timestamp;
+        stats.spans.add(timestamp);
+        if (timestamp - span.startedAt() > thresholds.nanoMaxDuration().toMillis()) {
+            stats.slowSpans.add(timestamp);
+        }
+
+        long samples = stats.spans.sum(now);
+        if (samples >= thresholds.nanoMinSamples() && stats.slowSpans.sum(now) == 0 && graph.outDegree(source) == 0) {
+            raiseOncePerWindow(AntiPattern.NANO_SERVICE, source, null, samples, thresholds.nanoMinSamples(), timestamp);
+        }
+    }
+
+    private TraceState trace(String traceId, String source) {
+        TraceState trace = traces.get(traceId);
+        if (trace == null) {
+            if (traces.size() >= limits.maxTraces()) {
+                removeEldest(traces);
+            }
+            trace = new TraceState(source);
+            traces.put(traceId, trace);
+        }
+        trace.lastSeen = now;
+        return trace;
+    }
+
+    private void raiseOncePerWindow(AntiPattern pattern, String subject, String traceId, long observed, long threshold,
+                                    long timestamp) {
+        String key = pattern.name() + '|' + subject;
+        Long previous = lastRaised.get(key);
+        if (previous != null && timestamp - previous < windowMillis) {
+            return;
+        }
+        lastRaised.put(key, timestamp);
+        raise(pattern, subject, traceId, observed, threshold, timestamp);
+    }
+
+    private void raise(AntiPattern pattern, String subject, String traceId, long observed, long threshold, long timestamp) {
+        Detection detection = new Detection(pattern, subject, traceId, observed, threshold, timestamp);
+        detectionCounts.get(pattern)[0]++;
+        if (recent.size() == MAX_RECENT_DETECTIONS) {
+            recent.removeFirst();
+        }
+        recent.addLast(detection);
+        listener.accept(detection);
+    }
+
+    /**
+     * Expires everything not touched within the window. Runs at most once per bucket width of event time.
+     */
+    private void sweep() {
+        lastSweep = now;
+        graph.expire(now);
+        expireIdle(traces, trace -> trace.lastSeen);
+        expireIdle(services, stats -> stats.lastSeen);
+        // Spans are kept in start order, so the oldest are first
+        Iterator<PendingSpan> spans = pendingSpans.values().iterator();
+        while (spans.hasNext() && now - spans.next().startedAt() >= windowMillis) {
+            spans.remove();
+        }
+        lastRaised.values().removeIf(raisedAt -> now - raisedAt >= windowMillis);
+    }
+
+    private <V> void expireIdle(LinkedHashMap<String, V> accessOrdered, ToLongFunction<V> lastSeen) {
+        Iterator<V> values = accessOrdered.values().iterator();
+        while (values.hasNext() && now - lastSeen.applyAsLong(values.next()) >= windowMillis) {
+            values.remove();
+        }
+    }
+
+    private static void removeEldest(LinkedHashMap<String, ?> map) {
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        keys.remove();
+    }
+
+    /**
+     * The most recent detections, oldest first.
+     */
+    public synchronized List<Detection> recentDetections() {
+        return new ArrayList<>(recent);
+    }
+
+    /**
+     * The current service interaction graph with call counts over the window.
+     */
+    public synchronized List<ServiceInteractionGraph.WeightedEdge> graph() {
+        return now == Long.MIN_VALUE ? List.of() : graph.edges(now);
+    }
+
+    /**
+     * Every group of services that currently call each other in a loop.
+     */
+    public synchronized List<IncrementalSccIndex.CyclicComponent> cycles() {
+        return cycles.cycles();
+    }
+
+    public synchronized long getDetectionCount(AntiPattern pattern) {
+        return detectionCounts.get(pattern)[0];
+    }
+
+    public synchronized long getEventCount() {
+        return events;
+    }
+
+    public synchronized int getTrackedTraceCount() {
+        return traces.size();
+    }
+
+    public synchronized int getEdgeCount() {
+        return graph.getEdgeCount();
+    }
+
+    public synchronized int getCyclicComponentCount() {
+        return cycles.getCyclicComponentCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AntiPattern pattern : AntiPattern.values()) {
+            FunctionCounter.builder("detector.detections", this, detector -> detector.getDetectionCount(pattern))
+                    .description("Anti-pattern detections raised from logs-topic")
+                    .tag("pattern", pattern.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("detector.events", this, AntiPatternDetector::getEventCount)
+                .description("Log events processed by the detector")
+                .register(registry);
+        Gauge.builder("detector.traces", this, AntiPatternDetector::getTrackedTraceCount)
+                .description("Traces currently tracked by the detector")
+                .register(registry);
+        Gauge.builder("detector.graph.edges", this, AntiPatternDetector::getEdgeCount)
+                .description("Edges in the detector's service interaction graph")
+                .register(registry);
+        Gauge.builder("detector.graph.cycles", this, AntiPatternDetector::getCyclicComponentCount)
+                .description("Groups of services calling each other in a loop")
+                .register(registry);
+    }
+
+    /**
+     * Limits above which an anti-pattern is raised; see {@link AntiPattern} for how each one is used.
+     */
+    public record Thresholds(int chattyMaxCalls, int longChainMaxDepth, int fanOutMinDestinations, int fanInMinCallers,
+                             Duration nanoMaxDuration, int nanoMinSamples, double knotMinDensity, int knotMinSize) {
+    }
+
+    /**
+     * Caps on the detector's state; when one is reached the entry idle the longest is dropped.
+     */
+    public record Limits(int maxTraces, int maxPendingSpans, int maxServices, int maxEdges) {
+    }
+
+    private static final class TraceState {
+        final String rootService;
+        final Map<String, Integer> spanDepths = new HashMap<>();
+        int calls;
+        boolean chattyRaised;
+        boolean longChainRaised;
+        long lastSeen;
+
+        TraceState(String rootService) {
+            this.rootService = rootService;
+        }
+    }
+
+    private record PendingSpan(String service, long startedAt) {
+    }
+
+    private static final class ServiceStats {
+        final WindowedCounter spans;
+        final WindowedCounter slowSpans;
+        long lastSeen;
+
+        ServiceStats(WindowedCounter spans, WindowedCounter slowSpans) {
+            this.spans = spans;
+            this.slowSpans = slowSpans;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.serviceapp.detection;
+
+/**
+ * One anti-pattern occurrence raised by the {@link AntiPatternDetector}.
+ *
+ * @param subject   the service the pattern was observed at (for trace patterns, the service that started the trace)
+ * @param traceId   the trace that exposed the pattern, or {@code null} for patterns seen across traces
+ * @param observed  the measured value that crossed the threshold (calls, depth, distinct services or samples)
+ * @param threshold the configured limit it was compared against
+ * @param timestamp event time of the log record that raised it, in epoch milliseconds
+ */
+public record Detection(AntiPattern pattern, String subject, String traceId, long observed, long threshold, long timestamp) {
+}
@@ -0,0 +1,81 @@
+package com.example.serviceapp.detection;
+
+import com.example.loggingwrapper.LogEvent;
+import com.example.loggingwrapper.LogEventDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Wires the {@link AntiPatternDetector} and, unless {@code detector.kafka.enabled=false}, feeds it from
+ * {@code logs-topic} through {@link LogTopicDetectionListener}.
+ */
+@Configuration
+public class DetectionConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(DetectionConfiguration.class);
+
+    @Bean
+    public AntiPatternDetector antiPatternDetector(MeterRegistry meterRegistry,
+                                                  @Value("${detector.window:60s}") Duration window,
+                                                  @Value("${detector.buckets:6}") int buckets,
+                                                  @Value("${detector.chatty.max-calls:10}") int chattyMaxCalls,
+                                                  @Value("${detector.long-chain.max-depth:5}") int longChainMaxDepth,
+                                                  @Value("${detector.fan-out.min-destinations:4}") int fanOutMinDestinations,
+                                                  @Value("${detector.fan-in.min-callers:3}") int fanInMinCallers,
+                                                  @Value("${detector.nano.max-duration:1ms}") Duration nanoMaxDuration,
+                                                  @Value("${detector.nano.min-samples:5}") int nanoMinSamples,
+                                                  @Value("${detector.knot.min-density:0.6}") double knotMinDensity,
+                                                  @Value("${detector.knot.min-size:3}") int knotMinSize,
+                                                  @Value("${detector.max-traces:10000}") int maxTraces,
+                                                  @Value("${detector.max-pending-spans:100000}") int maxPendingSpans,
+                                                  @Value("${detector.max-services:10000}") int maxServices,
+                                                  @Value("${detector.max-edges:100000}") int maxEdges) {
+        AntiPatternDetector detector = new AntiPatternDetector(
+                new AntiPatternDetector.Thresholds(chattyMaxCalls, longChainMaxDepth, fanOutMinDestinations, fanInMinCallers,
+                        nanoMaxDuration, nanoMinSamples, knotMinDensity, knotMinSize),
+                window, buckets,
+                new AntiPatternDetector.Limits(maxTraces, maxPendingSpans, maxServices, maxEdges),
+                detection -> logger.info("Detected {}", detection));
+        detector.bindTo(meterRegistry);
+        return detector;
+    }
+
+    /**
+     * Listener containers for {@code logs-topic}, shared with the trace assembler: one consumer, values decoded from
+     * either wire format. Records that cannot be decoded reach the listener as {@code null} and are skipped instead
+     * of stalling the partition. The group id is the detector's; other listeners set their own.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, LogEvent> logEventListenerContainerFactory(
+            KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles,
+            @Value("${detector.kafka.group-id:serviceapp-detector}") String groupId) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        ConcurrentKafkaListenerContainerFactory<String, LogEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties, StringDeserializer::new,
+                () -> new ErrorHandlingDeserializer<>(new LogEventDeserializer())));
+        factory.setConcurrency(1);
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "detector.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public LogTopicDetectionListener logTopicDetectionListener(AntiPatternDetector detector) {
+        return new LogTopicDetectionListener(detector);
+    }
+}
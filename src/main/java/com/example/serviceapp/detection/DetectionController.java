@@ -0,0 +1,47 @@
+package com.example.serviceapp.detection;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Exposes what the {@link AntiPatternDetector} has found in {@code logs-topic}.
+ */
+@RestController
+@RequestMapping("/detections")
+public class DetectionController {
+    private final AntiPatternDetector detector;
+
+    public DetectionController(AntiPatternDetector detector) {
+        this.detector = detector;
+    }
+
+    /**
+     * Most recent detections, oldest first.
+     * @curl curl -X GET "http://localhost:8081/detections"
+     */
+    @GetMapping
+    public List<Detection> detections() {
+        return detector.recentDetections();
+    }
+
+    /**
+     * Service interaction graph over the detector's window, with call counts per edge.
+     * @curl curl -X GET "http://localhost:8081/detections/graph"
+     */
+    @GetMapping("/graph")
+    public List<ServiceInteractionGraph.WeightedEdge> graph() {
+        return detector.graph();
+    }
+
+    /**
+     * Groups of services that currently call each other in a loop, with their edge density.
+     * @curl curl -X GET "http://localhost:8081/detections/cycles"
+     */
+    @GetMapping("/cycles")
+    public List<IncrementalSccIndex.CyclicComponent> cycles() {
+        return detector.cycles();
+    }
+}
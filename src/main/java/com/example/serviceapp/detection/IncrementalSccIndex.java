@@ -0,0 +1,594 @@
+package com.example.serviceapp.detection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Strongly connected components of the service call graph, maintained edge by edge.
+ * <p>
+ * The components form a DAG (the condensation), kept in a topological order with the Pearce-Kelly algorithm:
+ * an edge that agrees with the order costs O(1), and one that contradicts it only searches the components
+ * ordered between its endpoints. If that search closes a loop, the components on it are merged into one; this is
+ * how new cycles are found without a full DFS. Removing an edge between components never invalidates the order;
+ * removing one inside a component re-runs Tarjan on that component alone, and if it splits the pieces take
+ * positions in the gap left after it in the order (order positions are spaced out so that gaps usually exist).
+ * <p>
+ * A component of at least {@code knotMinSize} services is a knot once its edge density - internal edges over
+ * the n(n-1) possible - reaches {@code knotDensity}. Cycles and knots are reported to a {@link Listener} as they
+ * appear. Self-calls are ignored. Not thread-safe.
+ */
+public class IncrementalSccIndex {
+    private static final long ORDER_GAP = 1L << 16;
+
+    private final double knotDensity;
+    private final int knotMinSize;
+    private final Listener listener;
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Set<Component> components = new HashSet<>();
+    private long nextOrd;
+    private int stamp;
+    private int edges;
+    private int cyclicComponents;
+
+    public IncrementalSccIndex(double knotDensity, int knotMinSize, Listener listener) {
+        this.knotDensity = knotDensity;
+        this.knotMinSize = knotMinSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds the call edge {@code source -> destination}; adding an edge that is already present does nothing.
+     */
+    public void addEdge(String source, String destination) {
+        if (source.equals(destination)) {
+            return;
+        }
+        Node u = node(source);
+        Node v = node(destination);
+        if (!u.out.add(v)) {
+            return;
+        }
+        v.in.add(u);
+        edges++;
+
+        Component cu = u.component;
+        Component cv = v.component;
+        if (cu == cv) {
+            cu.internalEdges++;
+            checkKnot(cu, source);
+            return;
+        }
+        cu.out.merge(cv, 1, Integer::sum);
+        cv.in.merge(cu, 1, Integer::sum);
+        if (cu.ord < cv.ord) {
+            return;
+        }
+
+        // The edge contradicts the order: search only the components ordered between its endpoints
+        int forwardStamp = ++stamp;
+        List<Component> forward = new ArrayList<>();
+        boolean cycle = searchForward(cv, cu, forwardStamp, forward);
+        int backwardStamp = ++stamp;
+        List<Component> backward = searchBackward(cu, cv.ord, backwardStamp);
+
+        if (!cycle) {
+            reorder(backward, null, forward);
+            return;
+        }
+        // Components reachable from cv that also reach cu are on a cycle through the new edge
+        List<Component> onCycle = new ArrayList<>();
+        for (Component component : forward) {
+            if (component.backwardMark == backwardStamp) {
+                onCycle.add(component);
+            }
+        }
+        Component merged = merge(onCycle);
+        backward.removeIf(component -> component.forwardMark == forwardStamp);
+        forward.removeIf(component -> component.backwardMark == backwardStamp);
+        reorder(backward, merged, forward);
+
+        listener.onCycle(source, destination, merged.members.size());
+        checkKnot(merged, source);
+    }
+
+    /**
+     * Removes the call edge {@code source -> destination}, and any service left with no edges.
+     */
+    public void removeEdge(String source, String destination) {
+        Node u = nodes.get(source);
+        Node v = nodes.get(destination);
+        if (u == null || v == null || !u.out.remove(v)) {
+            return;
+        }
+        v.in.remove(u);
+        edges--;
+
+        Component cu = u.component;
+        Component cv = v.component;
+        if (cu != cv) {
+            decrement(cu.out, cv);
+            decrement(cv.in, cu);
+        } else {
+            cu.internalEdges--;
+            split(cu);
+        }
+        removeIfIsolated(u);
+        removeIfIsolated(v);
+    }
+
+    /**
+     * Every component of two or more services, each listed with its members.
+     */
+    public List<CyclicComponent> cycles() {
+        List<CyclicComponent> result = new ArrayList<>();
+        for (Component component : components) {
+            if (component.members.size() > 1) {
+                result.add(component.describe());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Services in the same strongly connected component as {@code service}, including itself.
+     */
+    public List<String> componentOf(String service) {
+        Node node = nodes.get(service);
+        return node == null ? List.of() : node.component.names();
+    }
+
+    public int getServiceCount() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    public int getComponentCount() {
+        return components.size();
+    }
+
+    public int getCyclicComponentCount() {
+        return cyclicComponents;
+    }
+
+    private Node node(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            node = new Node(name);
+            // A new service has no edges yet, so it can go anywhere in the order
+            Component component = new Component(nextOrd);
+            nextOrd += ORDER_GAP;
+            component.members.add(node);
+            node.component = component;
+            components.add(component);
+            nodes.put(name, node);
+        }
+        return node;
+    }
+
+    private void removeIfIsolated(Node node) {
+        if (node.in.isEmpty() && node.out.isEmpty()) {
+            nodes.remove(node.name);
+            components.remove(node.component);
+        }
+    }
+
+    /**
+     * Components reachable from {@code start} that are ordered no later than {@code target}.
+     *
+     * @return whether {@code target} was reached
+     */
+    private boolean searchForward(Component start, Component target, int mark, List<Component> visited) {
+        boolean reached = false;
+        ArrayDeque<Component> stack = new ArrayDeque<>();
+        start.forwardMark = mark;
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Component component = stack.pop();
+            visited.add(component);
+            if (component == target) {
+                reached = true;
+                continue;
+            }
+            for (Component next : component.out.keySet()) {
+                if (next.forwardMark != mark && next.ord <= target.ord) {
+                    next.forwardMark = mark;
+                    stack.push(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Components that reach {@code start} and are ordered no earlier than {@code lowerOrd}.
+     */
+    private List<Component> searchBackward(Component start, long lowerOrd, int mark) {
+        List<Component> visited = new ArrayList<>();
+        ArrayDeque<Component> stack = new ArrayDeque<>();
+        start.backwardMark = mark;
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Component component = stack.pop();
+            visited.add(component);
+            for (Component previous : component.in.keySet()) {
+                if (previous.backwardMark != mark && previous.ord >= lowerOrd) {
+                    previous.backwardMark = mark;
+                    stack.push(previous);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Reassigns the order positions held by the searched components: everything that reaches the new edge's
+     * source first, then the merged cycle if there is one, then everything reachable from its destination.
+     * Components only move towards the side they belong on, so edges to the rest of the graph stay in order.
+     */
+    private void reorder(List<Component> backward, Component merged, List<Component> forward) {
+        List<Long> positions = new ArrayList<>(backward.size() + forward.size() + 1);
+        for (Component component : backward) {
+            positions.add(component.ord);
+        }
+        for (Component component : forward) {
+            positions.add(component.ord);
+        }
+        if (merged != null) {
+            positions.addAll(merged.absorbedOrds);
+            merged.absorbedOrds.clear();
+        }
+        positions.sort(null);
+        backward.sort(Comparator.comparingLong(component -> component.ord));
+        forward.sort(Comparator.comparingLong(component -> component.ord));
+
+        for (int i = 0; i < backward.size(); i++) {
+            backward.get(i).ord = positions.get(i);
+        }
+        if (merged != null) {
+            merged.ord = positions.get(backward.size());
+        }
+        int firstForward = positions.size() - forward.size();
+        for (int i = 0; i < forward.size(); i++) {
+            forward.get(i).ord = positions.get(firstForward + i);
+        }
+    }
+
+    /**
+     * Folds {@code cycle} into its largest component and rewires the condensation edges around it. Only the
+     * smaller components' edges are walked, so a large cycle that keeps growing is not re-scanned each time.
+     */
+    private Component merge(List<Component> cycle) {
+        Component keeper = cycle.get(0);
+        int mark = ++stamp;
+        for (Component component : cycle) {
+            component.mergeMark = mark;
+            if (component.members.size() > 1) {
+                cyclicComponents--;
+            }
+            if (component.weight() > keeper.weight()) {
+                keeper = component;
+            }
+        }
+
+        keeper.absorbedOrds.add(keeper.ord);
+        for (Component component : cycle) {
+            if (component == keeper) {
+                continue;
+            }
+            keeper.internalEdges += component.internalEdges;
+            keeper.absorbedOrds.add(component.ord);
+            // Edges inside the cycle are counted once, from their source side
+            for (Map.Entry<Component, Integer> edge : component.out.entrySet()) {
+                Component target = edge.getKey();
+                if (target.mergeMark == mark) {
+                    keeper.internalEdges += edge.getValue();
+                } else {
+                    target.in.remove(component);
+                    target.in.merge(keeper, edge.getValue(), Integer::sum);
+                    keeper.out.merge(target, edge.getValue(), Integer::sum);
+                }
+            }
+            for (Map.Entry<Component, Integer> edge : component.in.entrySet()) {
+                Component source = edge.getKey();
+                if (source.mergeMark != mark) {
+                    source.out.remove(component);
+                    source.out.merge(keeper, edge.getValue(), Integer::sum);
+                    keeper.in.merge(source, edge.getValue(), Integer::sum);
+                }
+            }
+            for (Node node : component.members) {
+                node.component = keeper;
+            }
+            keeper.members.addAll(component.members);
+            components.remove(component);
+        }
+        for (Component component : cycle) {
+            if (component != keeper) {
+                Integer edges = keeper.out.remove(component);
+                if (edges != null) {
+                    keeper.internalEdges += edges;
+                }
+                keeper.in.remove(component);
+            }
+        }
+
+        keeper.knot = false;
+        cyclicComponents++;
+        return keeper;
+    }
+
+    /**
+     * Re-runs Tarjan on the members of {@code component} after one of its internal edges went away; if it falls
+     * apart, replaces it with its pieces in topological order at its place in the global order.
+     */
+    private void split(Component component) {
+        List<List<Node>> pieces = tarjan(component);
+        if (pieces.size() == 1) {
+            checkKnot(component, null);
+            return;
+        }
+        cyclicComponents--;
+
+        // Tarjan emits components in reverse topological order
+        List<Component> replacements = new ArrayList<>(pieces.size());
+        int mark = ++stamp;
+        for (int i = pieces.size() - 1; i >= 0; i--) {
+            Component piece = new Component(0);
+            piece.mergeMark = mark;
+            piece.members.addAll(pieces.get(i));
+            for (Node node : piece.members) {
+                node.component = piece;
+            }
+            replacements.add(piece);
+        }
+        for (Component neighbour : component.out.keySet()) {
+            neighbour.in.remove(component);
+        }
+        for (Component neighbour : component.in.keySet()) {
+            neighbour.out.remove(component);
+        }
+        for (Component piece : replacements) {
+            for (Node node : piece.members) {
+                for (Node target : node.out) {
+                    if (target.component == piece) {
+                        piece.internalEdges++;
+                    } else {
+                        piece.out.merge(target.component, 1, Integer::sum);
+                        target.component.in.merge(piece, 1, Integer::sum);
+                    }
+                }
+                // Edges between pieces were counted from their source side above
+                for (Node source : node.in) {
+                    if (source.component.mergeMark != mark) {
+                        piece.in.merge(source.component, 1, Integer::sum);
+                        source.component.out.merge(piece, 1, Integer::sum);
+                    }
+                }
+            }
+            if (piece.members.size() > 1) {
+                cyclicComponents++;
+                checkKnot(piece, null);
+            }
+        }
+
+        components.remove(component);
+        place(component.ord, replacements);
+        components.addAll(replacements);
+    }
+
+    /**
+     * Gives {@code pieces}, which are not yet among the components, increasing positions from {@code ord} up to
+     * the next position in use, or renumbers the whole order with the pieces at {@code ord} if that gap is too small.
+     */
+    private void place(long ord, List<Component> pieces) {
+        long next = nextOrd;
+        for (Component component : components) {
+            if (component.ord > ord && component.ord < next) {
+                next = component.ord;
+            }
+        }
+        long step = (next - ord) / pieces.size();
+        if (step > 0) {
+            for (int i = 0; i < pieces.size(); i++) {
+                pieces.get(i).ord = ord + i * step;
+            }
+            return;
+        }
+
+        List<Component> ordered = new ArrayList<>(components);
+        ordered.sort(Comparator.comparingLong(c -> c.ord));
+        long position = 0;
+        boolean placed = false;
+        for (Component current : ordered) {
+            if (!placed && current.ord > ord) {
+                for (Component piece : pieces) {
+                    piece.ord = position;
+                    position += ORDER_GAP;
+                }
+                placed = true;
+            }
+            current.ord = position;
+            position += ORDER_GAP;
+        }
+        if (!placed) {
+            for (Component piece : pieces) {
+                piece.ord = position;
+                position += ORDER_GAP;
+            }
+        }
+        nextOrd = position;
+    }
+
+    /**
+     * Iterative Tarjan over the members of {@code component}, following only edges that stay inside it.
+     */
+    private List<List<Node>> tarjan(Component component) {
+        List<List<Node>> result = new ArrayList<>();
+        int[] counter = {0};
+        int mark = ++stamp;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        ArrayDeque<Iterator<Node>> work = new ArrayDeque<>();
+        ArrayDeque<Node> path = new ArrayDeque<>();
+        for (Node root : component.members) {
+            if (root.tarjanMark == mark) {
+                continue;
+            }
+            visit(root, mark, counter, stack, path, work);
+            while (!path.isEmpty()) {
+                Node node = path.peek();
+                Iterator<Node> successors = work.peek();
+                boolean descended = false;
+                while (successors.hasNext()) {
+                    Node next = successors.next();
+                    if (next.component != component) {
+                        continue;
+                    }
+                    if (next.tarjanMark != mark) {
+                        visit(next, mark, counter, stack, path, work);
+                        descended = true;
+                        break;
+                    }
+                    if (next.onStack) {
+                        node.lowLink = Math.min(node.lowLink, next.index);
+                    }
+                }
+                if (descended) {
+                    continue;
+                }
+                path.pop();
+                work.pop();
+                if (!path.isEmpty()) {
+                    path.peek().lowLink = Math.min(path.peek().lowLink, node.lowLink);
+                }
+                if (node.lowLink == node.index) {
+                    List<Node> piece = new ArrayList<>();
+                    Node member;
+                    do {
+                        member = stack.pop();
+                        member.onStack = false;
+                        piece.add(member);
+                    } while (member != node);
+                    result.add(piece);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void visit(Node node, int mark, int[] counter, ArrayDeque<Node> stack, ArrayDeque<Node> path,
+                              ArrayDeque<Iterator<Node>> work) {
+        node.tarjanMark = mark;
+        node.index = counter[0];
+        node.lowLink = counter[0];
+        counter[0]++;
+        stack.push(node);
+        node.onStack = true;
+        path.push(node);
+        work.push(node.out.iterator());
+    }
+
+    /**
+     * Updates whether {@code component} is a knot, reporting it if {@code service} just made it one.
+     * Components that shrink below the threshold are only marked, so they are reported again if they regrow.
+     */
+    private void checkKnot(Component component, String service) {
+        int size = component.members.size();
+        boolean knot = size >= knotMinSize && component.density() >= knotDensity;
+        if (knot && !component.knot && service != null) {
+            listener.onKnot(service, size, component.internalEdges, component.density());
+        }
+        component.knot = knot;
+    }
+
+    private static void decrement(Map<Component, Integer> edges, Component key) {
+        edges.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Receives cycles and knots as edges create them. Only sizes are passed, so reporting stays cheap however
+     * large a component grows; use {@link #componentOf} for the members.
+     */
+    public interface Listener {
+        /**
+         * The edge {@code source -> destination} closed a cycle; their component now has {@code services} members.
+         */
+        void onCycle(String source, String destination, int services);
+
+        /**
+         * An edge from {@code service} made its component of {@code services} members dense enough to be a knot.
+         */
+        void onKnot(String service, int services, int edges, double density);
+    }
+
+    /**
+     * A strongly connected component of two or more services.
+     *
+     * @param density internal edges over the n(n-1) possible
+     */
+    public record CyclicComponent(List<String> services, int edges, double density) {
+    }
+
+    private static final class Node {
+        final String name;
+        final Set<Node> out = new HashSet<>();
+        final Set<Node> in = new HashSet<>();
+        Component component;
+        int tarjanMark;
+        int index;
+        int lowLink;
+        boolean onStack;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Component {
+        final List<Node> members = new ArrayList<>();
+        final List<Long> absorbedOrds = new ArrayList<>();
+        Map<Component, Integer> out = new HashMap<>();
+        Map<Component, Integer> in = new HashMap<>();
+        long ord;
+        int internalEdges;
+        boolean knot;
+        int forwardMark;
+        int backwardMark;
+        int mergeMark;
+
+        Component(long ord) {
+            this.ord = ord;
+        }
+
+        int weight() {
+            return members.size() + out.size() + in.size();
+        }
+
+        double density() {
+            int size = members.size();
+            return size < 2 ? 0 : (double) internalEdges / ((long) size * (size - 1));
+        }
+
+        List<String> names() {
+            List<String> names = new ArrayList<>(members.size());
+            for (Node node : members) {
+                names.add(node.name);
+            }
+            names.sort(null);
+            return names;
+        }
+
+        CyclicComponent describe() {
+            return new CyclicComponent(names(), internalEdges, density());
+        }
+    }
+}
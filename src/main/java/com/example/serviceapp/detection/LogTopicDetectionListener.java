@@ -0,0 +1,23 @@
+package com.example.serviceapp.detection;
+
+import com.example.loggingwrapper.LogEvent;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Feeds every event on {@code logs-topic} to the {@link AntiPatternDetector}.
+ */
+public class LogTopicDetectionListener {
+    private final AntiPatternDetector detector;
+
+    public LogTopicDetectionListener(AntiPatternDetector detector) {
+        this.detector = detector;
+    }
+
+    @KafkaListener(topics = "logs-topic", containerFactory = "logEventListenerContainerFactory")
+    public void onLogEvent(LogEvent event) {
+        // Dictionary updates and undecodable records arrive as null
+        if (event != null) {
+            detector.accept(event);
+        }
+    }
+}
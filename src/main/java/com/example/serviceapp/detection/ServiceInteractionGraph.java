@@ -0,0 +1,152 @@
+package com.example.serviceapp.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sliding-window graph of which service called which, built from the call events in {@code logs-topic}.
+ * <p>
+ * An edge lives for one window after the last call over it; each carries a {@link WindowedCounter} of its calls.
+ * At most {@code maxEdges} edges are kept: when a new edge would exceed that, the one idle the longest is dropped,
+ * so memory is bounded however many services show up. An {@link EdgeListener} hears about every edge as it
+ * appears and disappears, so derived indexes can follow the graph incrementally. Not thread-safe.
+ */
+public class ServiceInteractionGraph {
+    private final long windowMillis;
+    private final int buckets;
+    private final int maxEdges;
+    private final EdgeListener listener;
+    private final LinkedHashMap<Edge, EdgeState> edges = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> outgoing = new HashMap<>();
+    private final Map<String, Set<String>> incoming = new HashMap<>();
+    private long evictedEdges;
+
+    public ServiceInteractionGraph(long windowMillis, int buckets, int maxEdges) {
+        this(windowMillis, buckets, maxEdges, new EdgeListener() { });
+    }
+
+    public ServiceInteractionGraph(long windowMillis, int buckets, int maxEdges, EdgeListener listener) {
+        this.windowMillis = windowMillis;
+        this.buckets = buckets;
+        this.maxEdges = maxEdges;
+        this.listener = listener;
+    }
+
+    /**
+     * Records a call from {@code source} to {@code destination} at event time {@code timestamp}.
+     */
+    public void addCall(String source, String destination, long timestamp) {
+        Edge edge = new Edge(source, destination);
+        EdgeState state = edges.get(edge);
+        if (state == null) {
+            if (edges.size() >= maxEdges) {
+                Iterator<Map.Entry<Edge, EdgeState>> eldest = edges.entrySet().iterator();
+                unlink(eldest.next().getKey());
+                eldest.remove();
+                evictedEdges++;
+            }
+            state = new EdgeState(new WindowedCounter(buckets, Math.max(1, windowMillis / buckets)));
+            edges.put(edge, state);
+            outgoing.computeIfAbsent(source, s -> new HashSet<>()).add(destination);
+            incoming.computeIfAbsent(destination, d -> new HashSet<>()).add(source);
+            listener.edgeAdded(source, destination);
+        }
+        state.calls.add(timestamp);
+        state.lastSeen = Math.max(state.lastSeen, timestamp);
+    }
+
+    /**
+     * Drops every edge with no calls in the window ending at {@code now}.
+     */
+    public void expire(long now) {
+        // Access order puts the longest-idle edges first
+        Iterator<Map.Entry<Edge, EdgeState>> iterator = edges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Edge, EdgeState> entry = iterator.next();
+            if (now - entry.getValue().lastSeen < windowMillis) {
+                break;
+            }
+            unlink(entry.getKey());
+            iterator.remove();
+        }
+    }
+
+    public int outDegree(String service) {
+        Set<String> destinations = outgoing.get(service);
+        return destinations == null ? 0 : destinations.size();
+    }
+
+    public int inDegree(String service) {
+        Set<String> sources = incoming.get(service);
+        return sources == null ? 0 : sources.size();
+    }
+
+    public int getEdgeCount() {
+        return edges.size();
+    }
+
+    public long getEvictedEdgeCount() {
+        return evictedEdges;
+    }
+
+    /**
+     * Every live edge with its call count over the window ending at {@code now}.
+     */
+    public List<WeightedEdge> edges(long now) {
+        List<WeightedEdge> result = new ArrayList<>(edges.size());
+        // Iterate the entry set: lookups through get() would reorder an access-ordered map
+        for (Map.Entry<Edge, EdgeState> entry : edges.entrySet()) {
+            Edge edge = entry.getKey();
+            result.add(new WeightedEdge(edge.source(), edge.destination(), entry.getValue().calls.sum(now)));
+        }
+        return result;
+    }
+
+    private void unlink(Edge edge) {
+        removeNeighbour(outgoing, edge.source(), edge.destination());
+        removeNeighbour(incoming, edge.destination(), edge.source());
+        listener.edgeRemoved(edge.source(), edge.destination());
+    }
+
+    private static void removeNeighbour(Map<String, Set<String>> adjacency, String service, String neighbour) {
+        Set<String> neighbours = adjacency.get(service);
+        if (neighbours != null && neighbours.remove(neighbour) && neighbours.isEmpty()) {
+            adjacency.remove(service);
+        }
+    }
+
+    private record Edge(String source, String destination) {
+    }
+
+    private static final class EdgeState {
+        final WindowedCounter calls;
+        long lastSeen = Long.MIN_VALUE;
+
+        EdgeState(WindowedCounter calls) {
+            this.calls = calls;
+        }
+    }
+
+    /**
+     * Told when an edge enters the graph and when it expires or is evicted.
+     */
+    public interface EdgeListener {
+        default void edgeAdded(String source, String destination) {
+        }
+
+        default void edgeRemoved(String source, String destination) {
+        }
+    }
+
+    /**
+     * A call edge and how many calls went over it in the current window.
+     */
+    public record WeightedEdge(String source, String destination, long calls) {
+    }
+}
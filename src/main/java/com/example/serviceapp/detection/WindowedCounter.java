@@ -0,0 +1,53 @@
+package com.example.serviceapp.detection;
+
+/**
+ * Event count over a sliding window, kept as a ring of fixed-width time buckets.
+ * <p>
+ * Counts age out one bucket at a time, so the window is accurate to a bucket width and the counter takes the
+ * same few words of memory however many events it sees. Time is the caller's (event time), and only ever moves
+ * forward; late events still count if their bucket is inside the window. Not thread-safe.
+ */
+final class WindowedCounter {
+    private final long[] buckets;
+    private final long bucketMillis;
+    private long newestBucket = Long.MIN_VALUE;
+
+    WindowedCounter(int bucketCount, long bucketMillis) {
+        this.buckets = new long[bucketCount];
+        this.bucketMillis = bucketMillis;
+    }
+
+    void add(long timestamp) {
+        long bucket = timestamp / bucketMillis;
+        advanceTo(bucket);
+        if (bucket > newestBucket - buckets.length) {
+            buckets[slot(bucket)]++;
+        }
+    }
+
+    long sum(long now) {
+        advanceTo(now / bucketMillis);
+        long sum = 0;
+        for (long count : buckets) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private void advanceTo(long bucket) {
+        if (newestBucket == Long.MIN_VALUE) {
+            newestBucket = bucket;
+            return;
+        }
+        // Zero the buckets that fall out of the window as it slides forward
+        long steps = Math.min(bucket - newestBucket, buckets.length);
+        for (long i = 1; i <= steps; i++) {
+            buckets[slot(newestBucket + i)] = 0;
+        }
+        newestBucket = Math.max(newestBucket, bucket);
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.serviceapp.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Times every MVC handler into the {@link LatencyMetrics} recorder for its method and path pattern.
+ * <p>
+ * The clock starts when the handler is picked and stops once the response is complete, so asynchronous handlers
+ * are timed up to their final dispatch rather than until they return.
+ */
+public class EndpointLatencyInterceptor implements AsyncHandlerInterceptor {
+    private static final String RECORDER = EndpointLatencyInterceptor.class.getName() + ".recorder";
+    private static final String START = EndpointLatencyInterceptor.class.getName() + ".start";
+
+    private final LatencyMetrics metrics;
+
+    public EndpointLatencyInterceptor(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START) == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            LatencyRecorder recorder = metrics.endpoint(
+                    request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+            request.setAttribute(RECORDER, recorder);
+            request.setAttribute(START, recorder.start());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(START) instanceof Long start
+                && request.getAttribute(RECORDER) instanceof LatencyRecorder recorder) {
+            request.removeAttribute(START);
+            request.removeAttribute(RECORDER);
+            recorder.stop(start);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.serviceapp.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link LatencyRecorder}s of every simulator endpoint and every downstream hop, and their Prometheus text
+ * exposition.
+ * <p>
+ * Recorders are created on first use and kept for the life of the application. Each family holds at most
+ * {@code maxSeries} of them; later names share one recorder named {@value #OTHER}, so hop URLs built from request
+ * input cannot grow the set without bound. Every recorder's in-flight count is also registered with Micrometer as
+ * {@code simulator.endpoint.in.flight} or {@code simulator.hop.in.flight}.
+ */
+public class LatencyMetrics {
+    static final String OTHER = "other";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    private final Duration window;
+    private final int maxSeries;
+    private final Family endpoints = new Family("endpoint");
+    private final Family hops = new Family("hop");
+
+    public LatencyMetrics(MeterRegistry meterRegistry, Duration window, int maxSeries) {
+        if (maxSeries < 1) {
+            throw new IllegalArgumentException("maxSeries must be positive");
+        }
+        this.meterRegistry = meterRegistry;
+        this.window = window;
+        this.maxSeries = maxSeries;
+    }
+
+    /** Recorder for a handler, named by HTTP method and path pattern, e.g. {@code GET /knot/start}. */
+    public LatencyRecorder endpoint(String name) {
+        return endpoints.recorder(name);
+    }
+
+    /** Recorder for an outgoing call, named by HTTP method and path, e.g. {@code GET /long-chain/middle1}. */
+    public LatencyRecorder hop(String name) {
+        return hops.recorder(name);
+    }
+
+    /**
+     * Appends every endpoint and hop as a Prometheus summary in seconds, with its max and in-flight gauges.
+     */
+    public void writeTo(StringBuilder out) {
+        endpoints.writeTo(out);
+        hops.writeTo(out);
+    }
+
+    /**
+     * Appends one sample in the Prometheus text format, with its {@code # TYPE} line when {@code type} is given.
+     */
+    static void sample(StringBuilder out, String type, String name, String labels, double value) {
+        if (type != null) {
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    private final class Family {
+        final String label;
+        final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+        Family(String label) {
+            this.label = label;
+        }
+
+        LatencyRecorder recorder(String name) {
+            LatencyRecorder recorder = recorders.get(name);
+            if (recorder != null) {
+                return recorder;
+            }
+            String key = recorders.size() < maxSeries ? name : OTHER;
+            return recorders.computeIfAbsent(key, this::create);
+        }
+
+        private LatencyRecorder create(String name) {
+            LatencyRecorder recorder = new LatencyRecorder(window);
+            Gauge.builder("simulator." + label + ".in.flight", recorder, LatencyRecorder::inFlight)
+                    .description("Calls currently in progress")
+                    .tag(label, name)
+                    .register(meterRegistry);
+            return recorder;
+        }
+
+        void writeTo(StringBuilder out) {
+            String latency = "simulator_" + label + "_latency_seconds";
+            String max = latency + "_max";
+            String inFlight = "simulator_" + label + "_in_flight";
+            Map<String, LatencyRecorder.Snapshot> snapshots = new TreeMap<>();
+            recorders.forEach((name, recorder) -> snapshots.put(name, recorder.snapshot()));
+
+            out.append("# TYPE ").append(latency).append(" summary\n");
+            snapshots.forEach((name, snapshot) -> {
+                String series = label(label, name);
+                for (double quantile : QUANTILES) {
+                    sample(out, null, latency, series + ',' + label("quantile", Double.toString(quantile)),
+                            snapshot.valueAt(quantile) / NANOS_PER_SECOND);
+                }
+                sample(out, null, latency + "_sum", series, snapshot.sumSeconds());
+                sample(out, null, latency + "_count", series, snapshot.count());
+            });
+            out.append("# TYPE ").append(max).append(" gauge\n");
+            snapshots.forEach((name, snapshot) ->
+                    sample(out, null, max, label(label, name), snapshot.maxNanos() / NANOS_PER_SECOND));
+            out.append("# TYPE ").append(inFlight).append(" gauge\n");
+            snapshots.forEach((name, snapshot) -> sample(out, null, inFlight, label(label, name), snapshot.inFlight()));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.serviceapp.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and in-flight count of one endpoint or hop, recorded without locks from any number of threads.
+ * <p>
+ * Each platform thread records into a {@link SingleWriterRecorder} of its own, an HdrHistogram with
+ * {@value #DIGITS} significant digits and microsecond resolution that grows to the largest value seen (about
+ * 14 KB, twice over, for a second). Reading swaps out every thread's interval histogram and adds it up, so writers
+ * never wait on readers or on each other. To bound memory, only the first {@code 2 * availableProcessors} threads
+ * get a recorder of their own; later threads, and virtual threads, which live for one task, share a lock-free
+ * {@link Recorder} instead. A thread's recorder is drained one last time and its slot freed once the thread has
+ * died.
+ * <p>
+ * Quantiles cover the current and the previous {@code window}, which turn by elapsed time: a read more than two
+ * windows after the last turn starts both afresh. Values are placed in the window in which they are read, so
+ * with reads at least once a window quantiles cover the last one to two windows; the first read after a longer
+ * gap covers everything since the read before. Count, sum and max cover everything recorded. The sum is taken
+ * from the histogram, so it is exact to the same {@value #DIGITS} digits.
+ */
+public class LatencyRecorder {
+    static final int DIGITS = 2;
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final int MAX_THREAD_RECORDERS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final long windowNanos;
+    private final ThreadLocal<SingleWriterRecorder> local = ThreadLocal.withInitial(this::register);
+    private final List<ThreadRecorder> threads = new CopyOnWriteArrayList<>();
+    private final Recorder shared = new Recorder(DIGITS);
+    private final LongAdder inFlight = new LongAdder();
+    private final Histogram interval = new Histogram(DIGITS);
+    private Histogram current = new Histogram(DIGITS);
+    private Histogram previous = new Histogram(DIGITS);
+    private long windowStart = System.nanoTime();
+    private long count;
+    private double sumNanos;
+    private long maxNanos;
+
+    public LatencyRecorder(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Counts one more call in flight and returns its start time for {@link #stop(long)}.
+     */
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends a call begun with {@link #start()} and records how long it took.
+     */
+    public void stop(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        inFlight.decrement();
+        record(elapsed);
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos) / NANOS_PER_MICRO;
+        SingleWriterRecorder recorder = Thread.currentThread().isVirtual() ? null : local.get();
+        if (recorder != null) {
+            recorder.recordValue(value);
+        } else {
+            shared.recordValue(value);
+        }
+    }
+
+    /**
+     * A recorder for the calling thread, or {@code null} to record into the shared one.
+     */
+    private SingleWriterRecorder register() {
+        synchronized (threads) {
+            if (threads.size() >= MAX_THREAD_RECORDERS) {
+                return null;
+            }
+            SingleWriterRecorder recorder = new SingleWriterRecorder(DIGITS);
+            threads.add(new ThreadRecorder(new WeakReference<>(Thread.currentThread()), recorder));
+            return recorder;
+        }
+    }
+
+    public long inFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * Turns the window if it has run out, folds in everything recorded since the last read and returns the
+     * totals and the current window.
+     */
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= 2 * windowNanos) {
+            previous.reset();
+            current.reset();
+            windowStart = now;
+        } else if (elapsed >= windowNanos) {
+            Histogram expired = previous;
+            previous = current;
+            current = expired;
+            current.reset();
+            windowStart += windowNanos;
+        }
+
+        for (ThreadRecorder thread : threads) {
+            Thread owner = thread.owner().get();
+            drain(thread.recorder());
+            if (owner == null || !owner.isAlive()) {
+                synchronized (threads) {
+                    threads.remove(thread);
+                }
+            }
+        }
+        drain(shared);
+
+        Histogram window = previous.copy();
+        window.add(current);
+        return new Snapshot(count, sumNanos, maxNanos, inFlight(), window);
+    }
+
+    private void drain(SingleWriterRecorder recorder) {
+        recorder.getIntervalHistogramInto(interval);
+        accumulate();
+    }
+
+    private void drain(Recorder recorder) {
+        recorder.getIntervalHistogramInto(interval);
+        accumulate();
+    }
+
+    private void accumulate() {
+        long intervalCount = interval.getTotalCount();
+        if (intervalCount == 0) {
+            return;
+        }
+        count += intervalCount;
+        sumNanos += interval.getMean() * intervalCount * NANOS_PER_MICRO;
+        maxNanos = Math.max(maxNanos, interval.getMaxValue() * NANOS_PER_MICRO);
+        current.add(interval);
+    }
+
+    /**
+     * Totals since start-up, in nanoseconds, and the histogram of the current window, in microseconds.
+     */
+    public record Snapshot(long count, double sumNanos, long maxNanos, long inFlight, Histogram window) {
+
+        /** Latency at {@code quantile} (0 to 1) over the window in nanoseconds, or 0 if nothing was recorded in it. */
+        public long valueAt(double quantile) {
+            return window.getTotalCount() == 0 ? 0 : window.getValueAtPercentile(quantile * 100) * NANOS_PER_MICRO;
+        }
+
+        public double sumSeconds() {
+            return sumNanos / TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+
+    private record ThreadRecorder(WeakReference<Thread> owner, SingleWriterRecorder recorder) {
+    }
+}
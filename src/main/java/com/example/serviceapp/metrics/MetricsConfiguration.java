@@ -0,0 +1,87 @@
+package com.example.serviceapp.metrics;
+
+import com.example.loggingwrapper.LogService;
+import com.example.loggingwrapper.TraceSampler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Wires {@link LatencyMetrics}: every MVC handler is timed by an {@link EndpointLatencyInterceptor}, and every
+ * {@code WebClient} call by a filter that names the hop after its method and path. The {@link LogService} counts
+ * are registered with Micrometer as {@code loggingwrapper.events.*}; {@link MetricsController} exposes it all.
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+    private static final String URI_TEMPLATE = WebClient.class.getName() + ".uriTemplate";
+
+    private final LatencyMetrics latencyMetrics;
+
+    public MetricsConfiguration(MeterRegistry meterRegistry, LogService logService,
+                                @Value("${metrics.latency.window:1m}") Duration window,
+                                @Value("${metrics.latency.max-series:500}") int maxSeries) {
+        this.latencyMetrics = new LatencyMetrics(meterRegistry, window, maxSeries);
+        bindLogCounters(meterRegistry, logService);
+    }
+
+    @Bean
+    public LatencyMetrics latencyMetrics() {
+        return latencyMetrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EndpointLatencyInterceptor(latencyMetrics));
+    }
+
+    @Bean
+    public WebClientCustomizer hopLatencyCustomizer() {
+        return builder -> builder.filter((request, next) -> {
+            LatencyRecorder recorder = latencyMetrics.hop(hopName(request));
+            return Mono.defer(() -> {
+                long start = recorder.start();
+                return next.exchange(request).doFinally(signal -> recorder.stop(start));
+            });
+        });
+    }
+
+    /**
+     * Method and path of {@code request}, from its URI template when there is one, without base URL or query.
+     */
+    private static String hopName(ClientRequest request) {
+        String path = request.attribute(URI_TEMPLATE).map(String.class::cast).orElse(request.url().getRawPath());
+        int scheme = path.indexOf("://");
+        int start = scheme < 0 ? 0 : path.indexOf('/', scheme + 3);
+        int query = path.indexOf('?');
+        int end = query < 0 ? path.length() : query;
+        return request.method().name() + " " + (start < 0 || start >= end ? "/" : path.substring(start, end));
+    }
+
+    private static void bindLogCounters(MeterRegistry meterRegistry, LogService logService) {
+        FunctionCounter.builder("loggingwrapper.events.sent", logService, LogService::sentCount)
+                .description("Log records acknowledged by the log topic")
+                .register(meterRegistry);
+        FunctionCounter.builder("loggingwrapper.events.failed", logService, LogService::failedCount)
+                .description("Log record sends that failed, including retried ones")
+                .register(meterRegistry);
+        FunctionCounter.builder("loggingwrapper.events.dropped", logService, LogService::droppedCount)
+                .description("Log events dropped by the full asynchronous pipeline or lost unshipped")
+                .register(meterRegistry);
+        TraceSampler sampler = logService.getSampler();
+        if (sampler != null) {
+            FunctionCounter.builder("loggingwrapper.events.sampled.out", sampler, TraceSampler::droppedCount)
+                    .description("Log events dropped with a trace the sampler did not keep")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.serviceapp.metrics;
+
+import com.example.loggingwrapper.LogService;
+import com.example.loggingwrapper.TraceSampler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes endpoint and hop latencies, in-flight calls and log shipping counts in the Prometheus text format.
+ */
+@RestController
+public class MetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final LatencyMetrics latencyMetrics;
+    private final LogService logService;
+
+    public MetricsController(LatencyMetrics latencyMetrics, LogService logService) {
+        this.latencyMetrics = latencyMetrics;
+        this.logService = logService;
+    }
+
+    /**
+     * Latency quantiles cover the last one to two {@code metrics.latency.window}s when scraped at least once a
+     * window, and only what was recorded since the previous scrape after a longer gap; counts cover the whole run.
+     * @curl curl -X GET "http://localhost:8081/scrape"
+     */
+    @GetMapping(value = "/scrape", produces = PROMETHEUS_TEXT)
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        latencyMetrics.writeTo(out);
+        LatencyMetrics.sample(out, "counter", "loggingwrapper_events_sent_total", "", logService.sentCount());
+        LatencyMetrics.sample(out, "counter", "loggingwrapper_events_failed_total", "", logService.failedCount());
+        LatencyMetrics.sample(out, "counter", "loggingwrapper_events_dropped_total", "", logService.droppedCount());
+        TraceSampler sampler = logService.getSampler();
+        if (sampler != null) {
+            LatencyMetrics.sample(out, "counter", "loggingwrapper_events_sampled_out_total", "",
+                    sampler.droppedCount());
+        }
+        return out.toString();
+    }
+}
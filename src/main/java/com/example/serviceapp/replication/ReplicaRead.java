@@ -0,0 +1,17 @@
+package com.example.serviceapp.replication;
+
+/**
+ * What a read from the replica returned, and how far it trails the primary.
+ *
+ * @param value          the replica's value, or {@code null} if no write for the key has been applied yet
+ * @param version        version of {@code value}, {@code 0} if none
+ * @param latestVersion  newest version the primary has accepted for the key, {@code 0} if none
+ * @param versionsBehind writes to the key that the primary has accepted but the replica has not applied yet
+ * @param ageMillis      time since {@code value} was written to the primary, {@code -1} if none
+ */
+public record ReplicaRead(String value, long version, long latestVersion, long versionsBehind, long ageMillis) {
+
+    public boolean isStale() {
+        return version < latestVersion;
+    }
+}
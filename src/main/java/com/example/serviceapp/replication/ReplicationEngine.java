@@ -0,0 +1,270 @@
+package com.example.serviceapp.replication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Simulated primary/replica pair with asynchronous, delayed replication.
+ * <p>
+ * Writes are versioned and acknowledged by the primary immediately; each is applied to the replica's
+ * {@link VersionedStore} after {@code eventual-consistency.replication.lag}, plus or minus a uniformly
+ * random {@code eventual-consistency.replication.jitter}. Delayed applies are queued on one scheduler thread,
+ * so the thread count does not depend on the write rate, and at most
+ * {@code eventual-consistency.replication.max-pending} writes may be waiting to replicate at any time.
+ * Keys are kept for the life of the engine, so at most {@code eventual-consistency.replication.max-keys} of them
+ * are accepted; writes to further keys are rejected.
+ * <p>
+ * Reads come in three strengths: {@link #read} returns whatever the replica has without ever waiting,
+ * {@link #readYourWrites} waits until a given write (a version token) is visible, and {@link #readBoundedStaleness}
+ * waits until every write older than a maximum age is visible. Waiting reads park nothing; they complete
+ * from the replication thread as soon as the write they need is applied.
+ */
+@Component
+public class ReplicationEngine implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationEngine.class);
+    /** Returned by {@link #write} when too many writes are waiting to replicate. */
+    public static final long BACKLOG_FULL = -1;
+    /** Returned by {@link #write} for a new key once {@code max-keys} keys exist. */
+    public static final long TOO_MANY_KEYS = -2;
+
+    private final long lagNanos;
+    private final long jitterNanos;
+    private final int maxPending;
+    private final int maxKeys;
+    private final VersionedStore replica = new VersionedStore();
+    private final ConcurrentMap<String, KeyState> keys = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public ReplicationEngine(@Value("${eventual-consistency.replication.lag:5s}") Duration lag,
+                             @Value("${eventual-consistency.replication.jitter:0s}") Duration jitter,
+                             @Value("${eventual-consistency.replication.max-pending:100000}") int maxPending,
+                             @Value("${eventual-consistency.replication.max-keys:10000}") int maxKeys) {
+        if (jitter.compareTo(lag) > 0) {
+            throw new IllegalArgumentException("Replication jitter " + jitter + " exceeds the lag " + lag);
+        }
+        this.lagNanos = lag.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.maxPending = maxPending;
+        this.maxKeys = maxKeys;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("replication").daemon().factory());
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Accepts a write on the primary and schedules it to reach the replica.
+     *
+     * @param onReplicated called on the replication thread once the write has been applied (or superseded)
+     * @return the write's version, usable as a read-your-writes token, or {@link #BACKLOG_FULL} if too many writes
+     * are already waiting to replicate, or {@link #TOO_MANY_KEYS} if {@code key} is new and there is no room for it
+     */
+    public long write(String key, String value, Consumer<Versioned> onReplicated) {
+        KeyState state = keys.get(key);
+        if (state == null) {
+            if (keys.size() >= maxKeys) {
+                return TOO_MANY_KEYS;
+            }
+            state = keys.computeIfAbsent(key, k -> new KeyState());
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            return BACKLOG_FULL;
+        }
+        Versioned write;
+        synchronized (state) {
+            // Versions are taken under the key's lock so its pending queue stays in version order
+            write = new Versioned(value, versions.incrementAndGet(), ++state.writes, System.currentTimeMillis());
+            state.pending.addLast(write);
+            state.latestVersion = write.version();
+            state.latestSequence = write.sequence();
+        }
+        KeyState written = state;
+        scheduler.schedule(() -> replicate(key, written, write, onReplicated), delayNanos(), TimeUnit.NANOSECONDS);
+        return write.version();
+    }
+
+    /**
+     * Eventual read: whatever the replica has right now. Never blocks or takes a lock.
+     */
+    public ReplicaRead read(String key) {
+        KeyState state = keys.get(key);
+        long latestVersion = state == null ? 0 : state.latestVersion;
+        long latestSequence = state == null ? 0 : state.latestSequence;
+        Versioned current = replica.get(key);
+        if (current == null) {
+            return new ReplicaRead(null, 0, latestVersion, latestSequence, -1);
+        }
+        return new ReplicaRead(current.value(), current.version(), Math.max(latestVersion, current.version()),
+                Math.max(0, latestSequence - current.sequence()),
+                System.currentTimeMillis() - current.writtenAtMillis());
+    }
+
+    /**
+     * Read that reflects every write to {@code key} up to and including version {@code token}.
+     * Completes exceptionally with a {@link java.util.concurrent.TimeoutException} after {@code maxWait}.
+     */
+    public CompletableFuture<ReplicaRead> readYourWrites(String key, long token, Duration maxWait) {
+        return readAfter(key, state -> state.requiredVersionUpTo(token), maxWait);
+    }
+
+    /**
+     * Read that reflects every write to {@code key} accepted more than {@code maxStaleness} ago.
+     * Completes exceptionally with a {@link java.util.concurrent.TimeoutException} after {@code maxWait}.
+     */
+    public CompletableFuture<ReplicaRead> readBoundedStaleness(String key, Duration maxStaleness, Duration maxWait) {
+        long cutoffMillis = System.currentTimeMillis() - maxStaleness.toMillis();
+        return readAfter(key, state -> state.requiredVersionWrittenBy(cutoffMillis), maxWait);
+    }
+
+    /**
+     * Writes accepted by the primary that have not reached the replica yet.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void destroy() {
+        int dropped = scheduler.shutdownNow().size();
+        if (dropped > 0) {
+            logger.info("Replication stopped with {} writes not yet applied", dropped);
+        }
+    }
+
+    private CompletableFuture<ReplicaRead> readAfter(String key, RequiredVersion requirement, Duration maxWait) {
+        KeyState state = keys.get(key);
+        if (state == null) {
+            return CompletableFuture.completedFuture(read(key));
+        }
+        Waiter waiter;
+        synchronized (state) {
+            long required = requirement.of(state);
+            if (required <= state.appliedVersion) {
+                waiter = null;
+            } else {
+                waiter = new Waiter(required, new CompletableFuture<>());
+                state.waiters.add(waiter);
+            }
+        }
+        if (waiter == null) {
+            return CompletableFuture.completedFuture(read(key));
+        }
+        waiter.ready().whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                synchronized (state) {
+                    state.waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter.ready()
+                .orTimeout(maxWait.toNanos(), TimeUnit.NANOSECONDS)
+                .thenApply(ignored -> read(key));
+    }
+
+    private void replicate(String key, KeyState state, Versioned write, Consumer<Versioned> onReplicated) {
+        pending.decrementAndGet();
+        replica.apply(key, write);
+        List<Waiter> ready = null;
+        synchronized (state) {
+            if (write.version() > state.appliedVersion) {
+                state.appliedVersion = write.version();
+                // Anything older is superseded now that a newer version is visible
+                while (!state.pending.isEmpty() && state.pending.peekFirst().version() <= state.appliedVersion) {
+                    state.pending.pollFirst();
+                }
+                for (Iterator<Waiter> it = state.waiters.iterator(); it.hasNext(); ) {
+                    Waiter waiter = it.next();
+                    if (waiter.version() <= state.appliedVersion) {
+                        it.remove();
+                        if (ready == null) {
+                            ready = new ArrayList<>();
+                        }
+                        ready.add(waiter);
+                    }
+                }
+            }
+        }
+        if (ready != null) {
+            ready.forEach(waiter -> waiter.ready().complete(null));
+        }
+        try {
+            onReplicated.accept(write);
+        } catch (RuntimeException e) {
+            logger.warn("Replication callback for version {} failed", write.version(), e);
+        }
+    }
+
+    private long delayNanos() {
+        return jitterNanos == 0 ? lagNanos
+                : lagNanos + ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1);
+    }
+
+    /**
+     * Replication bookkeeping for one key; everything but {@code latestVersion} and {@code latestSequence} is guarded
+     * by the instance.
+     */
+    private static final class KeyState {
+        private final ArrayDeque<Versioned> pending = new ArrayDeque<>();
+        private final List<Waiter> waiters = new ArrayList<>();
+        private long appliedVersion;
+        private long writes;
+        private volatile long latestVersion;
+        private volatile long latestSequence;
+
+        /**
+         * Newest pending version at or below {@code token}, or {@code 0} if none is pending.
+         */
+        private long requiredVersionUpTo(long token) {
+            long required = 0;
+            for (Versioned write : pending) {
+                if (write.version() > token) {
+                    break;
+                }
+                required = write.version();
+            }
+            return required;
+        }
+
+        /**
+         * Newest pending version written at or before {@code cutoffMillis}, or {@code 0} if none is pending.
+         */
+        private long requiredVersionWrittenBy(long cutoffMillis) {
+            long required = 0;
+            for (Versioned write : pending) {
+                if (write.writtenAtMillis() > cutoffMillis) {
+                    break;
+                }
+                required = write.version();
+            }
+            return required;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequiredVersion {
+        long of(KeyState state);
+    }
+
+    private record Waiter(long version, CompletableFuture<Void> ready) {
+    }
+}
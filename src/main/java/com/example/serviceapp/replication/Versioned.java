@@ -0,0 +1,11 @@
+package com.example.serviceapp.replication;
+
+/**
+ * A value as written to the primary, stamped with its write order and time.
+ *
+ * @param version         position of the write in the primary's global write order, starting at 1
+ * @param sequence        position of the write among the writes to its key, starting at 1
+ * @param writtenAtMillis when the primary accepted the write
+ */
+public record Versioned(String value, long version, long sequence, long writtenAtMillis) {
+}
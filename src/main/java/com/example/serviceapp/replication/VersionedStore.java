@@ -0,0 +1,27 @@
+package com.example.serviceapp.replication;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe key/value store that only ever moves a key forward in version.
+ * <p>
+ * Replicated writes can arrive out of order when replication lag is jittered; applying an older version
+ * after a newer one is a no-op, so the replica converges on the primary's last write.
+ */
+public class VersionedStore {
+    private final ConcurrentMap<String, Versioned> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @return {@code true} if {@code update} is now the key's value, {@code false} if a newer version was already there
+     */
+    public boolean apply(String key, Versioned update) {
+        Versioned result = entries.merge(key, update,
+                (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+        return result == update;
+    }
+
+    public Versioned get(String key) {
+        return entries.get(key);
+    }
+}
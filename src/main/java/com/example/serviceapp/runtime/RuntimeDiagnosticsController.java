@@ -0,0 +1,32 @@
+package com.example.serviceapp.runtime;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Exposes runtime diagnostics collected while the simulators run.
+ */
+@RestController
+@RequestMapping("/diagnostics")
+public class RuntimeDiagnosticsController {
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public RuntimeDiagnosticsController(ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    /**
+     * Carrier-thread pinning per call site; 404 unless virtual threads are enabled.
+     * @curl curl -X GET "http://localhost:8081/diagnostics/pinning"
+     */
+    @GetMapping("/pinning")
+    public ResponseEntity<List<VirtualThreadPinningMonitor.PinnedCallSite>> pinning() {
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        return monitor == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(monitor.snapshot());
+    }
+}
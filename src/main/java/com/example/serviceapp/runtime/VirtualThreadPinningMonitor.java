@@ -0,0 +1,116 @@
+package com.example.serviceapp.runtime;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects virtual threads that pin their carrier thread while running simulator code.
+ * <p>
+ * Active only with {@code spring.threads.virtual.enabled=true}. Streams the JFR
+ * {@code jdk.VirtualThreadPinned} event in-process and attributes each pin to the first
+ * application frame on the stack (e.g. {@code ServiceFanInController.overloadedService}), so the
+ * offending endpoint shows up in the log and in {@link #snapshot()}.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.example.";
+
+    private final Duration threshold;
+    private final Map<String, CallSite> callSites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${diagnostics.pinning.threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        logger.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Pinning observed so far, worst offenders first.
+     */
+    public List<PinnedCallSite> snapshot() {
+        return callSites.entrySet().stream()
+                .map(entry -> new PinnedCallSite(entry.getKey(), entry.getValue().blockingFrame,
+                        entry.getValue().count.sum(), Duration.ofNanos(entry.getValue().maxNanos.get()),
+                        Duration.ofNanos(entry.getValue().totalNanos.sum())))
+                .sorted(Comparator.comparing(PinnedCallSite::total).reversed())
+                .toList();
+    }
+
+    private void record(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String blockingFrame = frames.isEmpty() ? "unknown" : describe(frames.get(0));
+        String applicationFrame = frames.stream()
+                .filter(frame -> frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse(blockingFrame);
+
+        long nanos = event.getDuration().toNanos();
+        CallSite callSite = callSites.computeIfAbsent(applicationFrame, key -> new CallSite(blockingFrame));
+        callSite.count.increment();
+        callSite.totalNanos.add(nanos);
+        callSite.maxNanos.accumulate(nanos);
+
+        logger.warn("Virtual thread pinned its carrier for {} ms in {} (blocked in {})",
+                nanos / 1_000_000, applicationFrame, blockingFrame);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+    }
+
+    /**
+     * Aggregated pinning for one application call site.
+     */
+    public record PinnedCallSite(String callSite, String blockingFrame, long count, Duration max, Duration total) {
+    }
+
+    private static final class CallSite {
+        private final String blockingFrame;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private CallSite(String blockingFrame) {
+            this.blockingFrame = blockingFrame;
+        }
+    }
+}
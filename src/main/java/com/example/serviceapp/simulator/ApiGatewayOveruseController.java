@@ -1,58 +1,99 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.concurrency.BoundedExecutor;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simulates Improper API Gateway Usage - overloading the gateway with long-running requests.
+ * <p>
+ * The long-running work runs on the gateway's own {@link BoundedExecutor} ({@code api-gateway.executor.*})
+ * rather than the JVM-wide common pool, so it cannot starve unrelated async work. Once its threads are busy
+ * and its queue is full, further requests are turned away at once with a 503. Each response reports how long
+ * the request queued and how long it ran in the {@code X-Queue-Wait-Ms} and {@code X-Service-Time-Ms} headers.
  */
 @RestController
-public class ApiGatewayOveruseController {
+public class ApiGatewayOveruseController implements DisposableBean {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
+    private final BoundedExecutor executor;
 
-    public ApiGatewayOveruseController(LogService logService) {
+    public ApiGatewayOveruseController(LogService logService, TraceIdGenerator traceIdGenerator, MeterRegistry meterRegistry,
+                                       @Value("${api-gateway.executor.threads:16}") int threads,
+                                       @Value("${api-gateway.executor.queue-capacity:64}") int queueCapacity,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
+        Thread.Builder workerThread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        this.executor = new BoundedExecutor("api-gateway", threads, queueCapacity,
+                workerThread.name("api-gateway-", 0).factory());
+        this.executor.bindTo(meterRegistry);
     }
 
     /**
      * Simulate API Gateway overload scenario.
      *
-     * @curl curl -X GET "http://localhost:8081/api-gateway/overload?input=test"
+     * @curl curl -i -X GET "http://localhost:8081/api-gateway/overload?input=test"
      */
     @GetMapping("/api-gateway/overload")
-    public CompletableFuture<String> apiGatewayOverload(@RequestParam String input,
-                                                        @RequestHeader(value = "trace_id", required = false) String traceId,
-                                                        @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public CompletableFuture<ResponseEntity<String>> apiGatewayOverload(@RequestParam String input,
+                                                                        @RequestHeader(value = "trace_id", required = false) String traceId,
+                                                                        @RequestHeader(value = "span_id", required = false) String parentSpanId) {
 
         // Generate unique identifiers
-        final String finalTraceId = (traceId == null) ? UUID.randomUUID().toString() : traceId;
-        final String finalParentSpanId = (parentSpanId == null) ? UUID.randomUUID().toString() : parentSpanId;
-        final String finalSpanId = UUID.randomUUID().toString();
+        final String finalTraceId = (traceId == null) ? traceIdGenerator.newTraceId() : traceId;
+        final String finalParentSpanId = (parentSpanId == null) ? traceIdGenerator.newSpanId() : parentSpanId;
+        final String finalSpanId = traceIdGenerator.newSpanId();
 
-        return CompletableFuture.supplyAsync(() -> {
-            // Log request start with `102 Processing`
-            logService.log("api-gateway-service", "backend-processing-service", "processOverloadedRequest", "GET", input,
-                    102, null, finalTraceId, finalSpanId, finalParentSpanId);
+        try {
+            return executor.submit(() -> {
+                // Log request start with `102 Processing`
+                logService.log("api-gateway-service", "backend-processing-service", "processOverloadedRequest", "GET", input,
+                        102, null, finalTraceId, finalSpanId, finalParentSpanId);
+
+                try {
+                    Thread.sleep(3000); // Simulating long processing
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
 
-            try {
-                Thread.sleep(3000); // Simulating long processing
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+                String response = "API Gateway overloaded!";
 
-            String response = "API Gateway overloaded!";
+                // Log request completion with `200 OK`
+                logService.log("api-gateway-service", "backend-processing-service", "processOverloadedRequest", "GET", input,
+                        200, response, finalTraceId, finalSpanId, finalParentSpanId);
 
-            // Log request completion with `200 OK`
+                return response;
+            }).thenApply(timed -> ResponseEntity.ok()
+                    .header("X-Queue-Wait-Ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(timed.queueWaitNanos())))
+                    .header("X-Service-Time-Ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(timed.serviceNanos())))
+                    .body(timed.value()));
+        } catch (RejectedExecutionException e) {
+            String response = "API Gateway is saturated. Try again later.";
             logService.log("api-gateway-service", "backend-processing-service", "processOverloadedRequest", "GET", input,
-                    200, response, finalTraceId, finalSpanId, finalParentSpanId);
+                    503, response, finalTraceId, finalSpanId, finalParentSpanId);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "3")
+                    .body(response));
+        }
+    }
 
-            return response;
-        });
+    @Override
+    public void destroy() {
+        executor.shutdown();
     }
 }
@@ -1,45 +1,99 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
-import java.util.UUID;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Simulates Chatty Services - excessive back-and-forth communication between services.
+ * <p>
+ * {@code /chatty/start} makes one round trip per hop; {@code /chatty/start-batched} carries the same hops to
+ * {@code /chatty/batch} in a single round trip and produces the same per-hop 102/200 events. The chain length
+ * defaults to {@code chatty.hops} and can be overridden per request with {@code hops}, from 1 to {@value #MAX_HOPS}.
  */
 @RestController
 @RequestMapping("/chatty")
 public class ChattyServicesController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
+    private final int defaultHops;
+    private final String[] serviceNames;
     private static final int CHATTY_THRESHOLD = 15; // Must be greater than 10 to be detected
+    private static final int MAX_HOPS = 1000;
+    private static final String SERVICE_PREFIX = "chatty-service-";
 
-    public ChattyServicesController(LogService logService, WebClient.Builder webClientBuilder) {
+    public ChattyServicesController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder,
+                                    @Value("${chatty.hops:" + CHATTY_THRESHOLD + "}") int defaultHops) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
+        this.defaultHops = defaultHops;
+        this.serviceNames = new String[Math.max(CHATTY_THRESHOLD, defaultHops)];
+        for (int i = 0; i < serviceNames.length; i++) {
+            serviceNames[i] = SERVICE_PREFIX + i;
+        }
     }
 
     /**
-     * Starts chatty interactions.
+     * Starts chatty interactions. Returns 400 for a chain length outside 1-{@value #MAX_HOPS}.
      * @curl curl -X GET "http://localhost:8081/chatty/start?input=test"
      */
     @GetMapping("/start")
-    public String startChattyInteraction(@RequestParam String input,
-                                         @RequestHeader(value = "trace_id", required = false) String traceId,
-                                         @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+    public ResponseEntity<String> startChattyInteraction(@RequestParam String input,
+                                                         @RequestParam(required = false) Integer hops,
+                                                         @RequestHeader(value = "trace_id", required = false) String traceId,
+                                                         @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+        int threshold = hops == null ? defaultHops : hops;
+        if (threshold < 1 || threshold > MAX_HOPS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("chatty-service-0", "chatty-service-1", "startChattyInteraction", "GET", input,
                 102, null, traceId, spanId, parentSpanId);
 
-        String response = startChattyLoop(input, traceId, spanId, CHATTY_THRESHOLD);
+        String response = startChattyLoop(input, traceId, spanId, threshold);
 
         logService.log("chatty-service-0", null, "startChattyInteraction", "GET", input,
                 200, response, traceId, spanId, parentSpanId);
 
-        return response;
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts the same chatty interaction, but sends all hops to {@code /chatty/batch} in one round trip.
+     * Returns 400 for a chain length outside 1-{@value #MAX_HOPS}.
+     * @curl curl -X GET "http://localhost:8081/chatty/start-batched?input=test&hops=100"
+     */
+    @GetMapping("/start-batched")
+    public ResponseEntity<String> startBatchedChattyInteraction(@RequestParam String input,
+                                                                @RequestParam(required = false) Integer hops,
+                                                                @RequestHeader(value = "trace_id", required = false) String traceId,
+                                                                @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+        int threshold = hops == null ? defaultHops : hops;
+        if (threshold < 1 || threshold > MAX_HOPS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
+
+        logService.log("chatty-service-0", "chatty-service-1", "startChattyInteraction", "GET", input,
+                102, null, traceId, spanId, parentSpanId);
+
+        String response = startBatchedChattyLoop(input, traceId, spanId, threshold);
+
+        logService.log("chatty-service-0", null, "startChattyInteraction", "GET", input,
+                200, response, traceId, spanId, parentSpanId);
+
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -48,18 +102,75 @@ public class ChattyServicesController {
     private String startChattyLoop(String input, String traceId, String parentSpanId, int threshold) {
         String response = input;
         for (int i = 0; i < threshold; i++) {
-            String sourceService = "chatty-service-" + i;
-            String destinationService = (i + 1 < threshold) ? "chatty-service-" + (i + 1) : null; // End of flow
-            response = callChattyService(sourceService, destinationService, response, traceId, parentSpanId);
+            String sourceService = serviceName(i);
+            String destinationService = (i + 1 < threshold) ? serviceName(i + 1) : null; // End of flow
+            response = callChattyService(sourceService, destinationService, response, traceId, parentSpanId, threshold);
         }
         return response;
     }
 
+    /**
+     * Batched counterpart of {@link #startChattyLoop}: every hop that would have been a round trip is sent
+     * in one {@code /chatty/batch} request under a span allocated up front, and the caller-side 102/200
+     * events are logged from the batch result with the hop's own input and the times that hop started and
+     * finished. If the batch fails, or does not answer every hop, each hop is logged as failed over the
+     * whole round trip.
+     */
+    private String startBatchedChattyLoop(String input, String traceId, String parentSpanId, int threshold) {
+        List<BatchHop> hops = new ArrayList<>(threshold - 1);
+        for (int i = 1; i < threshold; i++) {
+            hops.add(new BatchHop(serviceName(i), traceIdGenerator.newSpanId()));
+        }
+
+        String response = input;
+        if (!hops.isEmpty()) {
+            long sentAt = System.currentTimeMillis();
+            List<HopResult> results = null;
+            String errorMessage = null;
+            try {
+                results = webClient.post()
+                        .uri("/chatty/batch")
+                        .header("trace_id", traceId)
+                        .bodyValue(new BatchRequest(input, threshold, hops))
+                        .retrieve()
+                        .bodyToMono(BatchResponse.class)
+                        .block()
+                        .hops();
+                if (results == null || results.size() != hops.size()) {
+                    errorMessage = "Batch answered " + (results == null ? 0 : results.size()) + " of "
+                            + hops.size() + " hops";
+                    results = null;
+                }
+            } catch (Exception e) {
+                errorMessage = "Failed to reach " + hops.get(0).service() + ": " + e.getMessage();
+            }
+            long receivedAt = System.currentTimeMillis();
+
+            // As in the unbatched loop, each hop's input is the previous hop's response
+            for (int i = 0; i < hops.size(); i++) {
+                HopResult result = results != null ? results.get(i) : null;
+                String hopResponse = result != null ? result.response() : errorMessage;
+                logHop(serviceName(i), hops.get(i), 102, response, null, traceId, parentSpanId,
+                        result != null ? result.startedAt() : sentAt);
+                logHop(serviceName(i), hops.get(i), result != null ? 200 : 500, response, hopResponse,
+                        traceId, parentSpanId, result != null ? result.finishedAt() : receivedAt);
+                response = hopResponse;
+            }
+        }
+
+        // The last service has nobody left to call
+        String lastService = serviceName(threshold - 1);
+        logService.log(lastService, null, "invokeChattyService", "GET", response,
+                102, null, traceId, traceIdGenerator.newSpanId(), parentSpanId);
+        return lastService + " reached the end of the chatty interaction.";
+    }
+
     /**
      * Simulates chatty communication between services.
      */
-    private String callChattyService(String source, String destination, String input, String traceId, String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+    private String callChattyService(String source, String destination, String input, String traceId, String parentSpanId,
+                                     int threshold) {
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log(source, destination, "invokeChattyService", "GET", input,
                 102, null, traceId, spanId, parentSpanId);
@@ -70,7 +181,7 @@ public class ChattyServicesController {
 
         try {
             String response = webClient.get()
-                    .uri("/chatty/" + destination + "?input=" + input)
+                    .uri("/chatty/" + destination + "?input=" + input + "&hops=" + threshold)
                     .header("trace_id", traceId)
                     .header("span_id", spanId)
                     .retrieve()
@@ -95,14 +206,41 @@ public class ChattyServicesController {
     @GetMapping("/{service}")
     public String genericChattyService(@PathVariable String service,
                                        @RequestParam String input,
+                                       @RequestParam(defaultValue = "" + CHATTY_THRESHOLD) int hops,
                                        @RequestHeader(value = "trace_id") String traceId,
                                        @RequestHeader(value = "span_id") String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+        return processChattyService(service, input, hops, traceId, parentSpanId);
+    }
+
+    /**
+     * Runs a whole chain of hops in one request, feeding each hop's response to the next as its input.
+     * Each hop is processed and logged exactly as {@code /chatty/{service}} would, under the parent span
+     * the caller allocated for it, and answered with the times it started and finished. Returns 400 for
+     * more than {@value #MAX_HOPS} hops.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse> batchChattyService(@RequestBody BatchRequest request,
+                                                            @RequestHeader(value = "trace_id") String traceId) {
+        if (request.hops() == null || request.hops().size() > MAX_HOPS) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<HopResult> results = new ArrayList<>(request.hops().size());
+        String input = request.input();
+        for (BatchHop hop : request.hops()) {
+            long startedAt = System.currentTimeMillis();
+            input = processChattyService(hop.service(), input, request.chainLength(), traceId, hop.parentSpanId());
+            results.add(new HopResult(input, startedAt, System.currentTimeMillis()));
+        }
+        return ResponseEntity.ok(new BatchResponse(results));
+    }
+
+    private String processChattyService(String service, String input, int hops, String traceId, String parentSpanId) {
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "processChattyService";
 
         // Determine the next destination
-        int serviceNumber = Integer.parseInt(service.replace("chatty-service-", ""));
-        String nextService = (serviceNumber + 1 < CHATTY_THRESHOLD) ? "chatty-service-" + (serviceNumber + 1) : null;
+        int serviceNumber = Integer.parseInt(service, SERVICE_PREFIX.length(), service.length(), 10);
+        String nextService = (serviceNumber + 1 < hops) ? serviceName(serviceNumber + 1) : null;
 
         logService.log(service, nextService, methodName, "GET", input,
                 102, null, traceId, spanId, parentSpanId);
@@ -114,4 +252,51 @@ public class ChattyServicesController {
 
         return response;
     }
+
+    private void logHop(String source, BatchHop hop, int httpStatus, String input, String response,
+                        String traceId, String parentSpanId, long timestamp) {
+        logService.log(logService.event()
+                .timestamp(timestamp)
+                .source(source)
+                .destination(hop.service())
+                .method(httpStatus == 500 ? "error" : "invokeChattyService")
+                .type("GET")
+                .request(input)
+                .httpStatus(httpStatus)
+                .response(response)
+                .traceId(traceId)
+                .spanId(hop.parentSpanId())
+                .parentSpanId(parentSpanId));
+    }
+
+    /**
+     * Name of the i-th chatty service; names within the configured chain length are built once and shared.
+     */
+    private String serviceName(int i) {
+        return i < serviceNames.length ? serviceNames[i] : SERVICE_PREFIX + i;
+    }
+
+    /**
+     * One hop of a batch: the service to run and the caller's span for the call into it.
+     */
+    public record BatchHop(String service, String parentSpanId) {
+    }
+
+    /**
+     * @param chainLength total length of the chain, used to tell each hop who comes next
+     */
+    public record BatchRequest(String input, int chainLength, List<BatchHop> hops) {
+    }
+
+    /**
+     * Response of one hop and when, in epoch milliseconds, it started and finished.
+     */
+    public record HopResult(String response, long startedAt, long finishedAt) {
+    }
+
+    /**
+     * Result of each hop, in request order.
+     */
+    public record BatchResponse(List<HopResult> hops) {
+    }
 }
@@ -1,19 +1,20 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
-
 /**
  * Simulates a Cyclic Dependency (Service A → B → C → A) with manual logging and timeouts.
  */
 @RestController
 public class CyclicDependencyController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
 
-    public CyclicDependencyController(LogService logService) {
+    public CyclicDependencyController(LogService logService, TraceIdGenerator traceIdGenerator) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
     }
 
     /**
@@ -24,10 +25,10 @@ public class CyclicDependencyController {
     @GetMapping("/cyclic/manual-log")
     public String manualLog(@RequestParam String input) {
 
-        String traceId = UUID.randomUUID().toString();
-        String spanA = UUID.randomUUID().toString();
-        String spanB = UUID.randomUUID().toString();
-        String spanC = UUID.randomUUID().toString();
+        String traceId = traceIdGenerator.newTraceId();
+        String spanA = traceIdGenerator.newSpanId();
+        String spanB = traceIdGenerator.newSpanId();
+        String spanC = traceIdGenerator.newSpanId();
 
         // ✅ Service A -> Service B (Start, response = null)
         logService.log("cyclic-service-A", "cyclic-service-B", "cycleStart", "GET", input,
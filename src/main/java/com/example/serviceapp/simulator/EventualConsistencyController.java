@@ -1,25 +1,44 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.replication.ReplicaRead;
+import com.example.serviceapp.replication.ReplicationEngine;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Simulates Eventual Consistency Pitfall - delayed data updates in distributed systems.
+ * <p>
+ * Writes are acknowledged straight away and reach the replica the reads are served from after the
+ * {@link ReplicationEngine}'s lag. Both take an optional {@code key} (default {@code latestData}). A write returns
+ * its version as {@code X-Version-Token}; reads report their staleness in the {@code X-Data-Version},
+ * {@code X-Latest-Version}, {@code X-Versions-Behind} and {@code X-Data-Age-Ms} response headers.
  */
 @RestController
 public class EventualConsistencyController {
+    private static final String DEFAULT_KEY = "latestData";
+
     private final LogService logService;
-    private final Map<String, String> database = new HashMap<>(); // Simulated database
+    private final TraceIdGenerator traceIdGenerator;
+    private final ReplicationEngine replication; // Simulated database
+    private final Duration maxWait;
 
-    public EventualConsistencyController(LogService logService) {
+    public EventualConsistencyController(LogService logService, TraceIdGenerator traceIdGenerator, ReplicationEngine replication,
+                                         @Value("${eventual-consistency.read.max-wait:10s}") Duration maxWait) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
+        this.replication = replication;
+        this.maxWait = maxWait;
     }
 
     /**
@@ -27,57 +46,120 @@ public class EventualConsistencyController {
      * @curl curl -X GET "http://localhost:8081/eventual-consistency/write?input=test"
      */
     @GetMapping("/eventual-consistency/write")
-    public String writeData(@RequestParam String input,
-                            @RequestHeader(value = "trace_id", required = false) String traceId,
-                            @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public ResponseEntity<String> writeData(@RequestParam String input,
+                                            @RequestParam(defaultValue = DEFAULT_KEY) String key,
+                                            @RequestHeader(value = "trace_id", required = false) String traceId,
+                                            @RequestHeader(value = "span_id", required = false) String parentSpanId) {
 
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         // Log the initial request with `102 Processing`
         logService.log("eventual-consistency-write-service", "database-service", "handleWriteRequest", "EVENT", input,
                 102, null, traceId, spanId, parentSpanId);
 
-        // Introduce artificial delay before updating database (simulating slow replication)
+        // Replicate after the configured lag (simulating slow replication)
         String finalTraceId = traceId;
-        new Thread(() -> {
-            try {
-                Thread.sleep(5000); // Simulating 5 seconds delay in data propagation
-                database.put("latestData", input);
-
+        long version = replication.write(key, input, applied ->
                 // Log after the delayed write with `200 OK`
                 logService.log("database-service", "eventual-consistency-write-service", "finalizeWrite", "EVENT", input,
-                        200, "Updated in DB", finalTraceId, spanId, parentSpanId);
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-
-        return "Write request received. Data will be available soon!";
+                        200, "Updated in DB", finalTraceId, spanId, parentSpanId));
+
+        if (version < 0) {
+            String response = version == ReplicationEngine.TOO_MANY_KEYS
+                    ? "Too many keys. Write to an existing key."
+                    : "Replication backlog is full. Try again later.";
+            logService.log("eventual-consistency-write-service", "database-service", "handleWriteRequest", "EVENT", input,
+                    503, response, traceId, spanId, parentSpanId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        }
+
+        return ResponseEntity.ok()
+                .header("X-Version-Token", Long.toString(version))
+                .body("Write request received. Data will be available soon!");
     }
 
     /**
      * Simulates a stale read before data consistency is achieved.
-     * @curl curl -X GET "http://localhost:8081/eventual-consistency/read"
+     * <p>
+     * {@code consistency} picks how fresh the read must be:
+     * <ul>
+     *     <li>{@code eventual} (default) - whatever the replica has; answered without waiting</li>
+     *     <li>{@code bounded-staleness} - reflects every write older than {@code maxStalenessMs}</li>
+     *     <li>{@code read-your-writes} - reflects the write whose {@code X-Version-Token} is sent back</li>
+     * </ul>
+     * Reads that cannot be satisfied within {@code eventual-consistency.read.max-wait} fail with 504.
+     * @curl curl -i -X GET "http://localhost:8081/eventual-consistency/read"
+     * @curl curl -i -X GET "http://localhost:8081/eventual-consistency/read?consistency=read-your-writes" -H "X-Version-Token: 1"
      */
     @GetMapping("/eventual-consistency/read")
-    public String readData(@RequestHeader(value = "trace_id", required = false) String traceId,
-                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public CompletableFuture<ResponseEntity<String>> readData(@RequestParam(defaultValue = DEFAULT_KEY) String key,
+                                                              @RequestParam(defaultValue = "eventual") String consistency,
+                                                              @RequestParam(defaultValue = "0") long maxStalenessMs,
+                                                              @RequestHeader(value = "X-Version-Token", required = false) Long versionToken,
+                                                              @RequestHeader(value = "trace_id", required = false) String traceId,
+                                                              @RequestHeader(value = "span_id", required = false) String parentSpanId) {
 
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         // Log the request to read data with `102 Processing`
         logService.log("eventual-consistency-read-service", "database-service", "handleReadRequest", "GET", "Fetch latest",
                 102, null, traceId, spanId, parentSpanId);
 
-        String response = database.getOrDefault("latestData", "Stale Data (Not Updated Yet)");
+        String finalTraceId = traceId;
+        switch (consistency) {
+            case "eventual":
+                // Fast path: no waiting, no locks, no asynchronous completion
+                return CompletableFuture.completedFuture(readResponse(replication.read(key), finalTraceId, spanId, parentSpanId));
+            case "read-your-writes":
+                if (versionToken == null) {
+                    return CompletableFuture.completedFuture(badRequest(
+                            "read-your-writes needs the X-Version-Token returned by the write.", traceId, spanId, parentSpanId));
+                }
+                return awaitRead(replication.readYourWrites(key, versionToken, maxWait), traceId, spanId, parentSpanId);
+            case "bounded-staleness":
+                return awaitRead(replication.readBoundedStaleness(key, Duration.ofMillis(maxStalenessMs), maxWait),
+                        traceId, spanId, parentSpanId);
+            default:
+                return CompletableFuture.completedFuture(badRequest(
+                        "Unknown consistency '" + consistency + "'.", traceId, spanId, parentSpanId));
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<String>> awaitRead(CompletableFuture<ReplicaRead> read,
+                                                                String traceId, String spanId, String parentSpanId) {
+        return read.handle((result, failure) -> {
+            if (failure == null) {
+                return readResponse(result, traceId, spanId, parentSpanId);
+            }
+            String response = "Replica did not catch up within " + maxWait.toMillis() + " ms.";
+            logService.log("eventual-consistency-read-service", "database-service", "handleReadRequest", "GET", "Fetch latest",
+                    504, response, traceId, spanId, parentSpanId);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(response);
+        });
+    }
+
+    private ResponseEntity<String> readResponse(ReplicaRead read, String traceId, String spanId, String parentSpanId) {
+        String response = read.value() != null ? read.value() : "Stale Data (Not Updated Yet)";
 
         // Log the response with `200 OK`
         logService.log("eventual-consistency-read-service", "database-service", "handleReadRequest", "GET", "Fetch latest",
                 200, response, traceId, spanId, parentSpanId);
 
-        return response;
+        return ResponseEntity.ok()
+                .header("X-Data-Version", Long.toString(read.version()))
+                .header("X-Latest-Version", Long.toString(read.latestVersion()))
+                .header("X-Versions-Behind", Long.toString(read.versionsBehind()))
+                .header("X-Data-Age-Ms", Long.toString(read.ageMillis()))
+                .body(response);
+    }
+
+    private ResponseEntity<String> badRequest(String response, String traceId, String spanId, String parentSpanId) {
+        logService.log("eventual-consistency-read-service", "database-service", "handleReadRequest", "GET", "Fetch latest",
+                400, response, traceId, spanId, parentSpanId);
+        return ResponseEntity.badRequest().body(response);
     }
 }
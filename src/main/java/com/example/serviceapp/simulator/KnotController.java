@@ -1,30 +1,31 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.UUID;
-
 /**
  * Simulates "The Knot" - A Tightly Coupled Set of Services.
  */
 @RestController
 public class KnotController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
 
-    public KnotController(LogService logService, WebClient.Builder webClientBuilder) {
+    public KnotController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
     }
 
     @GetMapping("/knot/start")
     public String startKnot(@RequestParam String input,
                             @RequestHeader(value = "trace_id", required = false) String traceId,
                             @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log("knot-service-A", "knot-service-B", "initiateKnot", "GET", input, 102, null, traceId, spanId, parentSpanId);
         logService.log("knot-service-A", "knot-service-C", "initiateKnot", "GET", input, 102, null, traceId, spanId, parentSpanId);
@@ -43,7 +44,7 @@ public class KnotController {
                               @RequestParam String input,
                               @RequestHeader("trace_id") String traceId,
                               @RequestHeader("span_id") String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+        String spanId = traceIdGenerator.newSpanId();
         String next1 = nextService(current, 1);
         String next2 = nextService(current, 2);
 
@@ -61,7 +62,7 @@ public class KnotController {
     }
 
     private String callService(String source, String input, String traceId, String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+        String spanId = traceIdGenerator.newSpanId();
 
         logService.log(source, "knot-service-B", "invokeKnotService", "GET", input, 102, null, traceId, spanId, parentSpanId);
         logService.log(source, "knot-service-C", "invokeKnotService", "GET", input, 102, null, traceId, spanId, parentSpanId);
@@ -1,10 +1,11 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Simulates a Long Service Chain - excessive intermediary services before a request is processed.
@@ -12,11 +13,27 @@ import java.util.UUID;
 @RestController
 public class LongServiceChainController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
 
-    public LongServiceChainController(LogService logService, WebClient.Builder webClientBuilder) {
+    // Per-hop method names and paths, derived once instead of with String.replace on every hop
+    private static final Map<String, String> METHOD_NAMES = Map.of(
+            "long-chain-middle1-service", "processmiddle1",
+            "long-chain-middle2-service", "processmiddle2",
+            "long-chain-middle3-service", "processmiddle3",
+            "long-chain-middle4-service", "processmiddle4",
+            "long-chain-middle5-service", "processmiddle5");
+    private static final Map<String, String> PATHS = Map.of(
+            "long-chain-middle2-service", "/long-chain/middle2?input=",
+            "long-chain-middle3-service", "/long-chain/middle3?input=",
+            "long-chain-middle4-service", "/long-chain/middle4?input=",
+            "long-chain-middle5-service", "/long-chain/middle5?input=",
+            "long-chain-end-service", "/long-chain/end?input=");
+
+    public LongServiceChainController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
     }
 
     /**
@@ -27,8 +44,8 @@ public class LongServiceChainController {
     public String startLongChain(@RequestParam String input,
                                  @RequestHeader(value = "trace_id", required = false) String traceId,
                                  @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "initiateLongChain";
 
         logService.log("long-chain-start-service", "long-chain-middle1-service", methodName, "GET", input,
@@ -90,7 +107,7 @@ public class LongServiceChainController {
     public String endService(@RequestParam String input,
                              @RequestHeader(value = "trace_id") String traceId,
                              @RequestHeader(value = "span_id") String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "finalizeLongChain";
 
         logService.log("long-chain-end-service", null, methodName, "GET", input,
@@ -108,14 +125,14 @@ public class LongServiceChainController {
      * Helper method to log and call the next service in the chain.
      */
     private String callNextService(String currentService, String nextService, String input, String traceId, String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
-        String methodName = "process" + currentService.replace("long-chain-", "").replace("-service", "");
+        String spanId = traceIdGenerator.newSpanId();
+        String methodName = METHOD_NAMES.get(currentService);
 
         logService.log(currentService, nextService, methodName, "GET", input,
                 102, null, traceId, spanId, parentSpanId);
 
         String response = webClient.get()
-                .uri("/long-chain/" + nextService.replace("long-chain-", "").replace("-service", "") + "?input=" + input)
+                .uri(PATHS.get(nextService) + input)
                 .header("trace_id", traceId)
                 .header("span_id", spanId)
                 .retrieve()
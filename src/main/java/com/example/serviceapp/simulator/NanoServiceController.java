@@ -1,11 +1,11 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.UUID;
 
 /**
  * Simulates a Nano Service - a microservice that is too small to be useful.
@@ -13,9 +13,11 @@ import java.util.UUID;
 @RestController
 public class NanoServiceController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
 
-    public NanoServiceController(LogService logService) {
+    public NanoServiceController(LogService logService, TraceIdGenerator traceIdGenerator) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
     }
 
     /**
@@ -26,8 +28,8 @@ public class NanoServiceController {
     public String nanoService(@RequestParam String input,
                               @RequestHeader(value = "trace_id", required = false) String traceId,
                               @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "executeNanoTask";
 
         // Log before processing with `102 Processing`
@@ -0,0 +1,137 @@
+package com.example.serviceapp.simulator;
+
+import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceContext;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking twin of {@link LongServiceChainController}: the same start, middle1..5, end chain, but every
+ * hop returns a {@link Mono} and composes the next call instead of blocking on it, so a request in flight
+ * holds no servlet thread while it waits on the hops below it.
+ * <p>
+ * Trace and parent span travel in the Reactor context as a {@link TraceContext} and are copied onto the
+ * outgoing headers by the WebClient filter, rather than being threaded through method arguments.
+ */
+@RestController
+@RequestMapping("/reactive-long-chain")
+public class ReactiveLongServiceChainController {
+    private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
+    private final WebClient webClient;
+
+    public ReactiveLongServiceChainController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder) {
+        this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.filter(TraceContext.propagation()).build();
+    }
+
+    /**
+     * Entry point of the reactive long service chain.
+     * @curl curl -X GET "http://localhost:8081/reactive-long-chain/start?input=test"
+     */
+    @GetMapping("/start")
+    public Mono<String> startLongChain(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id", required = false) String traceId,
+                                       @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        return callNextService("reactive-long-chain-start-service", "reactive-long-chain-middle1-service",
+                "initiateLongChain", "/reactive-long-chain/middle1?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    @GetMapping("/middle1")
+    public Mono<String> middleService1(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id") String traceId,
+                                       @RequestHeader(value = "span_id") String parentSpanId) {
+        return callNextService("reactive-long-chain-middle1-service", "reactive-long-chain-middle2-service",
+                "processmiddle1", "/reactive-long-chain/middle2?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    @GetMapping("/middle2")
+    public Mono<String> middleService2(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id") String traceId,
+                                       @RequestHeader(value = "span_id") String parentSpanId) {
+        return callNextService("reactive-long-chain-middle2-service", "reactive-long-chain-middle3-service",
+                "processmiddle2", "/reactive-long-chain/middle3?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    @GetMapping("/middle3")
+    public Mono<String> middleService3(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id") String traceId,
+                                       @RequestHeader(value = "span_id") String parentSpanId) {
+        return callNextService("reactive-long-chain-middle3-service", "reactive-long-chain-middle4-service",
+                "processmiddle3", "/reactive-long-chain/middle4?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    @GetMapping("/middle4")
+    public Mono<String> middleService4(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id") String traceId,
+                                       @RequestHeader(value = "span_id") String parentSpanId) {
+        return callNextService("reactive-long-chain-middle4-service", "reactive-long-chain-middle5-service",
+                "processmiddle4", "/reactive-long-chain/middle5?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    @GetMapping("/middle5")
+    public Mono<String> middleService5(@RequestParam String input,
+                                       @RequestHeader(value = "trace_id") String traceId,
+                                       @RequestHeader(value = "span_id") String parentSpanId) {
+        return callNextService("reactive-long-chain-middle5-service", "reactive-long-chain-end-service",
+                "processmiddle5", "/reactive-long-chain/end?input=", input)
+                .contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    /**
+     * Final service in the chain that actually processes the request.
+     */
+    @GetMapping("/end")
+    public Mono<String> endService(@RequestParam String input,
+                                   @RequestHeader(value = "trace_id") String traceId,
+                                   @RequestHeader(value = "span_id") String parentSpanId) {
+        return Mono.deferContextual(context -> {
+            TraceContext trace = TraceContext.from(context).orElseThrow();
+            String spanId = traceIdGenerator.newSpanId();
+            String methodName = "finalizeLongChain";
+
+            logService.log("reactive-long-chain-end-service", null, methodName, "GET", input,
+                    102, null, trace.traceId(), spanId, trace.spanId());
+
+            String response = "Final service processed the request.";
+
+            logService.log("reactive-long-chain-end-service", null, methodName, "GET", input,
+                    200, response, trace.traceId(), spanId, trace.spanId());
+
+            return Mono.just(response);
+        }).contextWrite(new TraceContext(traceId, parentSpanId).toContext());
+    }
+
+    /**
+     * Logs and calls the next service in the chain under a new span of the trace in the Reactor context.
+     */
+    private Mono<String> callNextService(String currentService, String nextService, String methodName,
+                                         String path, String input) {
+        return Mono.deferContextual(context -> {
+            TraceContext trace = TraceContext.from(context).orElseThrow();
+            String spanId = traceIdGenerator.newSpanId();
+
+            logService.log(currentService, nextService, methodName, "GET", input,
+                    102, null, trace.traceId(), spanId, trace.spanId());
+
+            return webClient.get()
+                    .uri(path + input)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .doOnNext(response -> logService.log(currentService, nextService, methodName, "GET", input,
+                            200, response, trace.traceId(), spanId, trace.spanId()))
+                    .doOnError(e -> logService.log(currentService, nextService, "error", "GET", input,
+                            500, e.getMessage(), trace.traceId(), spanId, trace.spanId()))
+                    .contextWrite(trace.withSpan(spanId).toContext());
+        });
+    }
+}
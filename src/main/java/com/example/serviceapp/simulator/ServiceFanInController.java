@@ -1,22 +1,65 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.serviceapp.concurrency.SingleFlight;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
-import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 /**
  * Simulates a Service Fan-in Overload - multiple services making requests to a single overloaded service.
+ * <p>
+ * The overloaded service sits behind an {@link AdaptiveConcurrencyLimiter} configured by the
+ * {@code fan-in.limiter.*} properties: calls beyond its current limit are shed with a 503 instead of
+ * parking yet another request thread, and the callers log and pass on that 503. The service itself does
+ * a second of work per call at up to {@code fan-in.overloaded.capacity} concurrent calls and slows down in
+ * proportion beyond that, so admitting more calls than it can take shows up in the latency the limiter sees,
+ * measured from the call's arrival. With
+ * {@code fan-in.coalescing.enabled=true} identical concurrent calls from the upstream services share
+ * one in-flight request; each caller still logs its own span around it. Coalescing is off by default since it
+ * hides the very overload this simulator is there to show; turn it on per run to compare.
  */
 @RestController
 public class ServiceFanInController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
-
-    public ServiceFanInController(LogService logService, WebClient.Builder webClientBuilder) {
+    private final AdaptiveConcurrencyLimiter overloadedLimiter;
+    private final SingleFlight<String, String> coalescing;
+    private final int overloadedCapacity;
+
+    public ServiceFanInController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${fan-in.limiter.initial-limit:20}") int initialLimit,
+                                  @Value("${fan-in.limiter.min-limit:1}") int minLimit,
+                                  @Value("${fan-in.limiter.max-limit:100}") int maxLimit,
+                                  @Value("${fan-in.limiter.tolerance:2.0}") double tolerance,
+                                  @Value("${fan-in.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${fan-in.coalescing.enabled:false}") boolean coalescingEnabled,
+                                  @Value("${fan-in.overloaded.capacity:10}") int overloadedCapacity) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
+        this.overloadedLimiter = new AdaptiveConcurrencyLimiter("/fan-in/overloaded",
+                initialLimit, minLimit, maxLimit, tolerance, backoffRatio);
+        this.overloadedLimiter.bindTo(meterRegistry);
+        this.overloadedCapacity = overloadedCapacity;
+        if (coalescingEnabled) {
+            this.coalescing = new SingleFlight<>("/fan-in/overloaded");
+            this.coalescing.bindTo(meterRegistry);
+        } else {
+            this.coalescing = null;
+        }
     }
 
     /**
@@ -24,23 +67,23 @@ public class ServiceFanInController {
      * @curl curl -X GET "http://localhost:8081/fan-in/service-a?input=test"
      */
     @GetMapping("/fan-in/service-a")
-    public String serviceA(@RequestParam String input,
-                           @RequestHeader(value = "trace_id", required = false) String traceId,
-                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public ResponseEntity<String> serviceA(@RequestParam String input,
+                                           @RequestHeader(value = "trace_id", required = false) String traceId,
+                                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
         return callOverloadedService("fan-in-service-a", input, traceId, parentSpanId);
     }
 
     @GetMapping("/fan-in/service-b")
-    public String serviceB(@RequestParam String input,
-                           @RequestHeader(value = "trace_id", required = false) String traceId,
-                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public ResponseEntity<String> serviceB(@RequestParam String input,
+                                           @RequestHeader(value = "trace_id", required = false) String traceId,
+                                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
         return callOverloadedService("fan-in-service-b", input, traceId, parentSpanId);
     }
 
     @GetMapping("/fan-in/service-c")
-    public String serviceC(@RequestParam String input,
-                           @RequestHeader(value = "trace_id", required = false) String traceId,
-                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+    public ResponseEntity<String> serviceC(@RequestParam String input,
+                                           @RequestHeader(value = "trace_id", required = false) String traceId,
+                                           @RequestHeader(value = "span_id", required = false) String parentSpanId) {
         return callOverloadedService("fan-in-service-c", input, traceId, parentSpanId);
     }
 
@@ -48,20 +91,40 @@ public class ServiceFanInController {
      * The overloaded service that receives too many requests.
      */
     @GetMapping("/fan-in/overloaded")
-    public String overloadedService(@RequestParam String input,
-                                    @RequestHeader(value = "trace_id") String traceId,
-                                    @RequestHeader(value = "span_id") String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+    public ResponseEntity<String> overloadedService(@RequestParam String input,
+                                                    @RequestHeader(value = "trace_id") String traceId,
+                                                    @RequestHeader(value = "span_id") String parentSpanId) {
+        long arrived = System.nanoTime();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "processOverloadedService";
 
-        // Log before processing with `102 Processing`
-        logService.log("fan-in-overloaded-service", null, methodName, "GET", input,
-                102, null, traceId, spanId, parentSpanId);
+        // Shed the call up front rather than queue it behind the ones already in flight
+        if (!overloadedLimiter.tryAcquire()) {
+            String response = "Overloaded service is at its concurrency limit of " + overloadedLimiter.getLimit() + ".";
+            logService.log("fan-in-overloaded-service", null, methodName, "GET", input,
+                    503, response, traceId, spanId, parentSpanId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        }
 
+        // The slot is released exactly once, whatever is thrown before the work completes
+        boolean completed = false;
         try {
-            Thread.sleep(1000); // Simulating slight delay in overloaded service
+            // Log before processing with `102 Processing`
+            logService.log("fan-in-overloaded-service", null, methodName, "GET", input,
+                    102, null, traceId, spanId, parentSpanId);
+            // A second of work, shared with the calls beyond the service's capacity
+            Thread.sleep(1000L * Math.max(overloadedCapacity, overloadedLimiter.getInFlight()) / overloadedCapacity);
+            completed = true;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            if (completed) {
+                overloadedLimiter.onSuccess(System.nanoTime() - arrived);
+            } else {
+                overloadedLimiter.onFailure();
+            }
         }
 
         String response = "Overloaded service processed the request.";
@@ -70,33 +133,65 @@ public class ServiceFanInController {
         logService.log("fan-in-overloaded-service", null, methodName, "GET", input,
                 200, response, traceId, spanId, parentSpanId);
 
-        return response;
+        return ResponseEntity.ok(response);
     }
 
     /**
      * Helper method to simulate multiple services calling the overloaded service.
      */
-    private String callOverloadedService(String sourceService, String input, String traceId, String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+    private ResponseEntity<String> callOverloadedService(String sourceService, String input, String traceId, String parentSpanId) {
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "invokeOverloadedService";
 
         // Log before making the request with `102 Processing`
         logService.log(sourceService, "fan-in-overloaded-service", methodName, "GET", input,
                 102, null, traceId, spanId, parentSpanId);
 
-        String response = webClient.get()
-                .uri("/fan-in/overloaded?input=" + input)
-                .header("trace_id", traceId)
-                .header("span_id", spanId)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        String response;
+        try {
+            response = fetchOverloaded("/fan-in/overloaded?input=" + input, traceId, spanId);
+        } catch (WebClientResponseException.ServiceUnavailable e) {
+            // The overloaded service shed this call; pass the 503 on instead of retrying into it
+            response = e.getResponseBodyAsString();
+            logService.log(sourceService, "fan-in-overloaded-service", methodName, "GET", input,
+                    503, response, traceId, spanId, parentSpanId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        }
 
         // Log after receiving the response with `200 OK`
         logService.log(sourceService, "fan-in-overloaded-service", methodName, "GET", input,
                 200, response, traceId, spanId, parentSpanId);
 
-        return response;
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Calls the overloaded service, sharing the call with any identical one already in flight when
+     * coalescing is enabled. A shared call carries the trace headers of the caller that started it.
+     */
+    private String fetchOverloaded(String path, String traceId, String spanId) {
+        if (coalescing == null) {
+            return requestOverloaded(path, traceId, spanId).block();
+        }
+        try {
+            return coalescing.execute(path, () -> requestOverloaded(path, traceId, spanId).toFuture()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Mono<String> requestOverloaded(String path, String traceId, String spanId) {
+        return webClient.get()
+                .uri(path)
+                .header("trace_id", traceId)
+                .header("span_id", spanId)
+                .retrieve()
+                .bodyToMono(String.class);
     }
 }
@@ -1,29 +1,50 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simulates a Service Fan-out Overload - a single service making excessive calls to multiple downstream services.
+ * <p>
+ * With {@code fan-out.mode=parallel} (default) the downstream calls are scattered concurrently and gathered
+ * in a stable order; {@code sequential} issues them one after another. Each call is bounded by
+ * {@code fan-out.call-timeout} and the whole fan-out by {@code fan-out.deadline}; calls that fail or run out
+ * of time contribute an error message instead of failing the request.
  */
 @RestController
 @RequestMapping("/fan-out")
 public class ServiceFanOutController {
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
     private final WebClient webClient;
+    private final boolean parallel;
+    private final Duration callTimeout;
+    private final Duration deadline;
+
+    private static final String[] DOWNSTREAM_SERVICES = {"service-a", "service-b", "service-c", "service-d"};
 
     // Simulated database to handle service responses
     private final Map<String, String> serviceResponses = new ConcurrentHashMap<>();
 
-    public ServiceFanOutController(LogService logService, WebClient.Builder webClientBuilder) {
+    public ServiceFanOutController(LogService logService, TraceIdGenerator traceIdGenerator, WebClient.Builder webClientBuilder,
+                                   @Value("${fan-out.mode:parallel}") String mode,
+                                   @Value("${fan-out.call-timeout:2s}") Duration callTimeout,
+                                   @Value("${fan-out.deadline:3s}") Duration deadline) {
         this.logService = logService;
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+        this.traceIdGenerator = traceIdGenerator;
+        this.webClient = webClientBuilder.build();
+        this.parallel = !"sequential".equalsIgnoreCase(mode);
+        this.callTimeout = callTimeout;
+        this.deadline = deadline;
     }
 
     /**
@@ -31,29 +52,32 @@ public class ServiceFanOutController {
      * @curl curl -X GET "http://localhost:8081/fan-out/service-main?input=test"
      */
     @GetMapping("/service-main")
-    public String serviceMain(@RequestParam String input,
-                              @RequestHeader(value = "trace_id", required = false) String traceId,
-                              @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
-        String spanId = UUID.randomUUID().toString();
+    public Mono<String> serviceMain(@RequestParam String input,
+                                    @RequestHeader(value = "trace_id", required = false) String traceId,
+                                    @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
+        final String finalTraceId = traceId; // Ensure final variable for reactive lambda
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "executeFanOut";
 
         logService.log("fan-out-main-service", "fan-out-multiple-services", methodName, "GET", input,
-                102, null, traceId, spanId, parentSpanId);
-
-        // Handling multiple downstream service calls
-        String[] downstreamServices = {"service-a", "service-b", "service-c", "service-d"};
-        StringBuilder finalResponse = new StringBuilder("Fan-out responses: ");
-
-        for (String service : downstreamServices) {
-            finalResponse.append(callDownstreamService(service, input, traceId, spanId)).append(", ");
-        }
-
-        String response = finalResponse.toString().replaceAll(", $", ""); // Remove trailing comma
-        logService.log("fan-out-main-service", "fan-out-multiple-services", methodName, "GET", input,
-                200, response, traceId, spanId, parentSpanId);
-
-        return response;
+                102, null, finalTraceId, spanId, parentSpanId);
+
+        // Scatter the downstream calls and gather their results in declaration order
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Flux<String> downstreamServices = Flux.fromArray(DOWNSTREAM_SERVICES);
+        Flux<String> responses = parallel
+                ? downstreamServices.flatMapSequential(service ->
+                        callDownstreamService(service, input, finalTraceId, spanId, deadlineNanos), DOWNSTREAM_SERVICES.length)
+                : downstreamServices.concatMap(service ->
+                        callDownstreamService(service, input, finalTraceId, spanId, deadlineNanos));
+
+        return responses.collectList().map(results -> {
+            String response = "Fan-out responses: " + String.join(", ", results);
+            logService.log("fan-out-main-service", "fan-out-multiple-services", methodName, "GET", input,
+                    200, response, finalTraceId, spanId, parentSpanId);
+            return response;
+        });
     }
 
     /**
@@ -65,7 +89,7 @@ public class ServiceFanOutController {
                                  @RequestParam String input,
                                  @RequestHeader(value = "trace_id") String traceId,
                                  @RequestHeader(value = "span_id") String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "processDownstreamService";
 
         logService.log(service, null, methodName, "GET", input,
@@ -89,33 +113,41 @@ public class ServiceFanOutController {
     }
 
     /**
-     * Simulates calling a downstream service.
+     * Simulates calling a downstream service. Never fails: errors and timeouts become the hop's response.
      */
-    private String callDownstreamService(String service, String input, String traceId, String parentSpanId) {
-        String spanId = UUID.randomUUID().toString();
-        String methodName = "invokeDownstreamService";
-
-        logService.log("fan-out-main-service", service, methodName, "GET", input,
-                102, null, traceId, spanId, parentSpanId);
+    private Mono<String> callDownstreamService(String service, String input, String traceId, String parentSpanId,
+                                               long deadlineNanos) {
+        return Mono.defer(() -> {
+            String spanId = traceIdGenerator.newSpanId();
+            String methodName = "invokeDownstreamService";
 
-        try {
-            String response = webClient.get()
+            logService.log("fan-out-main-service", service, methodName, "GET", input,
+                    102, null, traceId, spanId, parentSpanId);
+
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                String errorMessage = "Failed to reach " + service + ": fan-out deadline exceeded";
+                logService.log("fan-out-main-service", service, "error", "GET", input,
+                        500, errorMessage, traceId, spanId, parentSpanId);
+                return Mono.just(errorMessage);
+            }
+            Duration timeout = callTimeout.toNanos() < remainingNanos ? callTimeout : Duration.ofNanos(remainingNanos);
+
+            return webClient.get()
                     .uri("/fan-out/" + service + "?input=" + input)
                     .header("trace_id", traceId)
                     .header("span_id", spanId)
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
-
-            logService.log("fan-out-main-service", service, methodName, "GET", input,
-                    200, response, traceId, spanId, parentSpanId);
-
-            return response;
-        } catch (Exception e) {
-            String errorMessage = "Failed to reach " + service + ": " + e.getMessage();
-            logService.log("fan-out-main-service", service, "error", "GET", input,
-                    500, errorMessage, traceId, spanId, parentSpanId);
-            return errorMessage;
-        }
+                    .timeout(timeout)
+                    .doOnNext(response -> logService.log("fan-out-main-service", service, methodName, "GET", input,
+                            200, response, traceId, spanId, parentSpanId))
+                    .onErrorResume(e -> {
+                        String errorMessage = "Failed to reach " + service + ": " + e.getMessage();
+                        logService.log("fan-out-main-service", service, "error", "GET", input,
+                                500, errorMessage, traceId, spanId, parentSpanId);
+                        return Mono.just(errorMessage);
+                    });
+        });
     }
 }
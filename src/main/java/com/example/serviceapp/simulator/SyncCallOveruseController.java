@@ -1,45 +1,86 @@
 package com.example.serviceapp.simulator;
 
 import com.example.loggingwrapper.LogService;
+import com.example.serviceapp.concurrency.WheelTimer;
+import com.example.serviceapp.trace.TraceIdGenerator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import java.time.Duration;
-import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Simulates Synchronous Call Overuse - excessive blocking requests.
+ * <p>
+ * A caller can bound its wait with an {@code X-Deadline-Ms} header (remaining budget in milliseconds); when it
+ * runs out first the request ends with a logged 504, and so does a request that outlives the server's async
+ * timeout. A caller that disconnects cancels the pending delay and is recorded with a 499 event, so abandoned
+ * requests show up in the logs. Tomcat only notices a disconnect on an HTTP/2 connection
+ * ({@code server.http2.enabled=true}); an HTTP/1.1 caller that leaves is bounded by its deadline instead.
+ * <p>
+ * Delays run on a hashed wheel timer by default ({@code sync-overuse.timer=wheel}) or on Reactor's parallel
+ * scheduler ({@code reactor}). Neither may block, so each delay hands its completion, and the logging that
+ * follows, over to Reactor's bounded elastic scheduler.
  */
 @RestController
-public class SyncCallOveruseController {
+public class SyncCallOveruseController implements DisposableBean {
+    private static final int CLIENT_CLOSED_REQUEST = 499;
+
     private final LogService logService;
+    private final TraceIdGenerator traceIdGenerator;
+    private final Duration delay;
+    private final WheelTimer wheelTimer;
+    private final Function<Duration, Mono<Long>> delays;
 
-    public SyncCallOveruseController(LogService logService) {
+    public SyncCallOveruseController(LogService logService, TraceIdGenerator traceIdGenerator,
+                                     @Value("${sync-overuse.delay:5s}") Duration delay,
+                                     @Value("${sync-overuse.timer:wheel}") String timer,
+                                     @Value("${sync-overuse.timer.tick:10ms}") Duration tick,
+                                     @Value("${sync-overuse.timer.ticks-per-wheel:512}") int ticksPerWheel) {
         this.logService = logService;
+        this.traceIdGenerator = traceIdGenerator;
+        this.delay = delay;
+        Function<Duration, Mono<Long>> timerDelays;
+        if ("reactor".equalsIgnoreCase(timer)) {
+            this.wheelTimer = null;
+            timerDelays = Mono::delay;
+        } else {
+            this.wheelTimer = new WheelTimer(tick, ticksPerWheel, Thread.ofPlatform().name("sync-overuse-timer").daemon().factory());
+            timerDelays = wheelTimer::delay;
+        }
+        this.delays = duration -> timerDelays.apply(duration).publishOn(Schedulers.boundedElastic());
     }
 
     /**
      * Simulate a long synchronous blocking call.
      *
-     * @curl curl -X GET "http://localhost:8081/sync-overuse/service?input=test"
+     * @curl curl -X GET "http://localhost:8081/sync-overuse/service?input=test" -H "X-Deadline-Ms: 2000"
      */
     @GetMapping("/sync-overuse/service")
-    public Mono<String> syncOverusedService(@RequestParam String input,
-                                            @RequestHeader(value = "trace_id", required = false) String traceId,
-                                            @RequestHeader(value = "span_id", required = false) String parentSpanId) {
-        if (traceId == null) traceId = UUID.randomUUID().toString();
+    public DeferredResult<ResponseEntity<String>> syncOverusedService(@RequestParam String input,
+                                                                      @RequestHeader(value = "X-Deadline-Ms", required = false) Long deadlineMillis,
+                                                                      @RequestHeader(value = "trace_id", required = false) String traceId,
+                                                                      @RequestHeader(value = "span_id", required = false) String parentSpanId) {
+        if (traceId == null) traceId = traceIdGenerator.newTraceId();
         final String finalTraceId = traceId; // Ensure final variable for reactive lambda
-        String spanId = UUID.randomUUID().toString();
+        String spanId = traceIdGenerator.newSpanId();
         String methodName = "detectSyncOveruse";
 
         // Log before delay with `102 Processing`
         logService.log("sync-overuse-handler", "database-service", methodName, "GET", input,
                 102, null, finalTraceId, spanId, parentSpanId);
 
-        return Mono.defer(() ->
-                Mono.delay(Duration.ofSeconds(5))
+        Mono<ResponseEntity<String>> work = Mono.defer(() ->
+                delays.apply(delay)
                         .map(ignored -> {
                             String response = "Synchronous Call Overuse detected!";
 
@@ -47,8 +88,48 @@ public class SyncCallOveruseController {
                             logService.log("sync-overuse-handler", "database-service", methodName, "GET", input,
                                     200, response, finalTraceId, spanId, parentSpanId);
 
-                            return response;
+                            return ResponseEntity.ok(response);
                         })
         );
+
+        if (deadlineMillis != null) {
+            work = work.timeout(delays.apply(Duration.ofMillis(Math.max(0, deadlineMillis))), Mono.fromSupplier(() -> {
+                String response = "Deadline of " + deadlineMillis + " ms exceeded.";
+                logService.log("sync-overuse-handler", "database-service", methodName, "GET", input,
+                        504, response, finalTraceId, spanId, parentSpanId);
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(response);
+            }));
+        }
+
+        // Spring MVC cancels a returned Mono only on async timeout, so the subscription is held here and disposed
+        // when the container reports the request as failed, timed out or finished. The work is only still pending
+        // on an error if the client left, and on a timeout if the async timeout ran out first.
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>();
+        Disposable subscription = work.subscribe(result::setResult, result::setErrorResult);
+        result.onError(e -> {
+            if (!subscription.isDisposed()) {
+                subscription.dispose();
+                logService.log("sync-overuse-handler", "database-service", methodName, "GET", input,
+                        CLIENT_CLOSED_REQUEST, "Client closed request", finalTraceId, spanId, parentSpanId);
+            }
+        });
+        result.onTimeout(() -> {
+            if (!subscription.isDisposed()) {
+                subscription.dispose();
+                String response = "Request timed out before the call finished.";
+                logService.log("sync-overuse-handler", "database-service", methodName, "GET", input,
+                        504, response, finalTraceId, spanId, parentSpanId);
+                result.setErrorResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(response));
+            }
+        });
+        result.onCompletion(subscription::dispose);
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (wheelTimer != null) {
+            wheelTimer.stop();
+        }
     }
 }
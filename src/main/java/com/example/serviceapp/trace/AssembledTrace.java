@@ -0,0 +1,21 @@
+package com.example.serviceapp.trace;
+
+import java.util.List;
+
+/**
+ * A trace rebuilt by the {@link TraceAssembler}: its span tree, its overall extent in event time and the span ids
+ * on its critical path, root first.
+ *
+ * @param complete whether every span seen has both a start and an end event
+ */
+public record AssembledTrace(String traceId, boolean complete, int spanCount, long startMillis, long endMillis,
+                             long durationMillis, List<String> criticalPath, List<SpanNode> roots) {
+
+    /**
+     * One span and its children, earliest first. Fields the assembler has not seen an event for are {@code null}.
+     */
+    public record SpanNode(String spanId, String parentSpanId, String service, String destination, String method,
+                           Integer httpStatus, Long startMillis, Long endMillis, Long durationMillis,
+                           boolean onCriticalPath, List<SpanNode> children) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.serviceapp.trace;
+
+import com.example.loggingwrapper.LogEvent;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Feeds every event on {@code logs-topic} to the {@link TraceAssembler}, in a consumer group of its own so it
+ * reads the topic independently of the detector.
+ */
+public class LogTopicTraceListener {
+    private final TraceAssembler assembler;
+
+    public LogTopicTraceListener(TraceAssembler assembler) {
+        this.assembler = assembler;
+    }
+
+    @KafkaListener(topics = "logs-topic", containerFactory = "logEventListenerContainerFactory",
+            groupId = "${trace.assembly.kafka.group-id:serviceapp-trace-assembler}")
+    public void onLogEvent(LogEvent event) {
+        // Dictionary updates and undecodable records arrive as null
+        if (event != null) {
+            assembler.accept(event);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.serviceapp.trace;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the name of the declaring handler method into a {@code String} parameter of a
+ * {@code @GetMapping} or {@code @KafkaListener} method.
+ * <p>
+ * The name comes from the handler's {@link java.lang.reflect.Method}, which Spring resolves once
+ * when it maps the handler, so logging the {@code method=} field costs nothing per request
+ * (unlike capturing {@code Thread.getStackTrace()}).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MethodName {
+}
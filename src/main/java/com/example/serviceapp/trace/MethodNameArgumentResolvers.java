@@ -0,0 +1,67 @@
+package com.example.serviceapp.trace;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.messaging.Message;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers {@link MethodName} resolution for both MVC handlers and Kafka listeners.
+ */
+@Configuration
+public class MethodNameArgumentResolvers implements WebMvcConfigurer, KafkaListenerConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new WebResolver());
+    }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        registrar.setCustomMethodArgumentResolvers(new MessagingResolver());
+    }
+
+    private static boolean supports(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(MethodName.class) && parameter.getParameterType() == String.class;
+    }
+
+    private static String methodName(MethodParameter parameter) {
+        return parameter.getExecutable().getName();
+    }
+
+    private static final class WebResolver implements HandlerMethodArgumentResolver {
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return supports(parameter);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+            return methodName(parameter);
+        }
+    }
+
+    private static final class MessagingResolver
+            implements org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver {
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return supports(parameter);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, Message<?> message) {
+            return methodName(parameter);
+        }
+    }
+}
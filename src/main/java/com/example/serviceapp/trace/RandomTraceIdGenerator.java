@@ -0,0 +1,50 @@
+package com.example.serviceapp.trace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fast, non-cryptographic generator of W3C Trace Context ids: 128-bit trace ids and 64-bit span ids,
+ * rendered as 32 and 16 lower-case hex characters (never all zeros), as used in {@code traceparent}.
+ * <p>
+ * Randomness comes from {@link ThreadLocalRandom}, so there is no contention and no
+ * {@code SecureRandom} on the request path; hex digits are written into a per-thread buffer.
+ */
+public class RandomTraceIdGenerator implements TraceIdGenerator {
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[32]);
+
+    @Override
+    public String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high;
+        long low;
+        do {
+            high = random.nextLong();
+            low = random.nextLong();
+        } while (high == 0 && low == 0);
+        byte[] buffer = BUFFERS.get();
+        hex(high, buffer, 0);
+        hex(low, buffer, 16);
+        return new String(buffer, 0, 32, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String newSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        byte[] buffer = BUFFERS.get();
+        hex(id, buffer, 0);
+        return new String(buffer, 0, 16, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void hex(long value, byte[] buffer, int offset) {
+        for (int i = offset + 15; i >= offset; i--) {
+            buffer[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.serviceapp.trace;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Queries recent spans by service and latency from the off-heap {@link SpanStore}.
+ */
+@RestController
+@RequestMapping("/spans")
+public class SpanQueryController {
+    private static final int MAX_LIMIT = 1000;
+    private static final long MAX_WINDOW_SECONDS = Duration.ofDays(1).toSeconds();
+
+    private final SpanStore spanStore;
+
+    public SpanQueryController(SpanStore spanStore) {
+        this.spanStore = spanStore;
+    }
+
+    /**
+     * Slowest spans of one service started within the last {@code windowSeconds}, optionally only those that took at
+     * least {@code minDurationMs}. Returns 400 for a limit outside 1-1000, a window outside 0-86400 seconds or a
+     * negative duration.
+     *
+     * @curl curl -X GET "http://localhost:8081/spans/slowest?service=fan-in-overloaded-service&windowSeconds=300&limit=100"
+     */
+    @GetMapping("/slowest")
+    public ResponseEntity<List<SpanStore.StoredSpan>> slowest(@RequestParam String service,
+                                                              @RequestParam(defaultValue = "300") long windowSeconds,
+                                                              @RequestParam(defaultValue = "0") long minDurationMs,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT || windowSeconds < 0 || windowSeconds > MAX_WINDOW_SECONDS || minDurationMs < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(spanStore.slowest(service, Duration.ofSeconds(windowSeconds),
+                Duration.ofMillis(minDurationMs), limit));
+    }
+}
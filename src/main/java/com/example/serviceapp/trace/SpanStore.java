@@ -0,0 +1,287 @@
+package com.example.serviceapp.trace;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Off-heap store of recently finished spans, for queries like "the slowest spans of one service over the last five
+ * minutes" without holding millions of span objects on the heap.
+ * <p>
+ * Spans are bucketed by start time into a ring of {@code partitions} partitions of {@code partitionWidth} each.
+ * Every partition is one direct {@link ByteBuffer} allocated up front and laid out in columns: start, duration,
+ * status, service id, a per-service back link, and fixed-width ASCII trace and span ids ({@value #ID_BYTES} bytes,
+ * enough for W3C and UUID ids; longer ids are cut). The back links chain each service's rows within a partition,
+ * newest first, from a small per-partition head table, so a service query only touches that service's rows.
+ * Eviction never frees individual spans: when time moves into a slot's next partition, the whole slot is reset
+ * and reused. Spans that arrive for a partition already rolled out, into a full partition, or for a service beyond
+ * {@code maxServices} are dropped and counted.
+ * <p>
+ * Time is event time: queries look back from the latest span start seen. Methods are synchronized.
+ */
+public class SpanStore implements MeterBinder {
+    static final int ID_BYTES = 36;
+
+    // Bytes per row taken by the columns before each one; column c of a partition starts at c * rowsPerPartition
+    private static final int START = 0;
+    private static final int DURATION = START + Long.BYTES;
+    private static final int STATUS = DURATION + Integer.BYTES;
+    private static final int SERVICE = STATUS + Short.BYTES;
+    private static final int PREVIOUS = SERVICE + Integer.BYTES;
+    private static final int TRACE_ID = PREVIOUS + Integer.BYTES;
+    private static final int SPAN_ID = TRACE_ID + ID_BYTES;
+    private static final int ROW_BYTES = SPAN_ID + ID_BYTES;
+    private static final int MAX_PARTITIONS = 1 << 8;
+    private static final int MAX_ROWS = 1 << 24;
+
+    private final long partitionMillis;
+    private final int rowsPerPartition;
+    private final int maxServices;
+    private final Partition[] partitions;
+    private final Map<String, Integer> serviceIds = new HashMap<>();
+    private final List<String> serviceNames = new ArrayList<>();
+    private long latest = Long.MIN_VALUE;
+    private long stored;
+    private long droppedLate;
+    private long droppedFull;
+    private long droppedServices;
+
+    public SpanStore(Duration partitionWidth, int partitions, int rowsPerPartition, int maxServices) {
+        if (partitions < 1 || partitions > MAX_PARTITIONS || rowsPerPartition < 1 || rowsPerPartition > MAX_ROWS) {
+            throw new IllegalArgumentException("Need 1-" + MAX_PARTITIONS + " partitions of 1-" + MAX_ROWS + " rows");
+        }
+        this.partitionMillis = Math.max(1, partitionWidth.toMillis());
+        this.rowsPerPartition = rowsPerPartition;
+        this.maxServices = maxServices;
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(ByteBuffer.allocateDirect(rowsPerPartition * ROW_BYTES));
+        }
+    }
+
+    /**
+     * Stores one finished span. Fits {@link TraceAssembler.SpanListener}.
+     */
+    public synchronized void add(String traceId, String spanId, String service, long startMillis, long durationMillis,
+                                 int httpStatus) {
+        long index = Math.floorDiv(startMillis, partitionMillis);
+        Partition partition = partitions[(int) Math.floorMod(index, (long) partitions.length)];
+        if (partition.index != index) {
+            if (partition.index > index) {
+                droppedLate++;
+                return;
+            }
+            partition.reset(index);
+        }
+        if (partition.rows == rowsPerPartition) {
+            droppedFull++;
+            return;
+        }
+        int serviceId = serviceId(service == null ? "unknown" : service);
+        if (serviceId < 0) {
+            droppedServices++;
+            return;
+        }
+        latest = Math.max(latest, startMillis);
+
+        int row = partition.rows++;
+        ByteBuffer columns = partition.columns;
+        columns.putLong(START * rowsPerPartition + row * Long.BYTES, startMillis);
+        columns.putInt(DURATION * rowsPerPartition + row * Integer.BYTES,
+                (int) Math.min(Integer.MAX_VALUE, Math.max(0, durationMillis)));
+        columns.putShort(STATUS * rowsPerPartition + row * Short.BYTES, (short) httpStatus);
+        columns.putInt(SERVICE * rowsPerPartition + row * Integer.BYTES, serviceId);
+        columns.putInt(PREVIOUS * rowsPerPartition + row * Integer.BYTES, partition.head(serviceId));
+        putId(columns, TRACE_ID * rowsPerPartition + row * ID_BYTES, traceId);
+        putId(columns, SPAN_ID * rowsPerPartition + row * ID_BYTES, spanId);
+        partition.heads[serviceId] = row;
+        stored++;
+    }
+
+    private int serviceId(String service) {
+        Integer id = serviceIds.get(service);
+        if (id == null) {
+            if (serviceIds.size() >= maxServices) {
+                return -1;
+            }
+            id = serviceIds.size();
+            serviceIds.put(service, id);
+            serviceNames.add(service);
+        }
+        return id;
+    }
+
+    /**
+     * Spans of {@code service} started within {@code window} of the latest span seen that took at least
+     * {@code minDuration}, slowest first, at most {@code limit} of them.
+     */
+    public synchronized List<StoredSpan> slowest(String service, Duration window, Duration minDuration, int limit) {
+        Integer serviceId = serviceIds.get(service);
+        if (serviceId == null || limit <= 0) {
+            return List.of();
+        }
+        long since;
+        try {
+            since = Math.subtractExact(latest, window.toMillis());
+        } catch (ArithmeticException e) {
+            // A window reaching back further than a long can count covers every partition
+            since = Long.MIN_VALUE;
+        }
+        long minMillis = minDuration.toMillis();
+        // Min-heap of the slowest rows so far: duration in the high half, partition slot and row in the low half
+        PriorityQueue<Long> slowest = new PriorityQueue<>(Math.min(limit, 1024) + 1);
+        for (int slot = 0; slot < partitions.length; slot++) {
+            Partition partition = partitions[slot];
+            if (partition.rows == 0 || (partition.index + 1) * partitionMillis <= since) {
+                continue;
+            }
+            ByteBuffer columns = partition.columns;
+            int previous = PREVIOUS * rowsPerPartition;
+            for (int row = partition.head(serviceId); row >= 0; row = columns.getInt(previous + row * Integer.BYTES)) {
+                int duration = columns.getInt(DURATION * rowsPerPartition + row * Integer.BYTES);
+                if (duration < minMillis || columns.getLong(START * rowsPerPartition + row * Long.BYTES) < since) {
+                    continue;
+                }
+                if (slowest.size() < limit || duration > (int) (slowest.peek() >>> 32)) {
+                    slowest.add(((long) duration << 32) | ((long) slot << 24) | row);
+                    if (slowest.size() > limit) {
+                        slowest.poll();
+                    }
+                }
+            }
+        }
+
+        StoredSpan[] spans = new StoredSpan[slowest.size()];
+        for (int i = spans.length - 1; i >= 0; i--) {
+            long packed = slowest.poll();
+            spans[i] = read(partitions[(int) (packed >>> 24) & (MAX_PARTITIONS - 1)], (int) packed & (MAX_ROWS - 1));
+        }
+        return Arrays.asList(spans);
+    }
+
+    private StoredSpan read(Partition partition, int row) {
+        ByteBuffer columns = partition.columns;
+        return new StoredSpan(
+                getId(columns, TRACE_ID * rowsPerPartition + row * ID_BYTES),
+                getId(columns, SPAN_ID * rowsPerPartition + row * ID_BYTES),
+                serviceNames.get(columns.getInt(SERVICE * rowsPerPartition + row * Integer.BYTES)),
+                columns.getLong(START * rowsPerPartition + row * Long.BYTES),
+                columns.getInt(DURATION * rowsPerPartition + row * Integer.BYTES),
+                columns.getShort(STATUS * rowsPerPartition + row * Short.BYTES));
+    }
+
+    private static void putId(ByteBuffer columns, int offset, String id) {
+        int length = id == null ? 0 : Math.min(id.length(), ID_BYTES);
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            columns.put(offset + i, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        if (length < ID_BYTES) {
+            columns.put(offset + length, (byte) 0);
+        }
+    }
+
+    private static String getId(ByteBuffer columns, int offset) {
+        byte[] id = new byte[ID_BYTES];
+        int length = 0;
+        while (length < ID_BYTES && (id[length] = columns.get(offset + length)) != 0) {
+            length++;
+        }
+        return length == 0 ? null : new String(id, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    public synchronized long getSpanCount() {
+        long spans = 0;
+        for (Partition partition : partitions) {
+            spans += partition.rows;
+        }
+        return spans;
+    }
+
+    public synchronized long getStoredCount() {
+        return stored;
+    }
+
+    public synchronized long getDroppedCount(DropReason reason) {
+        return switch (reason) {
+            case LATE -> droppedLate;
+            case FULL -> droppedFull;
+            case SERVICES -> droppedServices;
+        };
+    }
+
+    public long getCapacityBytes() {
+        return (long) partitions.length * rowsPerPartition * ROW_BYTES;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("span.store.stored", this, SpanStore::getStoredCount)
+                .description("Spans written to the off-heap span store")
+                .register(registry);
+        for (DropReason reason : DropReason.values()) {
+            FunctionCounter.builder("span.store.dropped", this, store -> store.getDroppedCount(reason))
+                    .description("Spans the span store turned away")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(registry);
+        }
+        Gauge.builder("span.store.spans", this, SpanStore::getSpanCount)
+                .description("Spans currently held by the span store")
+                .register(registry);
+        Gauge.builder("span.store.capacity", this, SpanStore::getCapacityBytes)
+                .description("Direct memory reserved by the span store")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Why a span was not stored: its partition had already rolled out, was full, or there were too many services.
+     */
+    public enum DropReason {
+        LATE, FULL, SERVICES
+    }
+
+    /**
+     * One span read back from the store. Ids longer than {@value #ID_BYTES} characters come back cut.
+     */
+    public record StoredSpan(String traceId, String spanId, String service, long startMillis, long durationMillis,
+                             int httpStatus) {
+    }
+
+    private static final class Partition {
+        final ByteBuffer columns;
+        int[] heads = new int[0];
+        long index = Long.MIN_VALUE;
+        int rows;
+
+        Partition(ByteBuffer columns) {
+            this.columns = columns;
+        }
+
+        void reset(long index) {
+            this.index = index;
+            this.rows = 0;
+            Arrays.fill(heads, -1);
+        }
+
+        int head(int serviceId) {
+            if (serviceId >= heads.length) {
+                int size = heads.length;
+                heads = Arrays.copyOf(heads, Math.max(16, Math.max(serviceId + 1, size * 2)));
+                Arrays.fill(heads, size, heads.length, -1);
+            }
+            return heads[serviceId];
+        }
+    }
+}
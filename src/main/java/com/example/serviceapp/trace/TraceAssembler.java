@@ -0,0 +1,380 @@
+package com.example.serviceapp.trace;
+
+import com.example.loggingwrapper.LogEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds span trees from the events the simulators write to {@code logs-topic}.
+ * <p>
+ * Each span is logged twice: a {@code 102 Processing} event when it starts and an event carrying its final status
+ * when it ends. The assembler pairs the two by span id, links spans to their parents within the trace, and moves a
+ * trace to the finished set as soon as every span it has seen has both ends. Traces that stay incomplete are
+ * finished anyway once they have been idle for {@code ttl} of event time, or earliest-idle first when the number
+ * of active traces or spans reaches its cap, and are reported with {@code complete=false}. Finished traces are
+ * kept up to a cap, least recently touched dropped first; a late event for one reopens it.
+ * <p>
+ * The per-event path is two hash lookups and a few field writes; trees, durations and critical paths are only
+ * built when a trace is queried. Each span is handed to the {@link SpanListener} as soon as it has both ends.
+ * Methods are synchronized; feed it from one thread and read it from any.
+ */
+public class TraceAssembler implements MeterBinder {
+    private static final int PROCESSING = 102;
+    private static final int MAX_SPANS_PER_TRACE = 1024;
+
+    private final long ttlMillis;
+    private final long sweepIntervalMillis;
+    private final Limits limits;
+    private final SpanListener listener;
+    private final LinkedHashMap<String, TraceBuilder> active = new LinkedHashMap<>(1024, 0.75f, true);
+    private final LinkedHashMap<String, TraceBuilder> finished = new LinkedHashMap<>(1024, 0.75f, true);
+    private long now = Long.MIN_VALUE;
+    private long lastSweep;
+    private long activeSpans;
+    private long events;
+    private long completed;
+    private long expired;
+    private long evicted;
+    private long reopened;
+
+    public TraceAssembler(Duration ttl, Limits limits) {
+        this(ttl, limits, (traceId, spanId, service, startMillis, durationMillis, httpStatus) -> {
+        });
+    }
+
+    public TraceAssembler(Duration ttl, Limits limits, SpanListener listener) {
+        this.ttlMillis = ttl.toMillis();
+        this.sweepIntervalMillis = Math.max(1, ttlMillis / 10);
+        this.limits = limits;
+        this.listener = listener;
+    }
+
+    /**
+     * Folds one log event into its trace. Events without a trace id, span id or status are ignored.
+     */
+    public synchronized void accept(LogEvent event) {
+        String traceId = event.getTraceId();
+        String spanId = event.getSpanId();
+        if (traceId == null || spanId == null || !event.hasHttpStatus()) {
+            return;
+        }
+        events++;
+        now = Math.max(now, event.getTimestamp());
+        if (now - lastSweep >= sweepIntervalMillis) {
+            sweep();
+        }
+
+        TraceBuilder trace = active.get(traceId);
+        if (trace == null) {
+            trace = activate(traceId);
+        }
+        trace.lastSeen = now;
+
+        SpanBuilder span = trace.spans.get(spanId);
+        if (span == null) {
+            if (trace.spans.size() >= MAX_SPANS_PER_TRACE) {
+                return;
+            }
+            span = new SpanBuilder(spanId);
+            trace.spans.put(spanId, span);
+            trace.pending++;
+            activeSpans++;
+        }
+        boolean wasComplete = span.isComplete();
+        if (event.getHttpStatus() == PROCESSING) {
+            span.start(event);
+        } else {
+            span.end(event);
+        }
+        if (!wasComplete && span.isComplete()) {
+            listener.spanFinished(traceId, spanId, span.service, span.startedAt, span.endedAt - span.startedAt,
+                    span.httpStatus);
+            if (--trace.pending == 0) {
+                completed++;
+            }
+        }
+        if (trace.pending == 0) {
+            finish(traceId, trace);
+        }
+        while (active.size() > limits.maxActiveTraces() || activeSpans > limits.maxActiveSpans()) {
+            evicted++;
+            finishEldest();
+        }
+    }
+
+    private TraceBuilder activate(String traceId) {
+        TraceBuilder trace = finished.remove(traceId);
+        if (trace == null) {
+            trace = new TraceBuilder(traceId);
+        } else {
+            reopened++;
+        }
+        active.put(traceId, trace);
+        activeSpans += trace.spans.size();
+        return trace;
+    }
+
+    private void finish(String traceId, TraceBuilder trace) {
+        active.remove(traceId);
+        activeSpans -= trace.spans.size();
+        finished.put(traceId, trace);
+        if (finished.size() > limits.maxFinishedTraces()) {
+            Iterator<TraceBuilder> eldest = finished.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void finishEldest() {
+        Map.Entry<String, TraceBuilder> eldest = active.entrySet().iterator().next();
+        finish(eldest.getKey(), eldest.getValue());
+    }
+
+    /**
+     * Finishes every active trace idle for at least the TTL. Runs at most ten times per TTL of event time.
+     */
+    private void sweep() {
+        lastSweep = now;
+        // Active traces are kept in access order, so the longest idle are first
+        while (!active.isEmpty()) {
+            Map.Entry<String, TraceBuilder> eldest = active.entrySet().iterator().next();
+            if (now - eldest.getValue().lastSeen < ttlMillis) {
+                break;
+            }
+            expired++;
+            finish(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * The span tree for {@code traceId}, active or finished, or {@code null} if the assembler does not hold it.
+     */
+    public synchronized AssembledTrace trace(String traceId) {
+        TraceBuilder trace = active.get(traceId);
+        if (trace == null) {
+            trace = finished.get(traceId);
+        }
+        return trace == null ? null : trace.build();
+    }
+
+    public synchronized long getEventCount() {
+        return events;
+    }
+
+    public synchronized int getActiveTraceCount() {
+        return active.size();
+    }
+
+    public synchronized long getActiveSpanCount() {
+        return activeSpans;
+    }
+
+    public synchronized int getFinishedTraceCount() {
+        return finished.size();
+    }
+
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    public synchronized long getExpiredCount() {
+        return expired;
+    }
+
+    public synchronized long getEvictedCount() {
+        return evicted;
+    }
+
+    public synchronized long getReopenedCount() {
+        return reopened;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("trace.assembly.events", this, TraceAssembler::getEventCount)
+                .description("Log events folded into traces")
+                .register(registry);
+        FunctionCounter.builder("trace.assembly.finished", this, TraceAssembler::getCompletedCount)
+                .description("Traces moved to the finished set, by reason")
+                .tag("reason", "complete")
+                .register(registry);
+        FunctionCounter.builder("trace.assembly.finished", this, TraceAssembler::getExpiredCount)
+                .description("Traces moved to the finished set, by reason")
+                .tag("reason", "ttl")
+                .register(registry);
+        FunctionCounter.builder("trace.assembly.finished", this, TraceAssembler::getEvictedCount)
+                .description("Traces moved to the finished set, by reason")
+                .tag("reason", "capacity")
+                .register(registry);
+        FunctionCounter.builder("trace.assembly.reopened", this, TraceAssembler::getReopenedCount)
+                .description("Finished traces reopened by a late event")
+                .register(registry);
+        Gauge.builder("trace.assembly.active.traces", this, TraceAssembler::getActiveTraceCount)
+                .description("Traces still waiting for spans to end")
+                .register(registry);
+        Gauge.builder("trace.assembly.active.spans", this, TraceAssembler::getActiveSpanCount)
+                .description("Spans held by active traces")
+                .register(registry);
+        Gauge.builder("trace.assembly.finished.traces", this, TraceAssembler::getFinishedTraceCount)
+                .description("Finished traces kept for queries")
+                .register(registry);
+    }
+
+    /**
+     * Told about every span once both its start and its end have been seen.
+     */
+    @FunctionalInterface
+    public interface SpanListener {
+        void spanFinished(String traceId, String spanId, String service, long startMillis, long durationMillis,
+                          int httpStatus);
+    }
+
+    /**
+     * Caps on the assembler's state. Reaching an active cap finishes the longest idle trace as incomplete;
+     * reaching the finished cap drops the least recently touched finished trace.
+     */
+    public record Limits(int maxActiveTraces, long maxActiveSpans, int maxFinishedTraces) {
+    }
+
+    private static final class TraceBuilder {
+        final String traceId;
+        final HashMap<String, SpanBuilder> spans = new HashMap<>();
+        int pending;
+        long lastSeen;
+
+        TraceBuilder(String traceId) {
+            this.traceId = traceId;
+        }
+
+        AssembledTrace build() {
+            Map<String, List<SpanBuilder>> children = new HashMap<>();
+            List<SpanBuilder> roots = new ArrayList<>();
+            long start = Long.MAX_VALUE;
+            long end = Long.MIN_VALUE;
+            for (SpanBuilder span : spans.values()) {
+                // Spans whose parent this trace has not seen (or none) are roots of their own
+                if (span.parentSpanId == null || !spans.containsKey(span.parentSpanId) || span.parentSpanId.equals(span.spanId)) {
+                    roots.add(span);
+                } else {
+                    children.computeIfAbsent(span.parentSpanId, parent -> new ArrayList<>()).add(span);
+                }
+                start = Math.min(start, span.earliest());
+                end = Math.max(end, span.latest());
+            }
+            roots.sort(SpanBuilder.BY_START);
+            for (List<SpanBuilder> siblings : children.values()) {
+                siblings.sort(SpanBuilder.BY_START);
+            }
+
+            // The critical path follows, from the root that ends last, the child that ends last at every level
+            List<String> criticalPath = new ArrayList<>();
+            for (SpanBuilder span = latestEnding(roots); span != null; span = latestEnding(children.get(span.spanId))) {
+                criticalPath.add(span.spanId);
+            }
+            Set<String> onCriticalPath = new HashSet<>(criticalPath);
+            List<AssembledTrace.SpanNode> nodes = new ArrayList<>(roots.size());
+            for (SpanBuilder root : roots) {
+                nodes.add(root.build(children, onCriticalPath));
+            }
+            return new AssembledTrace(traceId, pending == 0, spans.size(), start, end, end - start, criticalPath, nodes);
+        }
+
+        private static SpanBuilder latestEnding(Collection<SpanBuilder> spans) {
+            SpanBuilder latest = null;
+            if (spans != null) {
+                for (SpanBuilder span : spans) {
+                    if (latest == null || span.latest() > latest.latest()) {
+                        latest = span;
+                    }
+                }
+            }
+            return latest;
+        }
+    }
+
+    private static final class SpanBuilder {
+        static final Comparator<SpanBuilder> BY_START = Comparator.comparingLong(SpanBuilder::earliest);
+
+        final String spanId;
+        String parentSpanId;
+        String service;
+        String destination;
+        String method;
+        int httpStatus = LogEvent.NO_STATUS;
+        long startedAt = Long.MIN_VALUE;
+        long endedAt = Long.MIN_VALUE;
+
+        SpanBuilder(String spanId) {
+            this.spanId = spanId;
+        }
+
+        void start(LogEvent event) {
+            // A span that calls several services logs one start per call; the earliest wins
+            if (startedAt == Long.MIN_VALUE || event.getTimestamp() < startedAt) {
+                startedAt = event.getTimestamp();
+            }
+            if (destination == null) {
+                destination = event.getDestinationService();
+            }
+            describe(event);
+        }
+
+        void end(LogEvent event) {
+            if (event.getTimestamp() >= endedAt) {
+                endedAt = event.getTimestamp();
+                httpStatus = event.getHttpStatus();
+            }
+            describe(event);
+        }
+
+        private void describe(LogEvent event) {
+            if (service == null) {
+                service = event.getSourceService();
+                method = event.getMethod();
+            }
+            if (parentSpanId == null) {
+                parentSpanId = event.getParentSpanId();
+            }
+        }
+
+        boolean isComplete() {
+            return startedAt != Long.MIN_VALUE && endedAt != Long.MIN_VALUE;
+        }
+
+        long earliest() {
+            return startedAt != Long.MIN_VALUE ? startedAt : endedAt;
+        }
+
+        long latest() {
+            return endedAt != Long.MIN_VALUE ? endedAt : startedAt;
+        }
+
+        AssembledTrace.SpanNode build(Map<String, List<SpanBuilder>> children, Set<String> criticalPath) {
+            List<SpanBuilder> own = children.getOrDefault(spanId, List.of());
+            List<AssembledTrace.SpanNode> nodes = new ArrayList<>(own.size());
+            for (SpanBuilder child : own) {
+                nodes.add(child.build(children, criticalPath));
+            }
+            return new AssembledTrace.SpanNode(spanId, parentSpanId, service, destination, method,
+                    httpStatus == LogEvent.NO_STATUS ? null : httpStatus,
+                    startedAt == Long.MIN_VALUE ? null : startedAt,
+                    endedAt == Long.MIN_VALUE ? null : endedAt,
+                    isComplete() ? endedAt - startedAt : null,
+                    criticalPath.contains(spanId), nodes);
+        }
+    }
+}
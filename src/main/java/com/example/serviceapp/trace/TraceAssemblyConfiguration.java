@@ -0,0 +1,46 @@
+package com.example.serviceapp.trace;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires the {@link TraceAssembler}, which hands every finished span to the {@link SpanStore}, and, unless
+ * {@code trace.assembly.kafka.enabled=false}, feeds it from {@code logs-topic} through {@link LogTopicTraceListener}.
+ */
+@Configuration
+public class TraceAssemblyConfiguration {
+
+    @Bean
+    public SpanStore spanStore(MeterRegistry meterRegistry,
+                               @Value("${span.store.partition-width:1m}") Duration partitionWidth,
+                               @Value("${span.store.partitions:6}") int partitions,
+                               @Value("${span.store.rows-per-partition:32768}") int rowsPerPartition,
+                               @Value("${span.store.max-services:4096}") int maxServices) {
+        SpanStore store = new SpanStore(partitionWidth, partitions, rowsPerPartition, maxServices);
+        store.bindTo(meterRegistry);
+        return store;
+    }
+
+    @Bean
+    public TraceAssembler traceAssembler(MeterRegistry meterRegistry, SpanStore spanStore,
+                                         @Value("${trace.assembly.ttl:60s}") Duration ttl,
+                                         @Value("${trace.assembly.max-active-traces:10000}") int maxActiveTraces,
+                                         @Value("${trace.assembly.max-active-spans:200000}") long maxActiveSpans,
+                                         @Value("${trace.assembly.max-finished-traces:10000}") int maxFinishedTraces) {
+        TraceAssembler assembler = new TraceAssembler(ttl,
+                new TraceAssembler.Limits(maxActiveTraces, maxActiveSpans, maxFinishedTraces), spanStore::add);
+        assembler.bindTo(meterRegistry);
+        return assembler;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "trace.assembly.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public LogTopicTraceListener logTopicTraceListener(TraceAssembler assembler) {
+        return new LogTopicTraceListener(assembler);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.serviceapp.trace;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Optional;
+
+/**
+ * Trace and span of the current hop, carried in the Reactor {@link Context} of a reactive pipeline
+ * instead of being passed from method to method.
+ * <p>
+ * {@link #propagation()} copies it onto outgoing {@link org.springframework.web.reactive.function.client.WebClient}
+ * requests as the {@code trace_id} and {@code span_id} headers the simulators expect.
+ */
+public record TraceContext(String traceId, String spanId) {
+    public static final String TRACE_ID_HEADER = "trace_id";
+    public static final String SPAN_ID_HEADER = "span_id";
+    /** Head-sampling decision of the trace, {@code 1} or {@code 0}; see {@link TraceSamplingConfiguration}. */
+    public static final String SAMPLED_HEADER = "trace_sampled";
+
+    private static final Class<TraceContext> KEY = TraceContext.class;
+
+    /**
+     * The same trace with {@code spanId} as the current span.
+     */
+    public TraceContext withSpan(String spanId) {
+        return new TraceContext(traceId, spanId);
+    }
+
+    /**
+     * A Reactor context holding only this trace context, for {@code contextWrite}.
+     */
+    public Context toContext() {
+        return Context.of(KEY, this);
+    }
+
+    public static Optional<TraceContext> from(ContextView context) {
+        return context.getOrEmpty(KEY);
+    }
+
+    /**
+     * Filter that adds the trace headers of the subscriber's context to each outgoing request.
+     */
+    public static ExchangeFilterFunction propagation() {
+        return ExchangeFilterFunction.ofRequestProcessor(request -> Mono.deferContextual(context ->
+                Mono.just(from(context)
+                        .map(trace -> ClientRequest.from(request)
+                                .headers(headers -> {
+                                    headers.set(TRACE_ID_HEADER, trace.traceId());
+                                    if (trace.spanId() != null) {
+                                        headers.set(SPAN_ID_HEADER, trace.spanId());
+                                    }
+                                })
+                                .build())
+                        .orElse(request))));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.serviceapp.trace;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the span trees the {@link TraceAssembler} rebuilds from {@code logs-topic}.
+ */
+@RestController
+@RequestMapping("/traces")
+public class TraceController {
+    private final TraceAssembler assembler;
+
+    public TraceController(TraceAssembler assembler) {
+        this.assembler = assembler;
+    }
+
+    /**
+     * Span tree of one trace with per-span durations and its critical path, or 404 if it is not held.
+     * @curl curl -X GET "http://localhost:8081/traces/4bf92f3577b34da6a3ce929d0e0e4736"
+     */
+    @GetMapping("/{traceId}")
+    public ResponseEntity<AssembledTrace> trace(@PathVariable String traceId) {
+        AssembledTrace trace = assembler.trace(traceId);
+        return trace == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(trace);
+    }
+}
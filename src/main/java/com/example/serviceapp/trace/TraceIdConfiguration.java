@@ -0,0 +1,22 @@
+package com.example.serviceapp.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link TraceIdGenerator} with {@code trace.id.generator}: {@code w3c} (default) for fast
+ * W3C-compatible hex ids, or {@code uuid} for the legacy random UUIDs.
+ */
+@Configuration
+public class TraceIdConfiguration {
+
+    @Bean
+    public TraceIdGenerator traceIdGenerator(@Value("${trace.id.generator:w3c}") String generator) {
+        return switch (generator.toLowerCase()) {
+            case "w3c" -> new RandomTraceIdGenerator();
+            case "uuid" -> new UuidTraceIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown trace.id.generator: " + generator);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.serviceapp.trace;
+
+/**
+ * Source of trace and span identifiers for the simulators.
+ */
+public interface TraceIdGenerator {
+
+    /**
+     * A new identifier for a trace that starts at this service.
+     */
+    String newTraceId();
+
+    /**
+     * A new identifier for a span within a trace.
+     */
+    String newSpanId();
+}
@@ -0,0 +1,75 @@
+package com.example.serviceapp.trace;
+
+import com.example.loggingwrapper.LogService;
+import com.example.loggingwrapper.TraceSampler;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ * Carries the {@link TraceSampler} decision between hops in the {@code trace_sampled} header, so every service of
+ * a trace ships it or buffers it alike.
+ * <p>
+ * Incoming requests with {@code trace_id} and {@code trace_sampled} hand the decision to the sampler before the
+ * handler logs anything. Outgoing requests from any {@code WebClient} get the header for their {@code trace_id},
+ * taken from the request or, since {@link TraceContext#propagation()} may only add it later, from the Reactor
+ * context. Nothing is added while {@code loggingwrapper.sampling.enabled=false}.
+ */
+@Configuration
+public class TraceSamplingConfiguration {
+
+    @Bean
+    public OncePerRequestFilter traceSamplingFilter(LogService logService) {
+        TraceSampler sampler = logService.getSampler();
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                String traceId = request.getHeader(TraceContext.TRACE_ID_HEADER);
+                String sampled = request.getHeader(TraceContext.SAMPLED_HEADER);
+                if (sampler != null && traceId != null && sampled != null) {
+                    sampler.propagated(traceId, "1".equals(sampled) || "true".equalsIgnoreCase(sampled));
+                }
+                chain.doFilter(request, response);
+            }
+        };
+    }
+
+    @Bean
+    public WebClientCustomizer traceSamplingCustomizer(LogService logService) {
+        TraceSampler sampler = logService.getSampler();
+        if (sampler == null) {
+            return builder -> {
+            };
+        }
+        ExchangeFilterFunction propagation = ExchangeFilterFunction.ofRequestProcessor(request -> {
+            if (request.headers().containsKey(TraceContext.SAMPLED_HEADER)) {
+                return Mono.just(request);
+            }
+            String traceId = request.headers().getFirst(TraceContext.TRACE_ID_HEADER);
+            if (traceId != null) {
+                return Mono.just(withDecision(request, sampler, traceId));
+            }
+            return Mono.deferContextual(context -> Mono.just(TraceContext.from(context)
+                    .map(trace -> withDecision(request, sampler, trace.traceId()))
+                    .orElse(request)));
+        });
+        return builder -> builder.filter(propagation);
+    }
+
+    private static ClientRequest withDecision(ClientRequest request, TraceSampler sampler, String traceId) {
+        return ClientRequest.from(request)
+                .header(TraceContext.SAMPLED_HEADER, sampler.isSampled(traceId) ? "1" : "0")
+                .build();
+    }
+}
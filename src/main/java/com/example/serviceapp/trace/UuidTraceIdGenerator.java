@@ -0,0 +1,19 @@
+package com.example.serviceapp.trace;
+
+import java.util.UUID;
+
+/**
+ * Legacy generator producing random UUID strings for both trace and span ids.
+ */
+public class UuidTraceIdGenerator implements TraceIdGenerator {
+
+    @Override
+    public String newTraceId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public String newSpanId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AsyncLogPipelineTest {
+
+	@Test
+	void ringDeliversEveryEventFromConcurrentProducers() throws InterruptedException {
+		LogRingBuffer ring = new LogRingBuffer(1024);
+		int producers = 4;
+		int perProducer = 50_000;
+		Received seen = new Received();
+		CountDownLatch done = new CountDownLatch(producers);
+
+		for (int p = 0; p < producers; p++) {
+			String source = "producer-" + p;
+			Thread.ofPlatform().start(() -> {
+				LogEvent event = new LogEvent().source(source);
+				for (int i = 0; i < perProducer; i++) {
+					event.timestamp(i);
+					while (!ring.offer(event)) {
+						Thread.onSpinWait();
+					}
+				}
+				done.countDown();
+			});
+		}
+		while (done.getCount() > 0 || ring.size() > 0) {
+			ring.drain(seen::add, 256);
+		}
+
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(seen.count.get()).isEqualTo(producers * perProducer);
+		assertThat(seen.keys).hasSize(producers * perProducer);
+	}
+
+	@Test
+	void dropNewestRejectsAndCountsWhenFull() {
+		AsyncLogPipeline pipeline = new AsyncLogPipeline(2, 16, LogOverflowPolicy.DROP_NEWEST, event -> { });
+
+		assertThat(pipeline.publish(new LogEvent().timestamp(1))).isTrue();
+		assertThat(pipeline.publish(new LogEvent().timestamp(2))).isTrue();
+		assertThat(pipeline.publish(new LogEvent().timestamp(3))).isFalse();
+		assertThat(pipeline.droppedCount()).isEqualTo(1);
+		assertThat(pipeline.backlog()).isEqualTo(2);
+	}
+
+	@Test
+	void dropOldestKeepsMostRecentEvents() throws InterruptedException {
+		List<Long> delivered = new ArrayList<>();
+		AsyncLogPipeline pipeline = new AsyncLogPipeline(2, 16, LogOverflowPolicy.DROP_OLDEST,
+				event -> delivered.add(event.getTimestamp()));
+
+		for (long ts = 1; ts <= 5; ts++) {
+			pipeline.publish(new LogEvent().timestamp(ts));
+		}
+		pipeline.start();
+		pipeline.stop(5000);
+
+		assertThat(delivered).containsExactly(4L, 5L);
+		assertThat(pipeline.droppedCount()).isEqualTo(3);
+	}
+
+	@Test
+	void blockWaitsForDrainInsteadOfDropping() throws InterruptedException {
+		AtomicInteger delivered = new AtomicInteger();
+		AsyncLogPipeline pipeline = new AsyncLogPipeline(4, 2, LogOverflowPolicy.BLOCK, event -> delivered.incrementAndGet());
+		pipeline.start();
+
+		for (int i = 0; i < 1000; i++) {
+			pipeline.publish(new LogEvent().timestamp(i));
+		}
+		pipeline.stop(5000);
+
+		assertThat(delivered.get()).isEqualTo(1000);
+		assertThat(pipeline.droppedCount()).isZero();
+	}
+
+	@Test
+	void blockGivesUpOnceThePipelineIsStopped() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncLogPipeline pipeline = new AsyncLogPipeline(2, 1, LogOverflowPolicy.BLOCK, event -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		pipeline.publish(new LogEvent().timestamp(1));
+		pipeline.publish(new LogEvent().timestamp(2));
+		pipeline.start();
+		AtomicBoolean accepted = new AtomicBoolean(true);
+		Thread publisher = Thread.ofPlatform().start(() -> accepted.set(pipeline.publish(new LogEvent().timestamp(3))));
+		await().atMost(Duration.ofSeconds(5)).until(() -> pipeline.blockedCount() == 1);
+
+		pipeline.stop(50);
+		publisher.join(5000);
+		release.countDown();
+
+		assertThat(publisher.isAlive()).isFalse();
+		assertThat(accepted).isFalse();
+		assertThat(pipeline.droppedCount()).isEqualTo(1);
+	}
+
+	private static final class Received {
+		private final AtomicInteger count = new AtomicInteger();
+		private final java.util.Set<String> keys = ConcurrentHashMap.newKeySet();
+
+		void add(LogEvent event) {
+			count.incrementAndGet();
+			keys.add(event.getSourceService() + ":" + event.getTimestamp());
+		}
+	}
+}
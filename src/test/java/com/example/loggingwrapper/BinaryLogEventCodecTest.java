@@ -0,0 +1,226 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryLogEventCodecTest {
+	private final BinaryLogEventEncoder encoder = new BinaryLogEventEncoder(NameDictionary.EMPTY);
+	private final BinaryLogEventDecoder decoder = new BinaryLogEventDecoder(NameDictionary.EMPTY);
+
+	@Test
+	void roundTripsUuidIdsAndAllFields() {
+		LogEvent event = new LogEvent()
+				.timestamp(1742042400123L)
+				.traceId(UUID.randomUUID().toString())
+				.spanId(UUID.randomUUID().toString())
+				.parentSpanId(null)
+				.source("fan-out-main-service").destination("service-a")
+				.method("invokeDownstreamService").type("GET").request("test")
+				.httpStatus(200).response("Completed C → A");
+
+		assertFieldsEqual(roundTrip(event), event);
+	}
+
+	@Test
+	void roundTripsHexAndFreeFormIdsAndMissingStatus() {
+		LogEvent event = new LogEvent()
+				.timestamp(1L)
+				.traceId("4bf92f3577b34da6a3ce929d0e0e4736")
+				.spanId("00f067aa0ba902b7")
+				.parentSpanId("Not-A-Uuid")
+				.source("service-c");
+
+		assertFieldsEqual(roundTrip(event), event);
+	}
+
+	@Test
+	void isMuchSmallerThanTextLine() {
+		LogEvent event = new LogEvent()
+				.timestamp(System.currentTimeMillis())
+				.traceId(UUID.randomUUID().toString())
+				.spanId(UUID.randomUUID().toString())
+				.parentSpanId(UUID.randomUUID().toString())
+				.source("knot-service-A").destination("knot-service-B")
+				.method("invokeKnotService").type("GET").request("test")
+				.httpStatus(102);
+		LogBuffer text = new LogBuffer(256);
+		new TextLogEventEncoder().encode(event, text);
+		LogBuffer binary = new LogBuffer(256);
+		encoder.encode(event, binary);
+
+		assertThat(binary.length()).isLessThan(text.length() / 2);
+	}
+
+	@Test
+	void deserializerAcceptsBothFormats() {
+		LogEvent event = new LogEvent().timestamp(42L).traceId("t").spanId("s").source("nano-service-handler")
+				.request("a, b").httpStatus(500).response("x, y");
+		LogBuffer text = new LogBuffer(64);
+		new TextLogEventEncoder().encode(event, text);
+		LogBuffer binary = new LogBuffer(64);
+		encoder.encode(event, binary);
+
+		try (LogEventDeserializer deserializer = new LogEventDeserializer()) {
+			assertFieldsEqual(deserializer.deserialize("logs-topic", text.toByteArray()), event);
+			assertFieldsEqual(deserializer.deserialize("logs-topic", binary.toByteArray()), event);
+		}
+	}
+
+	@Test
+	void dictionaryNamesTravelAsIdsAnnouncedByUpdateRecords() {
+		List<byte[]> topic = new ArrayList<>();
+		InterningNameDictionary producerSide = producer(topic);
+		BinaryLogEventEncoder dictionaryEncoder = new BinaryLogEventEncoder(producerSide);
+		LogEvent event = new LogEvent().timestamp(5L).spanId("s")
+				.source("knot-service-A").destination("knot-service-B").method("invokeKnotService");
+
+		for (int i = 0; i < 3; i++) {
+			LogBuffer buffer = new LogBuffer(64);
+			dictionaryEncoder.encode(event, buffer);
+			topic.add(buffer.toByteArray());
+		}
+
+		assertThat(producerSide.size()).isEqualTo(3);
+		assertThat(topic).hasSize(6);
+		try (LogEventDeserializer deserializer = new LogEventDeserializer()) {
+			List<LogEvent> events = topic.stream()
+					.map(record -> deserializer.deserialize("logs-topic", record))
+					.filter(Objects::nonNull)
+					.toList();
+			assertThat(events).hasSize(3).allSatisfy(decoded -> assertFieldsEqual(decoded, event));
+		}
+	}
+
+	@Test
+	void producersWithOverlappingIdsDecodeIntoTheirOwnEpoch() {
+		List<byte[]> topic = new ArrayList<>();
+		BinaryLogEventEncoder first = new BinaryLogEventEncoder(producer(topic));
+		BinaryLogEventEncoder second = new BinaryLogEventEncoder(producer(topic));
+		LogEvent fromFirst = new LogEvent().timestamp(1L).source("knot-service-A");
+		LogEvent fromSecond = new LogEvent().timestamp(2L).source("knot-service-B");
+
+		for (LogEvent event : List.of(fromFirst, fromSecond)) {
+			LogBuffer buffer = new LogBuffer(64);
+			(event == fromFirst ? first : second).encode(event, buffer);
+			topic.add(buffer.toByteArray());
+		}
+
+		try (LogEventDeserializer deserializer = new LogEventDeserializer()) {
+			List<LogEvent> events = topic.stream()
+					.map(record -> deserializer.deserialize("logs-topic", record))
+					.filter(Objects::nonNull)
+					.toList();
+			assertThat(events).extracting(LogEvent::getSourceService)
+					.containsExactly("knot-service-A", "knot-service-B");
+		}
+	}
+
+	@Test
+	void failedAnnouncementWritesTheNameInlineAndGivesTheIdBack() {
+		List<String> announced = new ArrayList<>();
+		InterningNameDictionary dictionary = new InterningNameDictionary(1, 4, (id, name) -> {
+			if (name.equals("broken")) {
+				throw new IllegalStateException("broker down");
+			}
+			announced.add(id + "=" + name);
+		});
+
+		assertThat(dictionary.idOf("broken")).isEqualTo(NameDictionary.NO_ID);
+
+		assertThat(dictionary.size()).isZero();
+		assertThat(dictionary.idOf("service-a")).isZero();
+		assertThat(announced).containsExactly("0=service-a");
+	}
+
+	@Test
+	void retiredNameIsAnnouncedAgainUnderANewId() {
+		List<String> announced = new ArrayList<>();
+		List<Integer> failing = new ArrayList<>();
+		InterningNameDictionary[] holder = new InterningNameDictionary[1];
+		InterningNameDictionary dictionary = new InterningNameDictionary(1, 4, (id, name) -> {
+			announced.add(id + "=" + name);
+			if (failing.contains(id)) {
+				// The broadcast failed before the announcement returned
+				holder[0].retire(id, name);
+			}
+		});
+		holder[0] = dictionary;
+
+		assertThat(dictionary.idOf("service-a")).isZero();
+		dictionary.retire(0, "service-a");
+		assertThat(dictionary.nameOf(0)).isNull();
+		failing.add(1);
+		assertThat(dictionary.idOf("service-a")).isEqualTo(NameDictionary.NO_ID);
+		assertThat(dictionary.idOf("service-a")).isEqualTo(2);
+
+		assertThat(announced).containsExactly("0=service-a", "1=service-a", "2=service-a");
+		assertThat(dictionary.nameOf(2)).isEqualTo("service-a");
+	}
+
+	@Test
+	void announcesWithoutBlockingOtherNames() throws Exception {
+		CountDownLatch announcing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		InterningNameDictionary dictionary = new InterningNameDictionary(1, 4, (id, name) -> {
+			if (name.equals("slow")) {
+				announcing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Thread slow = Thread.ofPlatform().start(() -> dictionary.idOf("slow"));
+		announcing.await();
+
+		assertThat(dictionary.idOf("fast")).isEqualTo(1);
+		assertThat(dictionary.idOf("slow")).isEqualTo(NameDictionary.NO_ID);
+
+		release.countDown();
+		slow.join();
+		assertThat(dictionary.idOf("slow")).isZero();
+	}
+
+	@Test
+	void dictionaryFallsBackToInlineNamesWhenFull() {
+		InterningNameDictionary dictionary = new InterningNameDictionary(1, (id, name) -> { });
+
+		assertThat(dictionary.idOf("chatty-service-0")).isZero();
+		assertThat(dictionary.idOf("chatty-service-1")).isEqualTo(NameDictionary.NO_ID);
+		assertThat(dictionary.idOf("chatty-service-0")).isZero();
+	}
+
+	@Test
+	void rejectsUnknownSchemaVersion() {
+		byte[] data = {(byte) BinaryLogEventEncoder.MAGIC, 99};
+
+		assertThatThrownBy(() -> decoder.decode(data))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("schema version 99");
+	}
+
+	private static InterningNameDictionary producer(List<byte[]> topic) {
+		InterningNameDictionary[] dictionary = new InterningNameDictionary[1];
+		dictionary[0] = new InterningNameDictionary(16, (id, name) -> topic.add(dictionary[0].updateRecord(id, name)));
+		return dictionary[0];
+	}
+
+	private LogEvent roundTrip(LogEvent event) {
+		LogBuffer buffer = new LogBuffer(64);
+		encoder.encode(event, buffer);
+		return decoder.decode(buffer.toByteArray());
+	}
+
+	private static void assertFieldsEqual(LogEvent actual, LogEvent expected) {
+		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+	}
+}
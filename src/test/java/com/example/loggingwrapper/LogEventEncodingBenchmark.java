@@ -0,0 +1,78 @@
+package com.example.loggingwrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former {@code String.format} log line with the pooled {@link LogEvent} path.
+ * Run with the GC profiler to see the per-operation allocation ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.loggingwrapper.LogEventEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogEventEncodingBenchmark {
+	private static final String LEGACY_TEMPLATE = "%s | trace_id=%s, span_id=%s, parent_span_id=%s, source=%s, destination=%s, method=%s, type=%s, request=%s, http_status=%s response=%s";
+
+	private final String traceId = "6f1c2a54-7f0e-4c6e-9f59-0d3f2b0c9a11";
+	private final String spanId = "1b7e3c9d-2a4f-4e8b-b6d1-5c0a9e8f7d62";
+	private final String parentSpanId = "a3d4e5f6-0718-4293-a4b5-c6d7e8f90a1b";
+	private final Integer status = 200;
+
+	private final LogEvent event = new LogEvent();
+	private final LogBuffer buffer = new LogBuffer(512);
+	private final TextLogEventEncoder encoder = new TextLogEventEncoder();
+
+	@Benchmark
+	public byte[] legacyStringFormat() {
+		Long timestamp = Instant.now().toEpochMilli();
+		String line = String.format(LEGACY_TEMPLATE, timestamp, traceId, spanId, parentSpanId,
+				"knot-service-A", "knot-service-B", "invokeKnotService", "GET", "test", status, "Services tangled together.");
+		return line.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public int pooledEventIntoBuffer() {
+		event.clear()
+				.timestamp(System.currentTimeMillis())
+				.source("knot-service-A").destination("knot-service-B")
+				.method("invokeKnotService").type("GET").request("test")
+				.httpStatus(200).response("Services tangled together.")
+				.traceId(traceId).spanId(spanId).parentSpanId(parentSpanId);
+		encoder.encode(event, buffer.clear());
+		return buffer.length();
+	}
+
+	@Benchmark
+	public byte[] pooledEventToPayload() {
+		pooledEventIntoBuffer();
+		return buffer.toByteArray();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(LogEventEncodingBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogSpoolTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsBackWhatWasAppendedAcrossRestarts() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			assertThat(spool.append("span-1", bytes("first"), false)).isTrue();
+			assertThat(spool.append(null, bytes("dictionary"), true)).isTrue();
+			assertThat(spool.append("span-3", bytes("third"), false)).isTrue();
+		}
+
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			List<LogSpool.SpooledRecord> records = spool.read(10).records();
+
+			assertThat(records).extracting(LogSpool.SpooledRecord::key).containsExactly("span-1", null, "span-3");
+			assertThat(records).extracting(LogSpool.SpooledRecord::broadcast).containsExactly(false, true, false);
+			assertThat(records).extracting(record -> text(record.payload())).containsExactly("first", "dictionary", "third");
+		}
+	}
+
+	@Test
+	void resumesAfterTheCommittedOffset() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			for (int i = 0; i < 5; i++) {
+				spool.append("span-" + i, bytes("record-" + i), false);
+			}
+			spool.commit(spool.read(2).endOffset());
+		}
+
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			assertThat(spool.read(10).records()).extracting(LogSpool.SpooledRecord::key)
+					.containsExactly("span-2", "span-3", "span-4");
+		}
+	}
+
+	@Test
+	void cutsTornRecordOnRecovery() throws IOException {
+		long torn;
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			spool.append("span-1", bytes("first"), false);
+			spool.append("span-2", bytes("second"), false);
+			torn = spool.read(10).records().get(1).offset();
+		}
+		try (RandomAccessFile segment = new RandomAccessFile(segments().getFirst().toFile(), "rw")) {
+			// Flip a payload byte, as if the process died half-way through the write
+			segment.seek(torn + 20);
+			segment.write('X');
+		}
+
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			assertThat(spool.read(10).records()).extracting(LogSpool.SpooledRecord::key).containsExactly("span-1");
+
+			spool.append("span-3", bytes("third"), false);
+			assertThat(spool.read(10).records()).extracting(LogSpool.SpooledRecord::key).containsExactly("span-1", "span-3");
+		}
+	}
+
+	@Test
+	void rollsSegmentsAndDropsOldestOverMaxSize() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 256, 1024)) {
+			for (int i = 0; i < 100; i++) {
+				assertThat(spool.append("span-" + i, bytes("record-" + i), false)).isTrue();
+			}
+
+			assertThat(spool.segmentCount()).isEqualTo(4);
+			assertThat(segments()).hasSize(4);
+			assertThat(spool.droppedCount()).isGreaterThan(0);
+			List<LogSpool.SpooledRecord> records = spool.read(1000).records();
+			assertThat(records).hasSize((int) (100 - spool.droppedCount()));
+			assertThat(records.getLast().key()).isEqualTo("span-99");
+
+			spool.commit(spool.read(1000).endOffset());
+			assertThat(spool.segmentCount()).isEqualTo(1);
+			assertThat(spool.backlogBytes()).isZero();
+		}
+	}
+
+	@Test
+	void keepsBroadcastsOfTheSegmentsItDrops() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 256, 1024)) {
+			assertThat(spool.append("dictionary", bytes("name-1"), true)).isTrue();
+			for (int i = 0; i < 100; i++) {
+				assertThat(spool.append("span-" + i, bytes("record-" + i), false)).isTrue();
+			}
+
+			List<LogSpool.SpooledRecord> records = spool.read(1000).records();
+			assertThat(spool.droppedCount()).isGreaterThan(0);
+			assertThat(records).hasSize((int) (101 - spool.droppedCount()));
+			assertThat(records).filteredOn(LogSpool.SpooledRecord::broadcast).singleElement()
+					.satisfies(record -> assertThat(new String(record.payload(), StandardCharsets.UTF_8))
+							.isEqualTo("name-1"));
+			assertThat(records.getLast().key()).isEqualTo("span-99");
+		}
+	}
+
+	@Test
+	void rejectsRecordsLargerThanASegment() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 256, 1024)) {
+			assertThat(spool.append("span", new byte[300], false)).isFalse();
+			assertThat(spool.appendedCount()).isZero();
+		}
+	}
+
+	@Test
+	void locksItsDirectory() throws IOException {
+		try (LogSpool spool = new LogSpool(directory, 4096, 1 << 20)) {
+			assertThatThrownBy(() -> new LogSpool(directory, 4096, 1 << 20)).isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("in use");
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+		}
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(byte[] bytes) {
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
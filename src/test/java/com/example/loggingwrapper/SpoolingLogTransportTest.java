@@ -0,0 +1,122 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class SpoolingLogTransportTest {
+	@TempDir
+	Path directory;
+
+	private final FakeProducer producer = new FakeProducer();
+	private final List<Throwable> outcomes = new CopyOnWriteArrayList<>();
+	private SpoolingLogTransport transport;
+
+	@AfterEach
+	void stop() throws Exception {
+		if (transport != null) {
+			transport.destroy();
+		}
+		producer.callbacks.shutdownNow();
+	}
+
+	@Test
+	void shipsInOrderOnceTheProducerRecovers() throws IOException {
+		producer.failing = true;
+		transport = start();
+		for (int i = 0; i < 50; i++) {
+			transport.send("span-" + i, ("record-" + i).getBytes(StandardCharsets.UTF_8), (payload, ex) -> outcomes.add(ex));
+		}
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> transport.failedBatchCount() >= 2);
+		assertThat(outcomes).hasSize(50).containsOnlyNulls();
+		assertThat(producer.delivered).isEmpty();
+		assertThat(transport.counters().sent()).isZero();
+		assertThat(transport.counters().failed()).isGreaterThanOrEqualTo(32);
+
+		producer.failing = false;
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> producer.delivered.size() == 50);
+		assertThat(producer.delivered).containsExactlyElementsOf(
+				IntStream.range(0, 50).mapToObj(i -> "record-" + i).toList());
+		await().atMost(5, TimeUnit.SECONDS).until(() -> transport.getSpool().backlogBytes() == 0);
+		assertThat(transport.counters().sent()).isEqualTo(50);
+		assertThat(transport.counters().dropped()).isZero();
+	}
+
+	@Test
+	void resendsFromTheFirstRecordThatFailed() throws IOException {
+		producer.failOn = "record-3";
+		transport = start();
+		for (int i = 0; i < 6; i++) {
+			transport.send("span-" + i, ("record-" + i).getBytes(StandardCharsets.UTF_8), (payload, ex) -> outcomes.add(ex));
+		}
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> transport.failedBatchCount() >= 1);
+		producer.failOn = null;
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> producer.delivered.contains("record-5")
+				&& transport.getSpool().backlogBytes() == 0);
+		// Records after the failed one may have gone out once already; the resend repeats them in order
+		assertThat(producer.delivered).startsWith("record-0", "record-1", "record-2")
+				.endsWith("record-3", "record-4", "record-5")
+				.containsOnlyOnce("record-0", "record-1", "record-2", "record-3");
+	}
+
+	@Test
+	void shipsWhatAPreviousRunLeftInTheSpool() throws Exception {
+		producer.failing = true;
+		transport = start();
+		transport.send("span-1", "left-over".getBytes(StandardCharsets.UTF_8), (payload, ex) -> outcomes.add(ex));
+		transport.destroy();
+
+		producer.failing = false;
+		transport = start();
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> producer.delivered.equals(List.of("left-over")));
+	}
+
+	private SpoolingLogTransport start() throws IOException {
+		SpoolingLogTransport started = new SpoolingLogTransport(producer, new LogSpool(directory, 4096, 1 << 20),
+				16, 1000, 10, 50, 100, Thread.ofPlatform().daemon().factory());
+		started.start();
+		return started;
+	}
+
+	/**
+	 * Stands in for the Kafka producer: acknowledges asynchronously and fails on demand.
+	 */
+	private static final class FakeProducer implements LogTransport {
+		final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+		final List<String> delivered = new CopyOnWriteArrayList<>();
+		volatile boolean failing;
+		volatile String failOn;
+
+		@Override
+		public void send(String key, byte[] payload, SendListener listener) {
+			String record = new String(payload, StandardCharsets.UTF_8);
+			boolean fail = failing || record.equals(failOn);
+			callbacks.execute(() -> {
+				if (fail) {
+					listener.onCompletion(payload, new IllegalStateException("Broker unavailable"));
+				} else {
+					delivered.add(record);
+					listener.onCompletion(payload, null);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextLogEventEncoderTest {
+	private static final String LEGACY_TEMPLATE = "%s | trace_id=%s, span_id=%s, parent_span_id=%s, source=%s, destination=%s, method=%s, type=%s, request=%s, http_status=%s response=%s";
+
+	private final TextLogEventEncoder encoder = new TextLogEventEncoder();
+
+	@Test
+	void matchesLegacyFormatForFullEvent() {
+		LogEvent event = new LogEvent()
+				.timestamp(1742042400123L)
+				.source("cyclic-service-C").destination("cyclic-service-A")
+				.method("cycleEnd").type("GET").request("test")
+				.httpStatus(200).response("Completed C → A")
+				.traceId("trace-1").spanId("span-1").parentSpanId("span-0");
+
+		assertThat(encode(event)).isEqualTo(String.format(LEGACY_TEMPLATE, 1742042400123L, "trace-1", "span-1", "span-0",
+				"cyclic-service-C", "cyclic-service-A", "cycleEnd", "GET", "test", 200, "Completed C → A"));
+	}
+
+	@Test
+	void rendersMissingFieldsAndStatusAsNull() {
+		LogEvent event = new LogEvent().timestamp(7L).source("service-c").spanId("s").traceId("t");
+
+		assertThat(encode(event)).isEqualTo(String.format(LEGACY_TEMPLATE, 7L, "t", "s", null,
+				"service-c", null, null, null, null, null, null));
+	}
+
+	@Test
+	void reusesBufferAcrossRecords() {
+		LogBuffer buffer = new LogBuffer(16);
+		LogEvent event = new LogEvent().timestamp(1L).request("x".repeat(300)).httpStatus(500);
+		encoder.encode(event, buffer);
+		byte[] grown = buffer.array();
+
+		encoder.encode(event, buffer.clear());
+
+		assertThat(buffer.array()).isSameAs(grown);
+	}
+
+	private String encode(LogEvent event) {
+		LogBuffer buffer = new LogBuffer(64);
+		encoder.encode(event, buffer);
+		return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,149 @@
+package com.example.loggingwrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceSamplerTest {
+
+	private final List<LogEvent> shipped = new ArrayList<>();
+
+	@Test
+	void shipsHeadSampledTracesAsLogged() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+
+		sampler.offer(event("t1", "s1", 102, 0));
+		sampler.offer(event("t1", "s1", 200, 5));
+
+		assertThat(shipped).extracting(LogEvent::getHttpStatus).containsExactly(102, 200);
+		assertThat(sampler.keptHeadCount()).isEqualTo(2);
+		assertThat(sampler.bufferedCount()).isZero();
+	}
+
+	@Test
+	void keepsUnsampledTraceWithServerErrorOnceRootEnds() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+		sampler.propagated("t1", false);
+
+		sampler.offer(event("t1", "root", 102, 0));
+		sampler.offer(event("t1", "child", 102, 1).parentSpanId("root"));
+		sampler.offer(event("t1", "child", 503, 2).parentSpanId("root"));
+		assertThat(shipped).isEmpty();
+		assertThat(sampler.bufferedCount()).isEqualTo(3);
+
+		sampler.offer(event("t1", "root", 200, 3));
+		sampler.offer(event("t1", "late", 200, 4));
+
+		assertThat(shipped).extracting(LogEvent::getSpanId).containsExactly("root", "child", "child", "root", "late");
+		assertThat(sampler.keptTailCount()).isEqualTo(5);
+		assertThat(sampler.bufferedCount()).isZero();
+	}
+
+	@Test
+	void keepsUnsampledTraceWithSlowSpan() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+		sampler.propagated("t1", false);
+
+		sampler.offer(event("t1", "root", 102, 0));
+		sampler.offer(event("t1", "child", 102, 10));
+		sampler.offer(event("t1", "child", 200, 1500));
+		sampler.offer(event("t1", "root", 200, 1510));
+
+		assertThat(shipped).hasSize(4);
+	}
+
+	@Test
+	void dropsFastSuccessfulTraceButNotItsLateFailures() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+		sampler.propagated("t1", false);
+
+		sampler.offer(event("t1", "root", 102, 0));
+		sampler.offer(event("t1", "root", 200, 20));
+		sampler.offer(event("t1", "retry", 200, 30));
+		sampler.offer(event("t1", "retry", 500, 40));
+
+		assertThat(shipped).extracting(LogEvent::getHttpStatus).containsExactly(500);
+		assertThat(sampler.droppedCount()).isEqualTo(3);
+		assertThat(sampler.isSampled("t1")).isFalse();
+	}
+
+	@Test
+	void followsDecisionPropagatedFromUpstream() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+		sampler.propagated("t1", true);
+		sampler.offer(event("t1", "s1", 102, 0));
+		assertThat(shipped).hasSize(1);
+
+		sampler.propagated("t1", false);
+		sampler.offer(event("t1", "s1", 200, 1));
+		assertThat(shipped).hasSize(2);
+		assertThat(sampler.isSampled("t1")).isTrue();
+	}
+
+	@Test
+	void decidesForTheRequestPathWithoutWaitingForOffer() throws Exception {
+		CountDownLatch shipping = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		TraceSampler sampler = new TraceSampler(10_000, 0.01, 1000, 30_000, 1000, 4, event -> {
+			shipping.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Thread drain = Thread.ofPlatform().start(() -> sampler.offer(event("t1", "s1", 102, 0)));
+		assertThat(shipping.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// offer holds the sampler while its sink blocks
+		sampler.propagated("t2", false);
+		assertThat(sampler.isSampled("t2")).isFalse();
+		assertThat(sampler.isSampled("t1")).isTrue();
+
+		release.countDown();
+		drain.join();
+	}
+
+	@Test
+	void lowersRateTowardsBudget() {
+		TraceSampler sampler = sampler(100, 0.01, 1000);
+
+		// 1000 single-event traces a second for 20 seconds against a budget of 100 a second
+		for (int i = 0; i < 20_000; i++) {
+			sampler.offer(event("t" + i, "s", 200, i));
+		}
+
+		assertThat(sampler.rate()).isBetween(0.05, 0.2);
+		long lastSecond = shipped.stream().filter(event -> event.getTimestamp() >= 19_000).count();
+		assertThat(lastSecond).isBetween(30L, 250L);
+	}
+
+	@Test
+	void settlesEldestTraceWhenBufferIsFull() {
+		TraceSampler sampler = sampler(10_000, 0.01, 1000);
+
+		for (int i = 0; i < 5; i++) {
+			sampler.propagated("t" + i, false);
+			sampler.offer(event("t" + i, "root", 102, i));
+			sampler.offer(event("t" + i, "child", 503, i));
+		}
+
+		assertThat(sampler.bufferedCount()).isLessThanOrEqualTo(4);
+		assertThat(shipped).extracting(LogEvent::getTraceId).startsWith("t0", "t0");
+	}
+
+	private TraceSampler sampler(double eventsPerSecond, double minRate, long slowSpanMillis) {
+		return new TraceSampler(eventsPerSecond, minRate, slowSpanMillis, 30_000, 1000, 4,
+				event -> shipped.add(new LogEvent().copyFrom(event)));
+	}
+
+	private static LogEvent event(String traceId, String spanId, int status, long timestamp) {
+		return new LogEvent().timestamp(timestamp).source("a").destination("b").method("m").type("GET")
+				.httpStatus(status).traceId(traceId).spanId(spanId);
+	}
+}
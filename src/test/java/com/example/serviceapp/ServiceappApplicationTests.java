@@ -3,7 +3,7 @@ package com.example.serviceapp;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "loggingwrapper.spool.enabled=false")
 class ServiceappApplicationTests {
 
 	@Test
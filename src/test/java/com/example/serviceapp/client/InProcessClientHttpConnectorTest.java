@@ -0,0 +1,138 @@
+package com.example.serviceapp.client;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"loopback.transport=in-process",
+		"loggingwrapper.spool.enabled=false"})
+class InProcessClientHttpConnectorTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private WebClient.Builder builder;
+
+	@Test
+	void runsTheHandlerThroughTheFilterChainWithoutASocket() {
+		ResponseEntity<String> response = get("/loopback-test/sync");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getFirst("X-Loopback-Filter")).isEqualTo("REQUEST");
+		assertThat(response.getBody()).startsWith("sync on loopback-").endsWith(" with header 42");
+	}
+
+	@Test
+	void sendsTheRequestBody() {
+		String body = client().post().uri("/loopback-test/echo").bodyValue("ping")
+				.retrieve().bodyToMono(String.class).block(Duration.ofSeconds(10));
+
+		assertThat(body).isEqualTo("echo ping");
+	}
+
+	@Test
+	void completesAsyncHandlersThroughAnAsyncDispatch() {
+		ResponseEntity<String> response = get("/loopback-test/async");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).isEqualTo("async");
+	}
+
+	@Test
+	void timesOutAsyncHandlersThatNeverAnswer() {
+		ResponseEntity<String> response = get("/loopback-test/never");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	@Test
+	void rendersTheErrorPageForFailuresAndUnknownPaths() {
+		ResponseEntity<String> failed = get("/loopback-test/fail");
+		ResponseEntity<String> missing = get("/loopback-test/missing");
+
+		assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+		assertThat(failed.getBody()).contains("\"path\":\"/loopback-test/fail\"");
+		assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(missing.getBody()).contains("\"status\":404");
+	}
+
+	private ResponseEntity<String> get(String path) {
+		return client().get().uri(path).header("X-Test", "42")
+				.exchangeToMono(response -> response.toEntity(String.class))
+				.block(Duration.ofSeconds(10));
+	}
+
+	private WebClient client() {
+		return builder.clone().baseUrl("http://localhost:" + port).build();
+	}
+
+	@TestConfiguration
+	static class LoopbackTestConfiguration {
+
+		@Bean
+		OncePerRequestFilter loopbackTestFilter() {
+			return new OncePerRequestFilter() {
+				@Override
+				protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+												FilterChain chain) throws ServletException, IOException {
+					response.setHeader("X-Loopback-Filter", request.getDispatcherType().name());
+					chain.doFilter(request, response);
+				}
+			};
+		}
+	}
+
+	@RestController
+	static class LoopbackTestController {
+
+		@GetMapping("/loopback-test/sync")
+		String sync(@RequestHeader("X-Test") String header) {
+			return "sync on " + Thread.currentThread().getName() + " with header " + header;
+		}
+
+		@PostMapping("/loopback-test/echo")
+		String echo(@RequestBody String body) {
+			return "echo " + body;
+		}
+
+		@GetMapping("/loopback-test/async")
+		Mono<String> async() {
+			return Mono.delay(Duration.ofMillis(50)).map(ignored -> "async");
+		}
+
+		@GetMapping("/loopback-test/never")
+		DeferredResult<String> never() {
+			return new DeferredResult<>(200L);
+		}
+
+		@GetMapping("/loopback-test/fail")
+		String fail() {
+			throw new IllegalStateException("expected");
+		}
+	}
+}
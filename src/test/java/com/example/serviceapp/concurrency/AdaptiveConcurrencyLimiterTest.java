@@ -0,0 +1,107 @@
+package com.example.serviceapp.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AdaptiveConcurrencyLimiterTest {
+	private static final long BASELINE = 1_000_000L;
+
+	@Test
+	void shedsCallsBeyondTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 2.0, 0.5);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+		limiter.onSuccess(BASELINE);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void growsWhileLatencyHoldsAndBacksOffWhenItDegrades() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 1, 10, 2.0, 0.5);
+
+		for (int i = 0; i < 100; i++) {
+			fill(limiter);
+			drain(limiter, BASELINE);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(10);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		limiter.onSuccess(BASELINE * 5);
+		assertThat(limiter.getLimit()).isEqualTo(5);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		limiter.onFailure();
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void limitFallsWhenLatencyRisesWithLoad() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 5, 1, 100, 2.0, 0.5);
+		int capacity = 10;
+		int peak = 0;
+		boolean fell = false;
+
+		// A service that slows down in proportion to the calls admitted beyond its capacity
+		for (int i = 0; i < 500; i++) {
+			fill(limiter);
+			int admitted = limiter.getInFlight();
+			int before = limiter.getLimit();
+			drain(limiter, BASELINE * Math.max(capacity, admitted) / capacity);
+			peak = Math.max(peak, before);
+			fell |= limiter.getLimit() < before;
+		}
+
+		assertThat(fell).isTrue();
+		assertThat(peak).isLessThan(3 * capacity);
+	}
+
+	@Test
+	void neverDropsBelowMinimum() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 3, 2, 10, 2.0, 0.5);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+			limiter.onFailure();
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void exportsLimitAndRejections() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("/test", 1, 1, 10, 2.0, 0.5);
+		limiter.bindTo(registry);
+
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+
+		assertThat(registry.get("concurrency.limit").tag("endpoint", "/test").gauge().value()).isEqualTo(1.0);
+		assertThat(registry.get("concurrency.in-flight").tag("endpoint", "/test").gauge().value()).isEqualTo(1.0);
+		assertThat(registry.get("concurrency.rejected").tag("endpoint", "/test").functionCounter().count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void rejectsInconsistentBounds() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new AdaptiveConcurrencyLimiter("test", 5, 1, 4, 2.0, 0.5));
+		assertThatIllegalArgumentException().isThrownBy(() -> new AdaptiveConcurrencyLimiter("test", 2, 1, 4, 2.0, 1.0));
+	}
+
+	private static void fill(AdaptiveConcurrencyLimiter limiter) {
+		while (limiter.tryAcquire()) {
+		}
+	}
+
+	private static void drain(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+		while (limiter.getInFlight() > 0) {
+			limiter.onSuccess(latencyNanos);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.serviceapp.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedExecutorTest {
+	private final BoundedExecutor executor = new BoundedExecutor("test", 1, 1, Thread.ofPlatform().daemon().factory());
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	void rejectsOnceThreadsAndQueueAreFull() {
+		executor.submit(this::blockUntilReleased);
+		executor.submit(this::blockUntilReleased);
+
+		assertThatThrownBy(() -> executor.submit(this::blockUntilReleased)).isInstanceOf(RejectedExecutionException.class);
+		assertThat(executor.getRejectedCount()).isEqualTo(1);
+		assertThat(executor.getQueueDepth()).isEqualTo(1);
+	}
+
+	@Test
+	void separatesQueueWaitFromServiceTime() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		executor.bindTo(registry);
+
+		CompletableFuture<BoundedExecutor.Timed<String>> first = executor.submit(() -> sleep(100));
+		CompletableFuture<BoundedExecutor.Timed<String>> second = executor.submit(() -> sleep(100));
+
+		BoundedExecutor.Timed<String> queued = second.get(2, TimeUnit.SECONDS);
+		assertThat(first.get().queueWaitNanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(80));
+		assertThat(queued.queueWaitNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(80));
+		assertThat(queued.serviceNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(queued.value()).isEqualTo("done");
+		assertThat(registry.get("executor.queue.wait").tag("name", "test").timer().count()).isEqualTo(2);
+		assertThat(registry.get("executor.service.time").tag("name", "test").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void taskFailuresCompleteTheFutureExceptionally() {
+		CompletableFuture<BoundedExecutor.Timed<String>> result = executor.submit(() -> {
+			throw new IllegalStateException("boom");
+		});
+
+		assertThatThrownBy(result::join).hasRootCauseMessage("boom");
+	}
+
+	private String blockUntilReleased() {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "done";
+	}
+
+	private static String sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "done";
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.serviceapp.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+	private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+	private final AtomicInteger started = new AtomicInteger();
+
+	@Test
+	void concurrentCallsForTheSameKeyShareOneCall() {
+		CompletableFuture<String> downstream = new CompletableFuture<>();
+
+		CompletableFuture<String> first = singleFlight.execute("a", () -> start(downstream));
+		CompletableFuture<String> second = singleFlight.execute("a", () -> start(new CompletableFuture<>()));
+		downstream.complete("result");
+
+		assertThat(started).hasValue(1);
+		assertThat(first.join()).isEqualTo("result");
+		assertThat(second.join()).isEqualTo("result");
+		assertThat(singleFlight.getSharedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void differentKeysDoNotShare() {
+		singleFlight.execute("a", () -> start(new CompletableFuture<>()));
+		singleFlight.execute("b", () -> start(new CompletableFuture<>()));
+
+		assertThat(started).hasValue(2);
+		assertThat(singleFlight.getInFlightCount()).isEqualTo(2);
+	}
+
+	@Test
+	void keyIsForgottenOnceTheCallCompletes() {
+		singleFlight.execute("a", () -> start(CompletableFuture.completedFuture("first"))).join();
+		String second = singleFlight.execute("a", () -> start(CompletableFuture.completedFuture("second"))).join();
+
+		assertThat(second).isEqualTo("second");
+		assertThat(started).hasValue(2);
+		assertThat(singleFlight.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void failuresReachEveryCallerAndAreNotRemembered() {
+		CompletableFuture<String> downstream = new CompletableFuture<>();
+		CompletableFuture<String> first = singleFlight.execute("a", () -> start(downstream));
+		CompletableFuture<String> second = singleFlight.execute("a", () -> start(new CompletableFuture<>()));
+		downstream.completeExceptionally(new IllegalStateException("boom"));
+
+		assertThatThrownBy(first::join).isInstanceOf(CompletionException.class).hasRootCauseMessage("boom");
+		assertThatThrownBy(second::join).isInstanceOf(CompletionException.class).hasRootCauseMessage("boom");
+		assertThat(singleFlight.getInFlightCount()).isZero();
+	}
+
+	private <T> CompletableFuture<T> start(CompletableFuture<T> call) {
+		started.incrementAndGet();
+		return call;
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.serviceapp.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class WheelTimerTest {
+	private final WheelTimer timer = new WheelTimer(Duration.ofMillis(5), 64, Thread.ofPlatform().daemon().factory());
+
+	@AfterEach
+	void stop() {
+		timer.stop();
+	}
+
+	@Test
+	void emitsAfterTheDelay() {
+		long start = System.nanoTime();
+
+		Long value = timer.delay(Duration.ofMillis(50)).block(Duration.ofSeconds(5));
+
+		assertThat(value).isZero();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(45));
+	}
+
+	@Test
+	void cancellingRemovesThePendingDelay() throws Exception {
+		AtomicInteger fired = new AtomicInteger();
+		List<Disposable> subscriptions = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			subscriptions.add(timer.delay(Duration.ofMillis(200)).subscribe(ignored -> fired.incrementAndGet()));
+		}
+		assertThat(timer.getPendingCount()).isEqualTo(10_000);
+
+		subscriptions.forEach(Disposable::dispose);
+
+		await().atMost(Duration.ofSeconds(2)).until(() -> timer.getPendingCount() == 0);
+		Thread.sleep(300);
+		assertThat(fired).hasValue(0);
+	}
+}
@@ -0,0 +1,189 @@
+package com.example.serviceapp.detection;
+
+import com.example.loggingwrapper.LogBuffer;
+import com.example.loggingwrapper.LogEvent;
+import com.example.loggingwrapper.LogEventDeserializer;
+import com.example.loggingwrapper.TextLogEventEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Feeds the detector the records the simulators would publish, round-tripped through the wire format
+ * as an in-memory stand-in for {@code logs-topic}.
+ */
+class AntiPatternDetectorTest {
+	private static final long START = 1_742_042_400_000L;
+	private static final Duration WINDOW = Duration.ofSeconds(60);
+
+	private final List<Detection> detections = new ArrayList<>();
+	private final AntiPatternDetector detector = new AntiPatternDetector(
+			new AntiPatternDetector.Thresholds(10, 5, 4, 3, Duration.ofMillis(1), 5, 0.6, 3),
+			WINDOW, 6, new AntiPatternDetector.Limits(100, 1000, 100, 100), detections::add);
+	private final TextLogEventEncoder encoder = new TextLogEventEncoder();
+	private final LogEventDeserializer deserializer = new LogEventDeserializer();
+	private final LogBuffer buffer = new LogBuffer(256);
+
+	@Test
+	void detectsChattyTraceOnce() {
+		for (int i = 0; i < 14; i++) {
+			call(START + i, "chatty-service-" + i, "chatty-service-" + (i + 1), "trace-1", "hop-" + i, "root");
+		}
+
+		assertThat(detections).singleElement().satisfies(detection -> {
+			assertThat(detection.pattern()).isEqualTo(AntiPattern.CHATTY_SERVICES);
+			assertThat(detection.subject()).isEqualTo("chatty-service-0");
+			assertThat(detection.traceId()).isEqualTo("trace-1");
+			assertThat(detection.observed()).isEqualTo(11);
+		});
+	}
+
+	@Test
+	void detectsLongChainFromSpanNesting() {
+		String parent = null;
+		for (int i = 0; i < 7; i++) {
+			String span = "span-" + i;
+			call(START + i, "long-chain-" + i, i < 6 ? "long-chain-" + (i + 1) : null, "trace-1", span, parent);
+			parent = span;
+		}
+
+		assertThat(detections).singleElement().satisfies(detection -> {
+			assertThat(detection.pattern()).isEqualTo(AntiPattern.LONG_SERVICE_CHAIN);
+			assertThat(detection.subject()).isEqualTo("long-chain-0");
+			assertThat(detection.observed()).isEqualTo(6);
+		});
+	}
+
+	@Test
+	void raisesFanOutOncePerWindow() {
+		for (int request = 0; request < 3; request++) {
+			for (String service : new String[]{"service-a", "service-b", "service-c", "service-d"}) {
+				call(START + request, "fan-out-main-service", service, "trace-" + request, service + request, null);
+			}
+		}
+		assertThat(detections).extracting(Detection::pattern).containsExactly(AntiPattern.SERVICE_FAN_OUT);
+
+		for (String service : new String[]{"service-a", "service-b", "service-c", "service-d"}) {
+			call(START + WINDOW.toMillis() + 1, "fan-out-main-service", service, "trace-later", service, null);
+		}
+		assertThat(detections).extracting(Detection::pattern)
+				.containsExactly(AntiPattern.SERVICE_FAN_OUT, AntiPattern.SERVICE_FAN_OUT);
+	}
+
+	@Test
+	void detectsFanInAcrossTraces() {
+		call(START, "fan-in-service-a", "fan-in-overloaded-service", "trace-1", "a", null);
+		call(START + 1, "fan-in-service-b", "fan-in-overloaded-service", "trace-2", "b", null);
+		assertThat(detections).isEmpty();
+
+		call(START + 2, "fan-in-service-c", "fan-in-overloaded-service", "trace-3", "c", null);
+
+		assertThat(detections).singleElement().satisfies(detection -> {
+			assertThat(detection.pattern()).isEqualTo(AntiPattern.SERVICE_FAN_IN);
+			assertThat(detection.subject()).isEqualTo("fan-in-overloaded-service");
+			assertThat(detection.observed()).isEqualTo(3);
+		});
+	}
+
+	@Test
+	void detectsNanoServiceButNotSlowLeaf() {
+		for (int i = 0; i < 5; i++) {
+			long at = START + i * 1000L;
+			span(at, at, "nano-service-handler", "trace-n" + i, "n" + i);
+			span(at, at + 500, "service-a", "trace-s" + i, "s" + i);
+		}
+
+		assertThat(detections).singleElement().satisfies(detection -> {
+			assertThat(detection.pattern()).isEqualTo(AntiPattern.NANO_SERVICE);
+			assertThat(detection.subject()).isEqualTo("nano-service-handler");
+			assertThat(detection.observed()).isEqualTo(5);
+		});
+	}
+
+	@Test
+	void detectsCycleWhenItCloses() {
+		call(START, "cyclic-service-A", "cyclic-service-B", "trace-1", "a", null);
+		call(START + 1, "cyclic-service-B", "cyclic-service-C", "trace-1", "b", "a");
+		assertThat(detections).isEmpty();
+
+		call(START + 2, "cyclic-service-C", "cyclic-service-A", "trace-1", "c", "b");
+
+		assertThat(detections).singleElement().satisfies(detection -> {
+			assertThat(detection.pattern()).isEqualTo(AntiPattern.CYCLIC_DEPENDENCY);
+			assertThat(detection.subject()).isEqualTo("cyclic-service-C -> cyclic-service-A");
+			assertThat(detection.traceId()).isEqualTo("trace-1");
+			assertThat(detection.observed()).isEqualTo(3);
+		});
+		assertThat(detector.cycles()).singleElement().satisfies(cycle -> {
+			assertThat(cycle.services()).containsExactly("cyclic-service-A", "cyclic-service-B", "cyclic-service-C");
+			assertThat(cycle.density()).isEqualTo(0.5);
+		});
+	}
+
+	@Test
+	void detectsKnotOnceDenseEnough() {
+		String[] services = {"knot-service-A", "knot-service-B", "knot-service-C"};
+		for (int from = 0; from < 3; from++) {
+			for (int to = 0; to < 3; to++) {
+				if (from != to) {
+					call(START + from, services[from], services[to], "trace-1", services[from], null);
+				}
+			}
+		}
+
+		// A <-> B closes first; C -> A then pulls C in with five of the six possible edges already present
+		assertThat(detections).extracting(Detection::pattern, Detection::subject).containsExactly(
+				tuple(AntiPattern.CYCLIC_DEPENDENCY, "knot-service-B -> knot-service-A"),
+				tuple(AntiPattern.CYCLIC_DEPENDENCY, "knot-service-C -> knot-service-A"),
+				tuple(AntiPattern.KNOT, "knot-service-C"));
+		assertThat(detections.get(2).observed()).isEqualTo(5);
+		assertThat(detections.get(2).threshold()).isEqualTo(4);
+	}
+
+	@Test
+	void forgetsEdgesOutsideTheWindow() {
+		call(START, "cyclic-service-A", "cyclic-service-B", "trace-1", "a", null);
+		assertThat(detector.graph()).singleElement().satisfies(edge -> assertThat(edge.calls()).isEqualTo(1));
+
+		call(START + 1, "cyclic-service-B", "cyclic-service-A", "trace-1", "b", "a");
+		assertThat(detector.cycles()).hasSize(1);
+
+		call(START + WINDOW.toMillis() * 2, "knot-service-A", "knot-service-B", "trace-2", "c", null);
+
+		assertThat(detector.graph()).singleElement().satisfies(edge -> assertThat(edge.source()).isEqualTo("knot-service-A"));
+		assertThat(detector.cycles()).isEmpty();
+	}
+
+	@Test
+	void staysWithinItsLimits() {
+		for (int i = 0; i < 10_000; i++) {
+			call(START + i, "service-" + i, "service-" + (i + 1), "trace-" + i, "span-" + i, null);
+		}
+
+		assertThat(detector.getTrackedTraceCount()).isLessThanOrEqualTo(100);
+		assertThat(detector.getEdgeCount()).isLessThanOrEqualTo(100);
+		assertThat(detector.getEventCount()).isEqualTo(10_000);
+	}
+
+	private void call(long at, String source, String destination, String traceId, String spanId, String parentSpanId) {
+		publish(new LogEvent().timestamp(at).source(source).destination(destination).method("invoke").type("GET")
+				.request("test").httpStatus(102).traceId(traceId).spanId(spanId).parentSpanId(parentSpanId));
+	}
+
+	private void span(long startedAt, long endedAt, String service, String traceId, String spanId) {
+		publish(new LogEvent().timestamp(startedAt).source(service).method("process").type("GET")
+				.request("test").httpStatus(102).traceId(traceId).spanId(spanId));
+		publish(new LogEvent().timestamp(endedAt).source(service).method("process").type("GET")
+				.request("test").httpStatus(200).response("done").traceId(traceId).spanId(spanId));
+	}
+
+	private void publish(LogEvent event) {
+		encoder.encode(event, buffer.clear());
+		detector.accept(deserializer.deserialize("logs-topic", buffer.toByteArray()));
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.serviceapp.detection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-edge cost of the {@link IncrementalSccIndex} on service graphs of 10k+ services.
+ * <p>
+ * Each invocation starts from a layered call graph (every service calls three in the next layer) and applies
+ * a batch of random new edges. Nine in ten call further down the layers; the rest call back up to at most
+ * {@code upstreamLayers} layers above and may close cycles. With {@code upstreamLayers=1} the cycles stay local, as
+ * in the simulators; with 20 they merge most of the graph into one component, the worst case for the index. The
+ * churn benchmark also expires the batch again, which splits the components those edges created.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.serviceapp.detection.IncrementalSccIndexBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalSccIndexBenchmark {
+	private static final int LAYERS = 20;
+	private static final int BATCH = 1_000;
+
+	@Param({"10000", "50000"})
+	private int services;
+
+	@Param({"1", "20"})
+	private int upstreamLayers;
+
+	private final IncrementalSccIndex.Listener ignore = new IncrementalSccIndex.Listener() {
+		@Override
+		public void onCycle(String source, String destination, int services) {
+		}
+
+		@Override
+		public void onKnot(String service, int services, int edges, double density) {
+		}
+	};
+	private final Random random = new Random(7);
+	private String[] names;
+	private IncrementalSccIndex index;
+	private final String[][] batch = new String[BATCH][];
+
+	@Setup(Level.Trial)
+	public void names() {
+		names = new String[services];
+		for (int i = 0; i < services; i++) {
+			names[i] = "service-" + i;
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void layeredGraph() {
+		index = new IncrementalSccIndex(0.6, 3, ignore);
+		int perLayer = services / LAYERS;
+		for (int i = 0; i < services - perLayer; i++) {
+			int nextLayer = (i / perLayer + 1) * perLayer;
+			for (int k = 0; k < 3; k++) {
+				index.addEdge(names[i], names[nextLayer + random.nextInt(perLayer)]);
+			}
+		}
+		for (int i = 0; i < BATCH; i++) {
+			int layer = 1 + random.nextInt(LAYERS - 1);
+			int from = layer * perLayer + random.nextInt(perLayer);
+			int toLayer = random.nextInt(10) == 0
+					? layer - 1 - random.nextInt(Math.min(upstreamLayers, layer))
+					: layer + 1 + random.nextInt(Math.max(1, LAYERS - layer - 1));
+			int to = Math.min(toLayer, LAYERS - 1) * perLayer + random.nextInt(perLayer);
+			batch[i] = new String[]{names[from], names[to]};
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int addEdge() {
+		for (String[] edge : batch) {
+			index.addEdge(edge[0], edge[1]);
+		}
+		return index.getComponentCount();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(2 * BATCH)
+	public int addThenExpireEdge() {
+		for (String[] edge : batch) {
+			index.addEdge(edge[0], edge[1]);
+		}
+		for (String[] edge : batch) {
+			index.removeEdge(edge[0], edge[1]);
+		}
+		return index.getComponentCount();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(IncrementalSccIndexBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
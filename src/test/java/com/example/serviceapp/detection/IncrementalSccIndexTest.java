@@ -0,0 +1,159 @@
+package com.example.serviceapp.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalSccIndexTest {
+	private final List<String> cycles = new ArrayList<>();
+	private final List<String> knots = new ArrayList<>();
+	private final IncrementalSccIndex index = new IncrementalSccIndex(0.6, 3, new IncrementalSccIndex.Listener() {
+		@Override
+		public void onCycle(String source, String destination, int services) {
+			cycles.add(source + "->" + destination + ":" + services);
+		}
+
+		@Override
+		public void onKnot(String service, int services, int edges, double density) {
+			knots.add(service + ":" + edges);
+		}
+	});
+
+	@Test
+	void reportsCycleWhenClosingEdgeArrives() {
+		index.addEdge("A", "B");
+		index.addEdge("B", "C");
+		index.addEdge("X", "A");
+		assertThat(cycles).isEmpty();
+
+		index.addEdge("C", "A");
+
+		assertThat(cycles).containsExactly("C->A:3");
+		assertThat(index.componentOf("B")).containsExactly("A", "B", "C");
+		assertThat(index.componentOf("X")).containsExactly("X");
+		assertThat(knots).isEmpty();
+	}
+
+	@Test
+	void reportsKnotWhenDensityCrossesThreshold() {
+		index.addEdge("A", "B");
+		index.addEdge("B", "C");
+		index.addEdge("C", "A");
+		index.addEdge("A", "C");
+		assertThat(knots).containsExactly("A:4");
+
+		index.addEdge("B", "A");
+
+		assertThat(knots).hasSize(1);
+	}
+
+	@Test
+	void splitsComponentWhenCycleEdgeIsRemoved() {
+		index.addEdge("A", "B");
+		index.addEdge("B", "C");
+		index.addEdge("C", "A");
+		index.addEdge("C", "D");
+
+		index.removeEdge("C", "A");
+
+		assertThat(index.cycles()).isEmpty();
+		assertThat(index.getCyclicComponentCount()).isZero();
+		assertThat(index.getComponentCount()).isEqualTo(4);
+
+		// The order must still be usable after the split
+		index.addEdge("D", "A");
+		assertThat(index.componentOf("A")).containsExactly("A", "B", "C", "D");
+	}
+
+	@Test
+	void forgetsServicesLeftWithoutEdges() {
+		index.addEdge("A", "B");
+		index.removeEdge("A", "B");
+
+		assertThat(index.getServiceCount()).isZero();
+		assertThat(index.getComponentCount()).isZero();
+		assertThat(index.getEdgeCount()).isZero();
+	}
+
+	@Test
+	void matchesFromScratchComputationUnderRandomUpdates() {
+		Random random = new Random(42);
+		Map<String, Set<String>> graph = new HashMap<>();
+		List<String[]> edges = new ArrayList<>();
+		for (int step = 0; step < 5_000; step++) {
+			if (!edges.isEmpty() && random.nextInt(3) == 0) {
+				String[] edge = edges.remove(random.nextInt(edges.size()));
+				graph.get(edge[0]).remove(edge[1]);
+				index.removeEdge(edge[0], edge[1]);
+			} else {
+				String source = "s" + random.nextInt(60);
+				String destination = "s" + random.nextInt(60);
+				if (!source.equals(destination) && graph.computeIfAbsent(source, s -> new HashSet<>()).add(destination)) {
+					edges.add(new String[]{source, destination});
+				}
+				index.addEdge(source, destination);
+			}
+			if (step % 50 == 0) {
+				assertSameComponents(graph);
+			}
+		}
+		assertSameComponents(graph);
+	}
+
+	private void assertSameComponents(Map<String, Set<String>> graph) {
+		Set<Set<String>> expected = new HashSet<>();
+		for (Set<String> component : stronglyConnectedComponents(graph)) {
+			if (component.size() > 1) {
+				expected.add(component);
+			}
+		}
+		Set<Set<String>> actual = new HashSet<>();
+		for (IncrementalSccIndex.CyclicComponent component : index.cycles()) {
+			actual.add(new HashSet<>(component.services()));
+		}
+		assertThat(actual).isEqualTo(expected);
+		assertThat(index.getCyclicComponentCount()).isEqualTo(expected.size());
+	}
+
+	/**
+	 * Reference: a component is the set of nodes both reachable from and reaching a node.
+	 */
+	private static List<Set<String>> stronglyConnectedComponents(Map<String, Set<String>> graph) {
+		Map<String, Set<String>> reverse = new HashMap<>();
+		graph.forEach((source, destinations) -> destinations.forEach(destination ->
+				reverse.computeIfAbsent(destination, d -> new HashSet<>()).add(source)));
+		Set<String> assigned = new HashSet<>();
+		List<Set<String>> components = new ArrayList<>();
+		for (String node : graph.keySet()) {
+			if (assigned.add(node)) {
+				Set<String> component = reachable(graph, node);
+				component.retainAll(reachable(reverse, node));
+				assigned.addAll(component);
+				components.add(component);
+			}
+		}
+		return components;
+	}
+
+	private static Set<String> reachable(Map<String, Set<String>> graph, String start) {
+		Set<String> seen = new HashSet<>(List.of(start));
+		ArrayDeque<String> queue = new ArrayDeque<>(seen);
+		while (!queue.isEmpty()) {
+			for (String next : graph.getOrDefault(queue.poll(), Set.of())) {
+				if (seen.add(next)) {
+					queue.add(next);
+				}
+			}
+		}
+		return seen;
+	}
+}
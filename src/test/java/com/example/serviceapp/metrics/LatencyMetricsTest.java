@@ -0,0 +1,43 @@
+package com.example.serviceapp.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyMetricsTest {
+
+	@Test
+	void writesSummariesInPrometheusTextFormat() {
+		LatencyMetrics metrics = new LatencyMetrics(new SimpleMeterRegistry(), Duration.ofMinutes(1), 10);
+		metrics.endpoint("GET /knot/start").record(2_000_000);
+		metrics.hop("GET /say \"hi\"").start();
+
+		StringBuilder out = new StringBuilder();
+		metrics.writeTo(out);
+
+		assertThat(out.toString())
+				.contains("# TYPE simulator_endpoint_latency_seconds summary\n")
+				.contains("simulator_endpoint_latency_seconds{endpoint=\"GET /knot/start\",quantile=\"0.99\"} 0.002")
+				.contains("simulator_endpoint_latency_seconds_count{endpoint=\"GET /knot/start\"} 1.0\n")
+				.contains("simulator_endpoint_in_flight{endpoint=\"GET /knot/start\"} 0.0\n")
+				.contains("simulator_hop_in_flight{hop=\"GET /say \\\"hi\\\"\"} 1.0\n");
+	}
+
+	@Test
+	void sharesOneRecorderBeyondMaxSeries() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		LatencyMetrics metrics = new LatencyMetrics(registry, Duration.ofMinutes(1), 2);
+
+		LatencyRecorder first = metrics.hop("GET /fan-out/a");
+		metrics.hop("GET /fan-out/b");
+		LatencyRecorder third = metrics.hop("GET /fan-out/c");
+
+		assertThat(metrics.hop("GET /fan-out/a")).isSameAs(first);
+		assertThat(metrics.hop("GET /fan-out/d")).isSameAs(third);
+		assertThat(registry.find("simulator.hop.in.flight").tag("hop", LatencyMetrics.OTHER).gauge()).isNotNull();
+		assertThat(registry.find("simulator.hop.in.flight").gauges()).hasSize(3);
+	}
+}
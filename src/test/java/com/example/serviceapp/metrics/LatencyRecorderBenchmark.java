@@ -0,0 +1,83 @@
+package com.example.serviceapp.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cost of one measurement on a {@link LatencyRecorder}: a {@code start}/{@code stop} pair, which reads the clock
+ * twice and updates the in-flight count, and a bare {@code record} of a precomputed value. Runs with four threads
+ * sharing the recorder, as request threads do, while a fifth reads it every millisecond.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.serviceapp.metrics.LatencyRecorderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LatencyRecorderBenchmark {
+	private final LatencyRecorder recorder = new LatencyRecorder(Duration.ofSeconds(10));
+	private volatile boolean reading = true;
+	private Thread reader;
+
+	@Setup
+	public void startReader() {
+		// HdrHistogram swallows interrupts while flipping recorders, so the reader stops on a flag
+		reader = Thread.ofPlatform().daemon().start(() -> {
+			while (reading) {
+				recorder.snapshot();
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			}
+		});
+	}
+
+	@TearDown
+	public void stopReader() throws InterruptedException {
+		reading = false;
+		reader.join();
+	}
+
+	@Benchmark
+	public void startStop() {
+		recorder.stop(recorder.start());
+	}
+
+	@Benchmark
+	public void record(ThreadValues values) {
+		recorder.record(values.next());
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadValues {
+		private long value = 1_000;
+
+		long next() {
+			value = value * 6364136223846793005L + 1442695040888963407L;
+			return 1_000 + ((value >>> 40) & 0xFFFFFF) * 100;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LatencyRecorderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.serviceapp.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyRecorderTest {
+
+	@Test
+	void mergesRecordersOfAllThreadsOnRead() throws InterruptedException {
+		LatencyRecorder recorder = new LatencyRecorder(Duration.ofMinutes(1));
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 1; i <= 1000; i++) {
+					recorder.record(TimeUnit.MICROSECONDS.toNanos(i));
+				}
+			}));
+		}
+		threads.add(Thread.ofVirtual().start(() -> recorder.record(TimeUnit.SECONDS.toNanos(2))));
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+
+		assertThat(snapshot.count()).isEqualTo(4001);
+		assertThat(snapshot.valueAt(0.5)).isCloseTo(TimeUnit.MICROSECONDS.toNanos(500), within(10_000L));
+		assertThat(snapshot.valueAt(0.99)).isCloseTo(TimeUnit.MICROSECONDS.toNanos(990), within(20_000L));
+		assertThat(snapshot.maxNanos()).isCloseTo(TimeUnit.SECONDS.toNanos(2), within(TimeUnit.MILLISECONDS.toNanos(20)));
+		assertThat(snapshot.sumSeconds()).isCloseTo(4 * 0.5005 + 2, within(0.05));
+	}
+
+	@Test
+	void keepsTotalsAcrossReadsAndWindows() throws InterruptedException {
+		LatencyRecorder recorder = new LatencyRecorder(Duration.ofMillis(1));
+		recorder.record(1_000_000);
+		LatencyRecorder.Snapshot first = recorder.snapshot();
+		assertThat(first.count()).isEqualTo(1);
+		assertThat(first.window().getTotalCount()).isEqualTo(1);
+
+		// Two window turns later the value has left the window but not the totals
+		Thread.sleep(5);
+		recorder.snapshot();
+		Thread.sleep(5);
+		LatencyRecorder.Snapshot idle = recorder.snapshot();
+		assertThat(idle.window().getTotalCount()).isZero();
+		assertThat(idle.valueAt(0.99)).isZero();
+		assertThat(idle.count()).isEqualTo(1);
+
+		recorder.record(3_000_000);
+		LatencyRecorder.Snapshot last = recorder.snapshot();
+		assertThat(last.count()).isEqualTo(2);
+		assertThat(last.window().getTotalCount()).isEqualTo(1);
+		assertThat(last.maxNanos()).isCloseTo(3_000_000L, within(30_000L));
+	}
+
+	@Test
+	void forgetsWindowsThatPassedWithoutARead() throws InterruptedException {
+		LatencyRecorder recorder = new LatencyRecorder(Duration.ofMillis(50));
+		recorder.record(1_000_000);
+		assertThat(recorder.snapshot().window().getTotalCount()).isEqualTo(1);
+
+		Thread.sleep(120);
+		recorder.record(2_000_000);
+		LatencyRecorder.Snapshot later = recorder.snapshot();
+
+		assertThat(later.count()).isEqualTo(2);
+		assertThat(later.window().getTotalCount()).isEqualTo(1);
+		assertThat(later.valueAt(0.5)).isGreaterThanOrEqualTo(1_990_000);
+	}
+
+	@Test
+	void countsCallsInFlight() {
+		LatencyRecorder recorder = new LatencyRecorder(Duration.ofMinutes(1));
+		long first = recorder.start();
+		recorder.start();
+		assertThat(recorder.inFlight()).isEqualTo(2);
+
+		recorder.stop(first);
+
+		assertThat(recorder.inFlight()).isEqualTo(1);
+		assertThat(recorder.snapshot().count()).isEqualTo(1);
+	}
+}
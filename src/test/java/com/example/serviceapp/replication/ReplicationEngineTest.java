@@ -0,0 +1,150 @@
+package com.example.serviceapp.replication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class ReplicationEngineTest {
+	private ReplicationEngine engine;
+
+	@AfterEach
+	void stop() {
+		if (engine != null) {
+			engine.destroy();
+		}
+	}
+
+	@Test
+	void writesReachTheReplicaAfterTheLag() {
+		engine = new ReplicationEngine(Duration.ofMillis(200), Duration.ZERO, 10, 100);
+		List<Versioned> replicated = new CopyOnWriteArrayList<>();
+
+		long version = engine.write("key", "a", replicated::add);
+
+		ReplicaRead before = engine.read("key");
+		assertThat(before.value()).isNull();
+		assertThat(before.latestVersion()).isEqualTo(version);
+		assertThat(before.versionsBehind()).isEqualTo(1);
+		assertThat(before.isStale()).isTrue();
+
+		await().atMost(Duration.ofSeconds(2)).until(() -> replicated.size() == 1);
+		ReplicaRead after = engine.read("key");
+		assertThat(after.value()).isEqualTo("a");
+		assertThat(after.version()).isEqualTo(version);
+		assertThat(after.isStale()).isFalse();
+		assertThat(after.ageMillis()).isGreaterThanOrEqualTo(150);
+		assertThat(engine.getPendingCount()).isZero();
+	}
+
+	@Test
+	void replicaKeepsTheNewestVersionWhenJitterReordersWrites() {
+		engine = new ReplicationEngine(Duration.ofMillis(50), Duration.ofMillis(50), 1000, 100);
+		List<Versioned> replicated = new CopyOnWriteArrayList<>();
+
+		long last = 0;
+		for (int i = 0; i < 200; i++) {
+			last = engine.write("key", "v" + i, replicated::add);
+		}
+
+		await().atMost(Duration.ofSeconds(2)).until(() -> replicated.size() == 200);
+		assertThat(engine.read("key").value()).isEqualTo("v199");
+		assertThat(engine.read("key").version()).isEqualTo(last);
+	}
+
+	@Test
+	void rejectsWritesBeyondTheBacklogLimit() {
+		engine = new ReplicationEngine(Duration.ofSeconds(10), Duration.ZERO, 2, 100);
+
+		assertThat(engine.write("key", "a", applied -> { })).isPositive();
+		assertThat(engine.write("key", "b", applied -> { })).isPositive();
+		assertThat(engine.write("key", "c", applied -> { })).isEqualTo(-1);
+		assertThat(engine.getPendingCount()).isEqualTo(2);
+	}
+
+	@Test
+	void countsOnlyWritesToTheSameKeyAsBehind() {
+		engine = new ReplicationEngine(Duration.ofSeconds(10), Duration.ZERO, 100, 100);
+
+		engine.write("key", "a", applied -> { });
+		for (int i = 0; i < 5; i++) {
+			engine.write("other-" + i, "x", applied -> { });
+		}
+		engine.write("key", "b", applied -> { });
+
+		ReplicaRead read = engine.read("key");
+		assertThat(read.latestVersion()).isEqualTo(7);
+		assertThat(read.versionsBehind()).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsNewKeysBeyondTheKeyLimit() {
+		engine = new ReplicationEngine(Duration.ofSeconds(10), Duration.ZERO, 100, 2);
+
+		assertThat(engine.write("a", "1", applied -> { })).isPositive();
+		assertThat(engine.write("b", "1", applied -> { })).isPositive();
+		assertThat(engine.write("c", "1", applied -> { })).isEqualTo(ReplicationEngine.TOO_MANY_KEYS);
+		assertThat(engine.write("a", "2", applied -> { })).isPositive();
+		assertThat(engine.getPendingCount()).isEqualTo(3);
+	}
+
+	@Test
+	void readYourWritesWaitsForTheTokenOnly() {
+		engine = new ReplicationEngine(Duration.ofMillis(300), Duration.ZERO, 10, 100);
+
+		long token = engine.write("key", "mine", applied -> { });
+		CompletableFuture<ReplicaRead> read = engine.readYourWrites("key", token, Duration.ofSeconds(2));
+		CompletableFuture<ReplicaRead> otherKey = engine.readYourWrites("other", token, Duration.ofSeconds(2));
+
+		assertThat(read).isNotDone();
+		assertThat(otherKey).isCompleted();
+		assertThat(read.join().value()).isEqualTo("mine");
+		assertThat(engine.readYourWrites("key", token, Duration.ofSeconds(2))).isCompleted();
+	}
+
+	@Test
+	void boundedStalenessIgnoresWritesYoungerThanTheBound() {
+		engine = new ReplicationEngine(Duration.ofMillis(500), Duration.ZERO, 10, 100);
+
+		engine.write("key", "a", applied -> { });
+
+		assertThat(engine.readBoundedStaleness("key", Duration.ofSeconds(5), Duration.ofSeconds(2))).isCompleted();
+		CompletableFuture<ReplicaRead> strict = engine.readBoundedStaleness("key", Duration.ZERO, Duration.ofSeconds(2));
+		assertThat(strict).isNotDone();
+		assertThat(strict.join().value()).isEqualTo("a");
+	}
+
+	@Test
+	void waitingReadsTimeOut() {
+		engine = new ReplicationEngine(Duration.ofSeconds(10), Duration.ZERO, 10, 100);
+
+		long token = engine.write("key", "slow", applied -> { });
+
+		assertThatThrownBy(() -> engine.readYourWrites("key", token, Duration.ofMillis(50)).join())
+				.hasCauseInstanceOf(TimeoutException.class);
+	}
+
+	@Test
+	void versionedStoreIgnoresOlderVersions() {
+		VersionedStore store = new VersionedStore();
+
+		assertThat(store.apply("key", new Versioned("new", 2, 2, 0))).isTrue();
+		assertThat(store.apply("key", new Versioned("old", 1, 1, 0))).isFalse();
+		assertThat(store.get("key").value()).isEqualTo("new");
+	}
+
+	@Test
+	void jitterMayNotExceedLag() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new ReplicationEngine(Duration.ofMillis(10), Duration.ofMillis(20), 1, 1));
+	}
+}
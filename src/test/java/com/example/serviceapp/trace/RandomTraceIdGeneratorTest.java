@@ -0,0 +1,30 @@
+package com.example.serviceapp.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RandomTraceIdGeneratorTest {
+	private final RandomTraceIdGenerator generator = new RandomTraceIdGenerator();
+
+	@Test
+	void producesW3cTraceContextIds() {
+		String traceId = generator.newTraceId();
+		String spanId = generator.newSpanId();
+
+		assertThat(traceId).matches("[0-9a-f]{32}").isNotEqualTo("0".repeat(32));
+		assertThat(spanId).matches("[0-9a-f]{16}").isNotEqualTo("0".repeat(16));
+		assertThat("00-" + traceId + "-" + spanId + "-01").matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+	}
+
+	@Test
+	void idsDoNotRepeat() {
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < 100_000; i++) {
+			assertThat(seen.add(generator.newSpanId())).isTrue();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.serviceapp.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SpanStoreTest {
+	private static final long START = 1_742_042_400_000L;
+	private static final Duration MINUTE = Duration.ofMinutes(1);
+
+	private final SpanStore store = new SpanStore(MINUTE, 3, 100, 4);
+
+	@Test
+	void returnsSlowestSpansOfOneServiceInWindow() {
+		for (int i = 0; i < 20; i++) {
+			store.add("trace-" + i, "span-" + i, "fan-in-overloaded-service", START + i * 1000L, i, 200);
+			store.add("other-" + i, "span-" + i, "service-a", START + i * 1000L, 1000 + i, 200);
+		}
+
+		assertThat(store.slowest("fan-in-overloaded-service", MINUTE, Duration.ZERO, 3))
+				.extracting(SpanStore.StoredSpan::traceId, SpanStore.StoredSpan::durationMillis)
+				.containsExactly(tuple("trace-19", 19L), tuple("trace-18", 18L), tuple("trace-17", 17L));
+		assertThat(store.slowest("fan-in-overloaded-service", Duration.ofSeconds(5), Duration.ZERO, 100))
+				.extracting(SpanStore.StoredSpan::spanId)
+				.containsExactly("span-19", "span-18", "span-17", "span-16", "span-15", "span-14");
+		assertThat(store.slowest("fan-in-overloaded-service", MINUTE, Duration.ofMillis(18), 100)).hasSize(2);
+		assertThat(store.slowest("unknown-service", MINUTE, Duration.ZERO, 100)).isEmpty();
+	}
+
+	@Test
+	void windowTooLongForMillisCoversEverySpan() {
+		store.add("trace-1", "span-1", "service-a", START, 5, 200);
+		store.add("trace-2", "span-2", "service-a", START + 90_000, 7, 200);
+
+		assertThat(store.slowest("service-a", Duration.ofSeconds(Long.MAX_VALUE), Duration.ZERO, 10))
+				.extracting(SpanStore.StoredSpan::spanId)
+				.containsExactly("span-2", "span-1");
+	}
+
+	@Test
+	void readsBackEveryColumn() {
+		String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+		String uuid = "123e4567-e89b-12d3-a456-426614174000";
+		store.add(traceId, uuid, "service-a", START, 42, 503);
+
+		assertThat(store.slowest("service-a", MINUTE, Duration.ZERO, 1)).singleElement()
+				.isEqualTo(new SpanStore.StoredSpan(traceId, uuid, "service-a", START, 42, 503));
+	}
+
+	@Test
+	void evictsWholePartitionsAsTimeMovesOn() {
+		for (int minute = 0; minute < 5; minute++) {
+			store.add("trace-" + minute, "span", "service-a", START + minute * MINUTE.toMillis(), minute, 200);
+		}
+
+		assertThat(store.getSpanCount()).isEqualTo(3);
+		assertThat(store.slowest("service-a", Duration.ofHours(1), Duration.ZERO, 100))
+				.extracting(SpanStore.StoredSpan::traceId).containsExactly("trace-4", "trace-3", "trace-2");
+
+		store.add("late", "span", "service-a", START, 1, 200);
+		assertThat(store.getDroppedCount(SpanStore.DropReason.LATE)).isEqualTo(1);
+	}
+
+	@Test
+	void dropsSpansBeyondItsCapacity() {
+		for (int i = 0; i < 180; i++) {
+			store.add("trace-" + i, "span", "service-" + (i % 6), START, i, 200);
+		}
+
+		assertThat(store.getSpanCount()).isEqualTo(100);
+		assertThat(store.getDroppedCount(SpanStore.DropReason.SERVICES)).isEqualTo(48);
+		assertThat(store.getDroppedCount(SpanStore.DropReason.FULL)).isEqualTo(32);
+	}
+}
@@ -0,0 +1,176 @@
+package com.example.serviceapp.trace;
+
+import com.example.loggingwrapper.LogBuffer;
+import com.example.loggingwrapper.LogEvent;
+import com.example.loggingwrapper.LogEventDeserializer;
+import com.example.loggingwrapper.TextLogEventEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second one thread can fold into a {@link TraceAssembler}, replayed from a recorded {@code logs-topic}
+ * file with one text record per line.
+ * <p>
+ * Pass a real recording with {@code -Dreplay.file=events.log}, for example one captured with
+ * {@code kafka-console-consumer.sh --topic logs-topic --from-beginning > events.log} while the app logs in the
+ * {@code TEXT} format. Without one, the benchmark records {@value #SYNTHETIC_TRACES} synthetic traces first: span
+ * trees up to four levels deep and three children wide, {@value #IN_FLIGHT} in flight at a time with their events
+ * interleaved, and one span in fifty never ending so some traces only leave by TTL. {@code replay} decodes every
+ * record before assembling it, as the Kafka listener does; {@code assemble} measures the assembler alone. When the
+ * recording runs out, replay starts over on a fresh assembler.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.serviceapp.trace.TraceAssemblerReplayBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraceAssemblerReplayBenchmark {
+	private static final int SYNTHETIC_TRACES = 20_000;
+	private static final int IN_FLIGHT = 64;
+
+	private final LogEventDeserializer deserializer = new LogEventDeserializer();
+	private byte[][] records;
+	private LogEvent[] events;
+	private TraceAssembler assembler;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		String file = System.getProperty("replay.file");
+		Path recording = file != null ? Path.of(file) : record(Files.createTempFile("trace-replay", ".log"));
+		List<String> lines = Files.readAllLines(recording, StandardCharsets.UTF_8);
+		if (file == null) {
+			Files.delete(recording);
+		}
+		records = new byte[lines.size()][];
+		events = new LogEvent[lines.size()];
+		for (int i = 0; i < records.length; i++) {
+			records[i] = lines.get(i).getBytes(StandardCharsets.UTF_8);
+			events[i] = deserializer.deserialize("logs-topic", records[i]);
+		}
+		assembler = newAssembler();
+	}
+
+	@Benchmark
+	public TraceAssembler replay() {
+		LogEvent event = deserializer.deserialize("logs-topic", records[advance()]);
+		if (event != null) {
+			assembler.accept(event);
+		}
+		return assembler;
+	}
+
+	@Benchmark
+	public TraceAssembler assemble() {
+		LogEvent event = events[advance()];
+		if (event != null) {
+			assembler.accept(event);
+		}
+		return assembler;
+	}
+
+	private int advance() {
+		if (next == records.length) {
+			next = 0;
+			assembler = newAssembler();
+		}
+		return next++;
+	}
+
+	private static TraceAssembler newAssembler() {
+		return new TraceAssembler(Duration.ofSeconds(5), new TraceAssembler.Limits(10_000, 200_000, 10_000));
+	}
+
+	private static Path record(Path recording) throws IOException {
+		Random random = new Random(7);
+		RandomTraceIdGenerator ids = new RandomTraceIdGenerator();
+		TextLogEventEncoder encoder = new TextLogEventEncoder();
+		LogBuffer buffer = new LogBuffer(512);
+		List<List<LogEvent>> inFlight = new ArrayList<>();
+		int started = 0;
+		long now = 1_742_042_400_000L;
+		try (BufferedWriter writer = Files.newBufferedWriter(recording, StandardCharsets.UTF_8)) {
+			while (started < SYNTHETIC_TRACES || !inFlight.isEmpty()) {
+				while (inFlight.size() < IN_FLIGHT && started < SYNTHETIC_TRACES) {
+					List<LogEvent> trace = new ArrayList<>();
+					span(trace, random, ids, ids.newTraceId(), null, 0);
+					inFlight.add(trace);
+					started++;
+				}
+				int pick = random.nextInt(inFlight.size());
+				List<LogEvent> trace = inFlight.get(pick);
+				now += random.nextInt(10) == 0 ? 1 : 0;
+				encoder.encode(trace.removeFirst().timestamp(now), buffer.clear());
+				writer.write(new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+				writer.newLine();
+				if (trace.isEmpty()) {
+					inFlight.set(pick, inFlight.getLast());
+					inFlight.removeLast();
+				}
+			}
+		}
+		return recording;
+	}
+
+	private static void span(List<LogEvent> trace, Random random, RandomTraceIdGenerator ids, String traceId,
+							 String parentSpanId, int depth) {
+		String spanId = ids.newSpanId();
+		String service = "service-" + random.nextInt(50);
+		String destination = "service-" + random.nextInt(50);
+		trace.add(event(service, destination, 102, null, traceId, spanId, parentSpanId));
+		int children = depth < 3 ? random.nextInt(4) : 0;
+		for (int i = 0; i < children; i++) {
+			span(trace, random, ids, traceId, spanId, depth + 1);
+		}
+		if (random.nextInt(50) != 0) {
+			boolean failed = random.nextInt(20) == 0;
+			trace.add(event(service, destination, failed ? 500 : 200, failed ? "failed" : "done", traceId, spanId,
+					parentSpanId));
+		}
+	}
+
+	private static LogEvent event(String service, String destination, int status, String response, String traceId,
+								  String spanId, String parentSpanId) {
+		return new LogEvent().source(service).destination(destination).method("process").type("GET")
+				.request("replay").httpStatus(status).response(response)
+				.traceId(traceId).spanId(spanId).parentSpanId(parentSpanId);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(TraceAssemblerReplayBenchmark.class.getSimpleName());
+		String file = System.getProperty("replay.file");
+		if (file != null) {
+			options.jvmArgsAppend("-Dreplay.file=" + file);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.serviceapp.trace;
+
+import com.example.loggingwrapper.LogBuffer;
+import com.example.loggingwrapper.LogEvent;
+import com.example.loggingwrapper.LogEventDeserializer;
+import com.example.loggingwrapper.TextLogEventEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Feeds the assembler span events round-tripped through the wire format, as they would arrive from
+ * {@code logs-topic}.
+ */
+class TraceAssemblerTest {
+	private static final long START = 1_742_042_400_000L;
+
+	private final TraceAssembler assembler = new TraceAssembler(Duration.ofSeconds(60),
+			new TraceAssembler.Limits(100, 1000, 100));
+	private final TextLogEventEncoder encoder = new TextLogEventEncoder();
+	private final LogEventDeserializer deserializer = new LogEventDeserializer();
+	private final LogBuffer buffer = new LogBuffer(256);
+
+	@Test
+	void assemblesTreeWithDurationsAndCriticalPath() {
+		start(START, "gateway", "trace-1", "root", "caller-span");
+		start(START + 1, "service-a", "trace-1", "a", "root");
+		start(START + 2, "service-b", "trace-1", "b", "root");
+		start(START + 3, "service-c", "trace-1", "c", "b");
+		end(START + 10, "service-a", "trace-1", "a", 200);
+		end(START + 30, "service-c", "trace-1", "c", 500);
+		end(START + 40, "service-b", "trace-1", "b", 500);
+		end(START + 45, "gateway", "trace-1", "root", 500);
+
+		AssembledTrace trace = assembler.trace("trace-1");
+
+		assertThat(trace.complete()).isTrue();
+		assertThat(trace.spanCount()).isEqualTo(4);
+		assertThat(trace.durationMillis()).isEqualTo(45);
+		assertThat(trace.criticalPath()).containsExactly("root", "b", "c");
+		assertThat(trace.roots()).singleElement().satisfies(root -> {
+			assertThat(root.spanId()).isEqualTo("root");
+			assertThat(root.durationMillis()).isEqualTo(45);
+			assertThat(root.httpStatus()).isEqualTo(500);
+			assertThat(root.children()).extracting(AssembledTrace.SpanNode::spanId).containsExactly("a", "b");
+			assertThat(root.children()).extracting(AssembledTrace.SpanNode::durationMillis).containsExactly(9L, 38L);
+			assertThat(root.children()).extracting(AssembledTrace.SpanNode::onCriticalPath).containsExactly(false, true);
+			assertThat(root.children().get(1).children()).singleElement().satisfies(leaf -> {
+				assertThat(leaf.service()).isEqualTo("service-c");
+				assertThat(leaf.durationMillis()).isEqualTo(27);
+			});
+		});
+		assertThat(assembler.getActiveTraceCount()).isZero();
+		assertThat(assembler.getCompletedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void pairsRepeatedStartsOfOneSpan() {
+		start(START, "knot-service-A", "trace-1", "a", null);
+		start(START + 2, "knot-service-A", "trace-1", "a", null);
+		end(START + 5, "knot-service-A", "trace-1", "a", 200);
+		end(START + 8, "knot-service-A", "trace-1", "a", 200);
+
+		AssembledTrace trace = assembler.trace("trace-1");
+
+		assertThat(trace.complete()).isTrue();
+		assertThat(trace.roots()).singleElement().satisfies(span -> assertThat(span.durationMillis()).isEqualTo(8));
+		assertThat(assembler.getReopenedCount()).isEqualTo(1);
+		assertThat(assembler.getActiveTraceCount()).isZero();
+	}
+
+	@Test
+	void reportsIncompleteTraceWhileActive() {
+		start(START, "gateway", "trace-1", "root", null);
+		start(START + 1, "service-a", "trace-1", "a", "root");
+		end(START + 3, "service-a", "trace-1", "a", 200);
+
+		AssembledTrace trace = assembler.trace("trace-1");
+
+		assertThat(trace.complete()).isFalse();
+		assertThat(trace.criticalPath()).containsExactly("root", "a");
+		assertThat(trace.roots()).singleElement().satisfies(root -> {
+			assertThat(root.endMillis()).isNull();
+			assertThat(root.durationMillis()).isNull();
+		});
+		assertThat(assembler.trace("trace-2")).isNull();
+	}
+
+	@Test
+	void expiresIdleIncompleteTraces() {
+		start(START, "gateway", "trace-1", "root", null);
+		start(START + Duration.ofSeconds(61).toMillis(), "gateway", "trace-2", "root", null);
+
+		assertThat(assembler.getExpiredCount()).isEqualTo(1);
+		assertThat(assembler.getActiveTraceCount()).isEqualTo(1);
+		assertThat(assembler.trace("trace-1").complete()).isFalse();
+	}
+
+	@Test
+	void staysWithinItsLimits() {
+		for (int i = 0; i < 10_000; i++) {
+			start(START + i, "gateway", "trace-" + i, "root", null);
+			start(START + i, "service-a", "trace-" + i, "a", "root");
+		}
+
+		assertThat(assembler.getActiveTraceCount()).isLessThanOrEqualTo(100);
+		assertThat(assembler.getActiveSpanCount()).isLessThanOrEqualTo(1000);
+		assertThat(assembler.getFinishedTraceCount()).isLessThanOrEqualTo(100);
+		assertThat(assembler.getEvictedCount()).isGreaterThan(0);
+		assertThat(assembler.getEventCount()).isEqualTo(20_000);
+	}
+
+	private void start(long at, String service, String traceId, String spanId, String parentSpanId) {
+		publish(new LogEvent().timestamp(at).source(service).destination("downstream").method("invoke").type("GET")
+				.request("test").httpStatus(102).traceId(traceId).spanId(spanId).parentSpanId(parentSpanId));
+	}
+
+	private void end(long at, String service, String traceId, String spanId, int status) {
+		publish(new LogEvent().timestamp(at).source(service).destination("downstream").method("invoke").type("GET")
+				.request("test").httpStatus(status).response("done").traceId(traceId).spanId(spanId));
+	}
+
+	private void publish(LogEvent event) {
+		encoder.encode(event, buffer.clear());
+		assembler.accept(deserializer.deserialize("logs-topic", buffer.toByteArray()));
+	}
+}
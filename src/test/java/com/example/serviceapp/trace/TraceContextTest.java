@@ -0,0 +1,40 @@
+package com.example.serviceapp.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceContextTest {
+	private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+	private final ExchangeFunction exchange = request -> {
+		sent.set(request);
+		return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+	};
+	private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/next")).build();
+
+	@Test
+	void propagatesTraceFromReactorContext() {
+		TraceContext.propagation().filter(request, exchange)
+				.contextWrite(new TraceContext("trace-1", "span-1").withSpan("span-2").toContext())
+				.block();
+
+		assertThat(sent.get().headers().getFirst(TraceContext.TRACE_ID_HEADER)).isEqualTo("trace-1");
+		assertThat(sent.get().headers().getFirst(TraceContext.SPAN_ID_HEADER)).isEqualTo("span-2");
+	}
+
+	@Test
+	void leavesRequestAloneWithoutTrace() {
+		TraceContext.propagation().filter(request, exchange).block();
+
+		assertThat(sent.get()).isSameAs(request);
+	}
+}
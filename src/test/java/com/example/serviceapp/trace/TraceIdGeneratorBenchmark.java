@@ -0,0 +1,61 @@
+package com.example.serviceapp.trace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the trace id generators with 64 concurrent threads.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.serviceapp.trace.TraceIdGeneratorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceIdGeneratorBenchmark {
+	private final TraceIdGenerator random = new RandomTraceIdGenerator();
+	private final TraceIdGenerator uuid = new UuidTraceIdGenerator();
+
+	@Benchmark
+	public String w3cTraceId() {
+		return random.newTraceId();
+	}
+
+	@Benchmark
+	public String w3cSpanId() {
+		return random.newSpanId();
+	}
+
+	@Benchmark
+	public String uuidTraceId() {
+		return uuid.newTraceId();
+	}
+
+	@Benchmark
+	public String uuidSpanId() {
+		return uuid.newSpanId();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(TraceIdGeneratorBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}